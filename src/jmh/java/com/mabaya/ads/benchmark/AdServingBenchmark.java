@@ -0,0 +1,142 @@
+package com.mabaya.ads.benchmark;
+
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import com.mabaya.ads.service.AdService;
+import com.mabaya.ads.service.AdServingMetrics;
+import com.mabaya.ads.service.CampaignService;
+import com.mabaya.ads.service.ProductService;
+import com.mabaya.ads.service.PromotedProductSingleFlight;
+import com.mabaya.ads.service.StaleWhileRevalidateAdCache;
+import com.mabaya.ads.service.index.AdIndex;
+import com.mabaya.ads.service.index.IndexedCampaign;
+import com.mabaya.ads.service.index.ProductCatalog;
+import com.mabaya.ads.service.index.ServedAd;
+import com.mabaya.ads.service.index.WinnerTable;
+import com.mabaya.ads.service.mapping.CampaignMapper;
+import com.mabaya.ads.service.mapping.ProductMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Benchmarks {@link AdService#getPromotedAd(Category)} served from the {@link AdIndex}, together
+ * with the index stages behind it: loading the active campaigns, activating a single campaign and
+ * looking up the winner of a category.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdServingBenchmark {
+
+  private static final int CATALOG_SIZE = 100_000;
+  private static final Category[] CATEGORIES = Category.values();
+
+  @Param({"100", "10000", "1000000"})
+  private int campaignCount;
+
+  @Param({"10"})
+  private int productsPerCampaign;
+
+  private List<Campaign> campaigns;
+  private ProductCatalog productCatalog;
+  private AdIndex adIndex;
+  private AdService adService;
+  private IndexedCampaign topCampaign;
+  private int nextCategory;
+
+  @Setup
+  public void setUp() {
+    final List<Product> catalog = SyntheticCatalog.products(CATALOG_SIZE);
+    campaigns = SyntheticCatalog.campaigns(campaignCount, productsPerCampaign, catalog);
+    final ProductCatalog.Builder catalogBuilder = ProductCatalog.builder(catalog.size());
+    catalog.forEach(catalogBuilder::add);
+    productCatalog = catalogBuilder.build();
+    final ProductMapper productMapper = new ProductMapper();
+    adIndex = new AdIndex(Jackson2ObjectMapperBuilder.json().build());
+    adIndex.replaceCatalog(productCatalog);
+    adIndex.replaceAll(index(adIndex));
+    final ProductService productService = new ProductService(null, productMapper);
+    final AdServingMetrics metrics = new AdServingMetrics(new SimpleMeterRegistry());
+    adService =
+        new AdService(
+            new PromotedProductSingleFlight(
+                new CampaignService(null, new CampaignMapper(), productService, null, metrics),
+                new SimpleMeterRegistry(),
+                Duration.ofSeconds(1),
+                Duration.ofMillis(500),
+                Duration.ofSeconds(30)),
+            productService,
+            adIndex,
+            new StaleWhileRevalidateAdCache(
+                new SimpleMeterRegistry(), true, Duration.ofSeconds(1), Duration.ofSeconds(30), 2),
+            Jackson2ObjectMapperBuilder.json().build(),
+            metrics);
+    final WinnerTable.Winner winner = Objects.requireNonNull(adIndex.getWinner(null));
+    topCampaign =
+        adIndex.toIndexedCampaign(
+            campaigns.stream()
+                .filter(campaign -> campaign.getId() == winner.campaignId())
+                .findFirst()
+                .orElseThrow());
+  }
+
+  private Category nextCategory() {
+    final Category category = CATEGORIES[nextCategory];
+    nextCategory = (nextCategory + 1) % CATEGORIES.length;
+    return category;
+  }
+
+  @Benchmark
+  public ServedAd serveAd() {
+    return adService.getPromotedAd(nextCategory());
+  }
+
+  @Benchmark
+  public WinnerTable.Winner winnerLookup() {
+    return adIndex.getWinner(nextCategory());
+  }
+
+  /** Re-activates the highest bidding campaign, which republishes the winner table. */
+  @Benchmark
+  public int activateCampaign() {
+    adIndex.activate(topCampaign);
+    return adIndex.getWinnerTable().hashCode();
+  }
+
+  /**
+   * Indexes all campaigns from the product catalog and serializes their top products, as done when
+   * the index is loaded.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public int loadIndex() {
+    final AdIndex index = new AdIndex(Jackson2ObjectMapperBuilder.json().build());
+    index.replaceCatalog(productCatalog);
+    index.replaceAll(index(index));
+    return index.size();
+  }
+
+  private List<IndexedCampaign> index(AdIndex index) {
+    return campaigns.stream()
+        .map(
+            campaign ->
+                index.toIndexedCampaign(
+                    campaign, campaign.getProducts().stream().mapToLong(Product::getId).toArray()))
+        .filter(Objects::nonNull)
+        .toList();
+  }
+}
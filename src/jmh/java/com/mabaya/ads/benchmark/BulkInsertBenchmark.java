@@ -0,0 +1,124 @@
+package com.mabaya.ads.benchmark;
+
+import com.mabaya.ads.OnlineSponsoredAdsApplication;
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import com.mabaya.ads.service.CampaignService;
+import com.mabaya.ads.service.ProductService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Benchmarks persisting products and campaigns in bulk through JPA, like {@code
+ * InitialDataGenerationRunner} does, against an embedded PostgreSQL. Throughput is reported in rows
+ * per second.
+ *
+ * <p>{@link #idBlockSize} is the number of IDs drawn per sequence round trip and {@link
+ * #jdbcBatchSize} the number of inserts sent per JDBC batch. Both set to 1 is the baseline of a
+ * {@code nextval} round trip and an insert statement per row.
+ *
+ * <p>Embedded PostgreSQL refuses to run as root, run the benchmark as a regular user.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkInsertBenchmark {
+
+  private static final int PRODUCTS_PER_OPERATION = 1000;
+  private static final int CAMPAIGNS_PER_OPERATION = 100;
+  private static final int PRODUCTS_PER_CAMPAIGN = 5;
+
+  @Param({"1", "50"})
+  private int idBlockSize;
+
+  @Param({"1", "50"})
+  private int jdbcBatchSize;
+
+  private EmbeddedPostgres postgres;
+  private ConfigurableApplicationContext context;
+  private ProductService productService;
+  private CampaignService campaignService;
+  private List<Product> campaignProducts;
+  private long serialNumber;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    postgres = EmbeddedPostgres.builder().start();
+    context =
+        SpringApplication.run(
+            OnlineSponsoredAdsApplication.class,
+            "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+            "--spring.datasource.username=postgres",
+            "--spring.datasource.password=",
+            "--spring.main.web-application-type=none",
+            "--spring.output.ansi.enabled=NEVER",
+            "--logging.level.com.mabaya=WARN",
+            "--ads.data.generation.products=0",
+            "--ads.data.generation.campaigns=0",
+            "--ads.serving.index.enabled=false",
+            "--ads.ids.block-size=" + idBlockSize,
+            "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+    productService = context.getBean(ProductService.class);
+    campaignService = context.getBean(CampaignService.class);
+    campaignProducts = productService.persistProducts(products(PRODUCTS_PER_OPERATION));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    context.close();
+    postgres.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PRODUCTS_PER_OPERATION)
+  public List<Product> persistProducts() {
+    return productService.persistProducts(products(PRODUCTS_PER_OPERATION));
+  }
+
+  /** Persists campaigns with their product links, i.e. rows of campaign and campaign_products. */
+  @Benchmark
+  @OperationsPerInvocation(CAMPAIGNS_PER_OPERATION)
+  public List<Campaign> persistCampaigns() {
+    final List<Campaign> campaigns = new ArrayList<>(CAMPAIGNS_PER_OPERATION);
+    final Instant startDate = Instant.now();
+    for (int i = 0; i < CAMPAIGNS_PER_OPERATION; i++) {
+      final int first = (int) (serialNumber++ % (campaignProducts.size() - PRODUCTS_PER_CAMPAIGN));
+      campaigns.add(
+          new Campaign(
+              "Campaign " + i,
+              startDate,
+              BigDecimal.TEN,
+              campaignProducts.subList(first, first + PRODUCTS_PER_CAMPAIGN)));
+    }
+    return campaignService.persistCampaigns(campaigns);
+  }
+
+  private List<Product> products(int count) {
+    final Category[] categories = Category.values();
+    final List<Product> products = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final long serial = serialNumber++;
+      products.add(
+          new Product(
+              "Product " + serial,
+              BigDecimal.valueOf(100 + serial % 1000),
+              categories[(int) (serial % categories.length)],
+              "SN" + serial));
+    }
+    return products;
+  }
+}
@@ -0,0 +1,197 @@
+package com.mabaya.ads.benchmark;
+
+import com.mabaya.ads.OnlineSponsoredAdsApplication;
+import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import com.mabaya.ads.service.CampaignService;
+import com.mabaya.ads.service.ProductService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Benchmarks serving an ad from the database, see {@link
+ * CampaignService#findPromotedProduct(Category)}, against an embedded PostgreSQL. No campaign
+ * promotes {@link #MISSING_CATEGORY}, so serving it falls back to the highest bid campaign overall,
+ * which is the worst case of the serving path.
+ *
+ * <p>The {@code legacy...} benchmarks replicate the former implementation as the baseline: a
+ * campaign query per category, which on a miss throws and is retried without the category, then
+ * loading all the products of the winning campaign to pick the highest priced one in memory, with
+ * the former campaign query, see {@link #LEGACY_CAMPAIGN_QUERY}. Latencies are sampled, so the
+ * worst case is reported by the p99 and p100 percentiles.
+ *
+ * <p>Embedded PostgreSQL refuses to run as root, run the benchmark as a regular user.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseSelectionBenchmark {
+
+  private static final Category MISSING_CATEGORY = Category.OFFICE;
+  private static final Category PROMOTED_CATEGORY = Category.BOOKS;
+  private static final int CATALOG_SIZE = 100_000;
+  private static final String LEGACY_CAMPAIGN_QUERY =
+      "SELECT c FROM Campaign c JOIN c.products p WHERE c.startDate <= :now AND c.endDate > :now"
+          + " AND (:category IS NULL OR p.category = :category) ORDER BY c.bid DESC";
+
+  @Param({"1000", "100000"})
+  private int campaignCount;
+
+  @Param({"10"})
+  private int productsPerCampaign;
+
+  private EmbeddedPostgres postgres;
+  private ConfigurableApplicationContext context;
+  private CampaignService campaignService;
+  private ProductService productService;
+  private EntityManager entityManager;
+  private TransactionTemplate readOnlyTransaction;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    postgres = EmbeddedPostgres.builder().start();
+    context =
+        SpringApplication.run(
+            OnlineSponsoredAdsApplication.class,
+            "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+            "--spring.datasource.username=postgres",
+            "--spring.datasource.password=",
+            "--spring.main.web-application-type=none",
+            "--spring.output.ansi.enabled=NEVER",
+            "--logging.level.com.mabaya=WARN",
+            "--ads.data.generation.products=0",
+            "--ads.data.generation.campaigns=0",
+            "--ads.serving.index.enabled=false");
+    seed(context.getBean(JdbcTemplate.class));
+    campaignService = context.getBean(CampaignService.class);
+    productService = context.getBean(ProductService.class);
+    entityManager =
+        SharedEntityManagerCreator.createSharedEntityManager(
+            context.getBean(EntityManagerFactory.class));
+    readOnlyTransaction =
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    readOnlyTransaction.setReadOnly(true);
+  }
+
+  /**
+   * Seeds a catalog without {@link #MISSING_CATEGORY} products and active campaigns promoting
+   * {@link #productsPerCampaign} products each, spread over the catalog.
+   */
+  private void seed(JdbcTemplate jdbcTemplate) {
+    final Category[] categories =
+        Arrays.stream(Category.values())
+            .filter(category -> category != MISSING_CATEGORY)
+            .toArray(Category[]::new);
+    final String categoryArray =
+        Arrays.stream(categories)
+            .map(category -> "'" + category + "'")
+            .collect(Collectors.joining(",", "ARRAY[", "]"));
+    jdbcTemplate.update(
+        "INSERT INTO product (id, title, price, category, serial_number)"
+            + " SELECT i, 'Product ' || i, 100 + (i::bigint * 7919 % 100000) / 100.0, ("
+            + categoryArray
+            + ")[1 + i % "
+            + categories.length
+            + "], 'SN' || i FROM generate_series(1, ?) i",
+        CATALOG_SIZE);
+    jdbcTemplate.update(
+        "INSERT INTO campaign (id, name, start_date, end_date, bid)"
+            + " SELECT i, 'Campaign ' || i, now() - interval '1 day', now() + interval '9 days',"
+            + " 1 + (i::bigint * 104729 % 1000000) / 100.0 FROM generate_series(1, ?) i",
+        campaignCount);
+    jdbcTemplate.update(
+        "INSERT INTO campaign_products (campaign_id, products_id)"
+            + " SELECT c, 1 + (c::bigint * 7919 + k::bigint * 104729) % ?"
+            + " FROM generate_series(1, ?) c, generate_series(1, ?) k",
+        CATALOG_SIZE, campaignCount, productsPerCampaign);
+    jdbcTemplate.execute("ANALYZE");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    context.close();
+    postgres.close();
+  }
+
+  @Benchmark
+  public ProductDTO singleQueryMissingCategory() {
+    return singleQueryServe(MISSING_CATEGORY);
+  }
+
+  @Benchmark
+  public ProductDTO singleQueryPromotedCategory() {
+    return singleQueryServe(PROMOTED_CATEGORY);
+  }
+
+  @Benchmark
+  public ProductDTO legacyMissingCategory() {
+    return legacyServe(MISSING_CATEGORY);
+  }
+
+  @Benchmark
+  public ProductDTO legacyPromotedCategory() {
+    return legacyServe(PROMOTED_CATEGORY);
+  }
+
+  private ProductDTO singleQueryServe(Category category) {
+    return productService.getDTO(
+        campaignService.findPromotedProduct(category).orElseThrow().toProduct());
+  }
+
+  private ProductDTO legacyServe(Category category) {
+    return readOnlyTransaction.execute(
+        status -> {
+          final Instant requestTime = Instant.now();
+          Campaign campaign;
+          try {
+            campaign = legacyFindActiveCampaignWithHighestBid(category, requestTime);
+          } catch (NoSuchElementException e) {
+            campaign = legacyFindActiveCampaignWithHighestBid(null, requestTime);
+          }
+          Hibernate.initialize(campaign.getProducts());
+          final boolean foundActiveCampaignByCategory =
+              ProductSelectionBenchmark.hasProductsWithCategory(campaign, category);
+          final Product product =
+              productService.getProductWithHighestPrice(
+                  campaign.getProducts(), foundActiveCampaignByCategory ? category : null);
+          return productService.getDTO(product);
+        });
+  }
+
+  private Campaign legacyFindActiveCampaignWithHighestBid(Category category, Instant requestTime) {
+    final List<Campaign> activeCampaigns =
+        entityManager
+            .createQuery(LEGACY_CAMPAIGN_QUERY, Campaign.class)
+            .setParameter("now", requestTime)
+            .setParameter("category", category)
+            .setMaxResults(1)
+            .getResultList();
+    if (activeCampaigns.isEmpty()) {
+      throw new NoSuchElementException("No active campaigns found");
+    }
+    return activeCampaigns.get(0);
+  }
+}
@@ -0,0 +1,76 @@
+package com.mabaya.ads.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mabaya.ads.dto.CampaignDTO;
+import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Product;
+import com.mabaya.ads.service.index.ServedAd;
+import com.mabaya.ads.service.mapping.CampaignMapper;
+import com.mabaya.ads.service.mapping.IMapper;
+import com.mabaya.ads.service.mapping.ProductMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Benchmarks the {@link IMapper} implementations and the serialization of a promoted product into a
+ * {@link ServedAd}, the last stages before an ad is written to the response.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+  @Param({"1", "100"})
+  private int productsPerCampaign;
+
+  private final IMapper<Product, ProductDTO> productMapper = new ProductMapper();
+  private final IMapper<Campaign, CampaignDTO> campaignMapper = new CampaignMapper();
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private Product product;
+  private ProductDTO productDTO;
+  private Campaign campaign;
+  private CampaignDTO campaignDTO;
+
+  @Setup
+  public void setUp() {
+    final List<Product> catalog = SyntheticCatalog.products(1000);
+    product = catalog.get(0);
+    productDTO = productMapper.mapToDTO(product);
+    campaign = SyntheticCatalog.campaigns(1, productsPerCampaign, catalog).get(0);
+    campaignDTO = campaignMapper.mapToDTO(campaign);
+  }
+
+  @Benchmark
+  public ProductDTO productToDTO() {
+    return productMapper.mapToDTO(product);
+  }
+
+  @Benchmark
+  public Product productToModel() {
+    return productMapper.mapToModel(productDTO);
+  }
+
+  @Benchmark
+  public CampaignDTO campaignToDTO() {
+    return campaignMapper.mapToDTO(campaign);
+  }
+
+  @Benchmark
+  public Campaign campaignToModel() {
+    return campaignMapper.mapToModel(campaignDTO);
+  }
+
+  @Benchmark
+  public ServedAd serializeProduct() {
+    return ServedAd.of(productDTO, objectMapper);
+  }
+}
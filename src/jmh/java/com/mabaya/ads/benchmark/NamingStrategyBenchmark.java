@@ -0,0 +1,41 @@
+package com.mabaya.ads.benchmark;
+
+import com.mabaya.ads.utils.SnakeCaseNamingStrategy;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.boot.model.naming.Identifier;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks {@link SnakeCaseNamingStrategy} on the logical names of the model. Hibernate applies
+ * it while building the metamodel, so it contributes to startup time rather than to serving.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NamingStrategyBenchmark {
+
+  private final SnakeCaseNamingStrategy namingStrategy = new SnakeCaseNamingStrategy();
+
+  private final Identifier[] identifiers = {
+    Identifier.toIdentifier("Campaign"),
+    Identifier.toIdentifier("startDate"),
+    Identifier.toIdentifier("endDate"),
+    Identifier.toIdentifier("bid"),
+    Identifier.toIdentifier("serialNumber"),
+    Identifier.toIdentifier("campaignProducts"),
+    Identifier.toIdentifier("productsId"),
+  };
+
+  @Benchmark
+  public void toPhysicalColumnNames(Blackhole blackhole) {
+    for (Identifier identifier : identifiers) {
+      blackhole.consume(namingStrategy.toPhysicalColumnName(identifier, null));
+    }
+  }
+}
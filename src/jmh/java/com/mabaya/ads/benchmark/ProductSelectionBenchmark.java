@@ -0,0 +1,119 @@
+package com.mabaya.ads.benchmark;
+
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import com.mabaya.ads.service.ProductService;
+import com.mabaya.ads.service.mapping.ProductMapper;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the in-memory stages of the database serving path that scan a campaign's products: the
+ * category check of the former implementation, see {@link #hasProductsWithCategory(Campaign,
+ * Category)}, and {@link ProductService#getProductWithHighestPrice(java.util.Collection,
+ * Category)}. The campaign promotes the whole synthetic catalog, which contains no {@link
+ * #MISSING_CATEGORY} products, so the category check can be measured both when it exits early and
+ * when it scans everything.
+ *
+ * <p>The {@code ...ByBigDecimal} benchmarks replicate the former implementation, which compared
+ * {@link BigDecimal} prices through a stream, as the baseline for comparing prices in {@link
+ * com.mabaya.ads.model.Micros}.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSelectionBenchmark {
+
+  private static final Category MISSING_CATEGORY = Category.OFFICE;
+
+  @Param({"1000", "100000", "1000000", "10000000"})
+  private int catalogSize;
+
+  private ProductService productService;
+  private Campaign campaign;
+  private List<DecimalPricedProduct> decimalPricedCatalog;
+
+  @Setup
+  public void setUp() {
+    final Category[] categories =
+        Arrays.stream(Category.values())
+            .filter(category -> category != MISSING_CATEGORY)
+            .toArray(Category[]::new);
+    final List<Product> catalog = SyntheticCatalog.products(catalogSize, categories);
+    productService = new ProductService(null, new ProductMapper());
+    campaign = new Campaign(1L, "Campaign", Instant.now(), BigDecimal.ONE, catalog);
+    decimalPricedCatalog =
+        catalog.stream()
+            .map(
+                product ->
+                    new DecimalPricedProduct(
+                        product.getId(), product.getPrice(), product.getCategory()))
+            .toList();
+  }
+
+  @Benchmark
+  public Product highestPricedProduct() {
+    return productService.getProductWithHighestPrice(campaign.getProducts());
+  }
+
+  @Benchmark
+  public Product highestPricedProductInCategory() {
+    return productService.getProductWithHighestPrice(campaign.getProducts(), Category.BOOKS);
+  }
+
+  @Benchmark
+  public boolean hasProductsWithCategory() {
+    return hasProductsWithCategory(campaign, Category.BOOKS);
+  }
+
+  @Benchmark
+  public boolean hasProductsWithMissingCategory() {
+    return hasProductsWithCategory(campaign, MISSING_CATEGORY);
+  }
+
+  /**
+   * Checks whether the campaign has products of the given category, like the former implementation
+   * did before picking the highest priced product, see {@link DatabaseSelectionBenchmark}.
+   */
+  static boolean hasProductsWithCategory(Campaign campaign, Category category) {
+    for (Product product : campaign.getProducts()) {
+      if (product.getCategory().equals(category)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Benchmark
+  public DecimalPricedProduct highestPricedProductByBigDecimal() {
+    return highestPricedProductByBigDecimal(null);
+  }
+
+  @Benchmark
+  public DecimalPricedProduct highestPricedProductInCategoryByBigDecimal() {
+    return highestPricedProductByBigDecimal(Category.BOOKS);
+  }
+
+  private DecimalPricedProduct highestPricedProductByBigDecimal(Category category) {
+    return decimalPricedCatalog.stream()
+        .filter(product -> category == null || product.category().equals(category))
+        .max(Comparator.comparing(DecimalPricedProduct::price))
+        .orElseThrow(
+            () -> new NoSuchElementException("No product found for the specified criteria"));
+  }
+
+  /** A product as it was held before prices were kept in micros. */
+  public record DecimalPricedProduct(long id, BigDecimal price, Category category) {}
+}
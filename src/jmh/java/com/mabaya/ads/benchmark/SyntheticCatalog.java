@@ -0,0 +1,78 @@
+package com.mabaya.ads.benchmark;
+
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of products and campaigns for the benchmarks. The same seed always yields
+ * the same catalog, so results of different commits are measured against identical data.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+final class SyntheticCatalog {
+
+  static final long SEED = 42;
+
+  private static final String TITLE = "Synthetic Product";
+
+  private SyntheticCatalog() {}
+
+  /**
+   * Generates products with random prices, spread evenly over the given categories.
+   *
+   * @param size The number of products.
+   * @param categories The categories to draw from, all categories if none are given.
+   * @return The products, with IDs 1 to size.
+   */
+  static List<Product> products(int size, Category... categories) {
+    final Category[] pool = categories.length == 0 ? Category.values() : categories;
+    final SplittableRandom random = new SplittableRandom(SEED);
+    final List<Product> products = new ArrayList<>(size);
+    for (int i = 1; i <= size; i++) {
+      products.add(
+          new Product(
+              (long) i,
+              TITLE,
+              BigDecimal.valueOf(random.nextLong(100, 1_000_000), 2),
+              pool[random.nextInt(pool.length)],
+              "SN" + i));
+    }
+    return products;
+  }
+
+  /**
+   * Generates active campaigns with random bids, each promoting random products of the catalog.
+   *
+   * @param count The number of campaigns.
+   * @param productsPerCampaign The number of products of every campaign.
+   * @param catalog The products to draw from.
+   * @return The campaigns, with IDs 1 to count.
+   */
+  static List<Campaign> campaigns(int count, int productsPerCampaign, List<Product> catalog) {
+    final SplittableRandom random = new SplittableRandom(SEED + 1);
+    final Instant startDate = Instant.now().minus(Duration.ofDays(1));
+    final List<Campaign> campaigns = new ArrayList<>(count);
+    for (int i = 1; i <= count; i++) {
+      final List<Product> products = new ArrayList<>(productsPerCampaign);
+      for (int j = 0; j < productsPerCampaign; j++) {
+        products.add(catalog.get(random.nextInt(catalog.size())));
+      }
+      campaigns.add(
+          new Campaign(
+              (long) i,
+              "Campaign " + i,
+              startDate,
+              startDate.plus(Campaign.DEFAULT_ACTIVE_DURATION),
+              BigDecimal.valueOf(random.nextLong(1, 100_000), 2),
+              products));
+    }
+    return campaigns;
+  }
+}
@@ -0,0 +1,147 @@
+package com.mabaya.ads.loadtest;
+
+import com.mabaya.ads.loadtest.OpenLoopLoadGenerator.Operation;
+import com.mabaya.ads.loadtest.OpenLoopLoadGenerator.StepResult;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalInt;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Writes the results of a load test: a summary with the latency percentiles and throughput of every
+ * step, and the full HdrHistogram percentile distribution of every step and operation, which can be
+ * plotted with the HdrHistogram plotter.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+class LoadTestReport {
+
+  private static final DateTimeFormatter DIRECTORY_NAME_FORMAT =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+  private static final double MICROS_PER_MILLI = 1000.0;
+  private static final double SUSTAINED_THROUGHPUT_RATIO = 0.95;
+
+  private final LoadTestSettings settings;
+
+  LoadTestReport(LoadTestSettings settings) {
+    this.settings = settings;
+  }
+
+  /**
+   * Writes the report of the given steps into a new, timestamped directory.
+   *
+   * @param results The results of the measured steps, in the order they ran.
+   * @return The directory the report was written to.
+   * @throws IOException if the report cannot be written.
+   */
+  Path write(List<StepResult> results) throws IOException {
+    final Path directory =
+        Files.createDirectories(
+            settings.reportDirectory().resolve(DIRECTORY_NAME_FORMAT.format(Instant.now())));
+    for (StepResult result : results) {
+      for (Operation operation : Operation.values()) {
+        final Histogram histogram = result.latencies().get(operation);
+        if (histogram.getTotalCount() > 0) {
+          final Path file =
+              directory.resolve(
+                  result.targetRate() + "rps-" + operation.name().toLowerCase() + ".hgrm");
+          try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+          }
+        }
+      }
+    }
+    final Path summary = directory.resolve("summary.txt");
+    try (PrintStream out = new PrintStream(Files.newOutputStream(summary))) {
+      writeSummary(out, results);
+    }
+    writeSummary(System.out, results);
+    return directory;
+  }
+
+  private void writeSummary(PrintStream out, List<StepResult> results) {
+    out.printf(
+        Locale.ROOT,
+        "Seeded %d products and %d campaigns, %s threads, serving from the %s, %.1f%% writes,"
+            + " latency objective p99 <= %d ms%n%n",
+        settings.products(),
+        settings.campaigns(),
+        settings.virtualThreads() ? "virtual" : "platform",
+        settings.databaseServing() ? "database" : "index",
+        settings.writeRatio() * 100,
+        settings.latencyObjective().toMillis());
+    out.printf(
+        Locale.ROOT,
+        "%10s %-16s %10s %8s %10s %10s %10s %10s %10s%n",
+        "target/s",
+        "operation",
+        "count",
+        "errors",
+        "p50 ms",
+        "p99 ms",
+        "p99.9 ms",
+        "max ms",
+        "achieved/s");
+    for (StepResult result : results) {
+      for (Operation operation : Operation.values()) {
+        writeRow(
+            out,
+            result,
+            operation.name().toLowerCase(),
+            result.latencies().get(operation),
+            result.errors().get(operation));
+      }
+      writeRow(
+          out,
+          result,
+          "all",
+          result.combinedLatencies(),
+          result.errors().values().stream().mapToLong(Long::longValue).sum());
+    }
+    final OptionalInt maxSustainedRate = maxSustainedRate(results);
+    out.println();
+    out.println(
+        maxSustainedRate.isPresent()
+            ? "Max sustained throughput: " + maxSustainedRate.getAsInt() + " requests/s"
+            : "No step met the latency objective");
+  }
+
+  private static void writeRow(
+      PrintStream out, StepResult result, String operation, Histogram histogram, long errors) {
+    out.printf(
+        Locale.ROOT,
+        "%10d %-16s %10d %8d %10.2f %10.2f %10.2f %10.2f %10.0f%n",
+        result.targetRate(),
+        operation,
+        histogram.getTotalCount(),
+        errors,
+        histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+        histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+        histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+        histogram.getMaxValue() / MICROS_PER_MILLI,
+        result.achievedThroughput());
+  }
+
+  /**
+   * Returns the highest target rate that was achieved without errors while meeting the latency
+   * objective.
+   */
+  private OptionalInt maxSustainedRate(List<StepResult> results) {
+    final long objectiveMicros = settings.latencyObjective().toNanos() / 1000;
+    return results.stream()
+        .filter(result -> result.errors().values().stream().allMatch(errors -> errors == 0))
+        .filter(result -> result.combinedLatencies().getValueAtPercentile(99) <= objectiveMicros)
+        .filter(
+            result ->
+                result.achievedThroughput() >= result.targetRate() * SUSTAINED_THROUGHPUT_RATIO)
+        .mapToInt(StepResult::targetRate)
+        .max();
+  }
+}
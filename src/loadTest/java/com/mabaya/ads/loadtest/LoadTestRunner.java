@@ -0,0 +1,85 @@
+package com.mabaya.ads.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mabaya.ads.OnlineSponsoredAdsApplication;
+import com.mabaya.ads.loadtest.OpenLoopLoadGenerator.StepResult;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Entry point of the load test. Starts an embedded PostgreSQL, starts the application against it,
+ * lets {@link com.mabaya.ads.utils.InitialDataGenerationRunner} seed it in bulk at the configured
+ * scale and then runs an {@link OpenLoopLoadGenerator} step for every configured rate, after a
+ * warmup step.
+ *
+ * <p>Run it with {@code ./gradlew loadTest}, see {@link LoadTestSettings} for the settings.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public final class LoadTestRunner {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadTestRunner.class);
+
+  private LoadTestRunner() {}
+
+  public static void main(String[] args) throws Exception {
+    final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        ConfigurableApplicationContext context = startApplication(settings, postgres)) {
+      final List<Long> productIds =
+          context.getBean(JdbcTemplate.class).queryForList("SELECT id FROM product", Long.class);
+      final int port =
+          context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+      final OpenLoopLoadGenerator generator =
+          new OpenLoopLoadGenerator(
+              HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build(),
+              URI.create("http://localhost:" + port + "/api/v1/"),
+              context.getBean(ObjectMapper.class),
+              productIds,
+              settings.writeRatio());
+
+      LOGGER.info("Warming up for {}", settings.warmup());
+      generator.run(settings.rates()[0], settings.warmup());
+
+      final List<StepResult> results = new ArrayList<>();
+      for (int rate : settings.rates()) {
+        LOGGER.info("Running {} requests/s for {}", rate, settings.stepDuration());
+        results.add(generator.run(rate, settings.stepDuration()));
+      }
+      final Path reportDirectory = new LoadTestReport(settings).write(results);
+      LOGGER.info("Load test report written to {}", reportDirectory.toAbsolutePath());
+    }
+  }
+
+  private static ConfigurableApplicationContext startApplication(
+      LoadTestSettings settings, EmbeddedPostgres postgres) {
+    LOGGER.info(
+        "Starting application on {} threads, seeding {} products and {} campaigns",
+        settings.virtualThreads() ? "virtual" : "platform",
+        settings.products(),
+        settings.campaigns());
+    return SpringApplication.run(
+        OnlineSponsoredAdsApplication.class,
+        "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+        "--spring.datasource.username=postgres",
+        "--spring.datasource.password=",
+        "--server.port=0",
+        "--spring.output.ansi.enabled=NEVER",
+        "--ads.data.generation.products=" + settings.products(),
+        "--ads.data.generation.campaigns=" + settings.campaigns(),
+        "--ads.data.generation.bulk=true",
+        "--spring.threads.virtual.enabled=" + settings.virtualThreads(),
+        "--ads.serving.index.enabled=" + !settings.databaseServing(),
+        "--ads.serving.cache.enabled=" + !settings.databaseServing());
+  }
+}
@@ -0,0 +1,61 @@
+package com.mabaya.ads.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} system properties which the {@code
+ * loadTest} Gradle task fills from the matching project properties.
+ *
+ * @param products The number of products to seed.
+ * @param campaigns The number of campaigns to seed.
+ * @param rates The target request rates, in requests per second, run one after the other.
+ * @param warmup The duration of the warmup step that precedes the measured steps.
+ * @param stepDuration The duration of every measured step.
+ * @param writeRatio The share of requests that create a campaign, between 0 and 1.
+ * @param latencyObjective The p99 latency a step must meet for its rate to count as sustained.
+ * @param reportDirectory The directory the reports are written to.
+ * @param virtualThreads Whether the application handles requests on virtual threads, which requires
+ *     Java 21, instead of the platform thread pool of Tomcat.
+ * @param databaseServing Whether ads are served from the database instead of the ad index, without
+ *     caching them, so every ad request blocks on JDBC.
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+record LoadTestSettings(
+    int products,
+    int campaigns,
+    int[] rates,
+    Duration warmup,
+    Duration stepDuration,
+    double writeRatio,
+    Duration latencyObjective,
+    Path reportDirectory,
+    boolean virtualThreads,
+    boolean databaseServing) {
+
+  static LoadTestSettings fromSystemProperties() {
+    final LoadTestSettings settings =
+        new LoadTestSettings(
+            Integer.getInteger("loadtest.products", 10_000),
+            Integer.getInteger("loadtest.campaigns", 1_000),
+            Arrays.stream(System.getProperty("loadtest.rates", "500,1000,2000,4000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray(),
+            Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 15)),
+            Duration.ofSeconds(Long.getLong("loadtest.stepSeconds", 30)),
+            Double.parseDouble(System.getProperty("loadtest.writeRatio", "0.01")),
+            Duration.ofMillis(Long.getLong("loadtest.sloMillis", 50)),
+            Path.of(System.getProperty("loadtest.reportDir", "build/reports/loadtest")),
+            Boolean.getBoolean("loadtest.virtualThreads"),
+            Boolean.getBoolean("loadtest.databaseServing"));
+    if (settings.writeRatio < 0 || settings.writeRatio > 1) {
+      throw new IllegalArgumentException("Write ratio must be between 0 and 1");
+    }
+    if (Arrays.stream(settings.rates).anyMatch(rate -> rate <= 0)) {
+      throw new IllegalArgumentException("Rates must be positive");
+    }
+    return settings;
+  }
+}
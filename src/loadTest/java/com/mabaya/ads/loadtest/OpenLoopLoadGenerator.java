@@ -0,0 +1,276 @@
+package com.mabaya.ads.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mabaya.ads.dto.CampaignDTO;
+import com.mabaya.ads.model.Category;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives a fixed request rate against the application, independently of how fast it responds.
+ *
+ * <p>Requests are sent asynchronously at their intended send times. The latency of a request is
+ * measured from its intended send time rather than from the moment it was actually sent, so when
+ * the application stalls, the requests that should have been sent in the meantime are accounted for
+ * with the time they would have waited. This avoids the coordinated omission of closed-loop load
+ * generators, which stop sending while they wait and thereby hide stalls.
+ *
+ * <p>Requests still unanswered {@link #REQUEST_TIMEOUT} after sending ended are not waited for:
+ * they are recorded as errors, with the timeout as their latency, which is a lower bound of it.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+class OpenLoopLoadGenerator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OpenLoopLoadGenerator.class);
+
+  private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+  private static final Category[] CATEGORIES = Category.values();
+
+  /** The operations of the traffic mix. */
+  enum Operation {
+    SERVE_AD,
+    CREATE_CAMPAIGN
+  }
+
+  private final HttpClient httpClient;
+  private final URI baseUri;
+  private final ObjectMapper objectMapper;
+  private final List<Long> productIds;
+  private final double writeRatio;
+  private final SplittableRandom random = new SplittableRandom(42);
+
+  OpenLoopLoadGenerator(
+      HttpClient httpClient,
+      URI baseUri,
+      ObjectMapper objectMapper,
+      List<Long> productIds,
+      double writeRatio) {
+    this.httpClient = httpClient;
+    this.baseUri = baseUri;
+    this.objectMapper = objectMapper;
+    this.productIds = productIds;
+    this.writeRatio = writeRatio;
+  }
+
+  /**
+   * Sends requests at the given rate for the given duration and waits for them to complete, up to
+   * {@link #REQUEST_TIMEOUT}.
+   *
+   * @param rate The target rate, in requests per second.
+   * @param duration How long to send requests for.
+   * @return The latencies and counts of every operation.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  StepResult run(int rate, Duration duration) throws InterruptedException {
+    final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_MICROS, 3));
+      errors.put(operation, new LongAdder());
+    }
+    final Map<Operation, LongAdder> pending = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      pending.put(operation, new LongAdder());
+    }
+    // The requests in flight, plus one until sending ends
+    final AtomicLong inFlight = new AtomicLong(1);
+    final CountDownLatch completed = new CountDownLatch(1);
+    // Completions record under the read lock until the unfinished requests are recorded
+    final ReadWriteLock recording = new ReentrantReadWriteLock();
+    final AtomicBoolean closed = new AtomicBoolean();
+    final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    final long durationNanos = duration.toNanos();
+    final long startNanos = System.nanoTime();
+    long sent = 0;
+
+    for (long intendedNanos = startNanos;
+        intendedNanos - startNanos < durationNanos;
+        intendedNanos += intervalNanos) {
+      final long delayNanos = intendedNanos - System.nanoTime();
+      if (delayNanos > 0) {
+        LockSupport.parkNanos(delayNanos);
+      }
+      final Operation operation =
+          random.nextDouble() < writeRatio ? Operation.CREATE_CAMPAIGN : Operation.SERVE_AD;
+      final long intendedSendNanos = intendedNanos;
+      inFlight.incrementAndGet();
+      pending.get(operation).increment();
+      httpClient
+          .sendAsync(createRequest(operation), HttpResponse.BodyHandlers.discarding())
+          .whenComplete(
+              (response, error) -> {
+                final long latencyNanos = System.nanoTime() - intendedSendNanos;
+                recording.readLock().lock();
+                try {
+                  if (!closed.get()) {
+                    recorders
+                        .get(operation)
+                        .recordValue(
+                            Math.min(
+                                TimeUnit.NANOSECONDS.toMicros(latencyNanos),
+                                HIGHEST_TRACKABLE_MICROS));
+                    if (error != null || response.statusCode() >= 400) {
+                      errors.get(operation).increment();
+                    }
+                    pending.get(operation).decrement();
+                  }
+                } finally {
+                  recording.readLock().unlock();
+                }
+                if (inFlight.decrementAndGet() == 0) {
+                  completed.countDown();
+                }
+              });
+      sent++;
+    }
+    final long sendingNanos = System.nanoTime() - startNanos;
+
+    if (inFlight.decrementAndGet() == 0) {
+      completed.countDown();
+    }
+    final boolean allCompleted = completed.await(REQUEST_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+    final long elapsedNanos = System.nanoTime() - startNanos;
+
+    recording.writeLock().lock();
+    try {
+      closed.set(true);
+    } finally {
+      recording.writeLock().unlock();
+    }
+    if (!allCompleted) {
+      final long timeoutMicros =
+          Math.min(
+              TimeUnit.NANOSECONDS.toMicros(REQUEST_TIMEOUT.toNanos()), HIGHEST_TRACKABLE_MICROS);
+      for (Operation operation : Operation.values()) {
+        final long unfinished = pending.get(operation).sum();
+        if (unfinished > 0) {
+          recorders.get(operation).recordValueWithCount(timeoutMicros, unfinished);
+          errors.get(operation).add(unfinished);
+          LOGGER.warn(
+              "{} {} requests still in flight after {}, recorded as timeouts",
+              unfinished,
+              operation,
+              REQUEST_TIMEOUT);
+        }
+      }
+    }
+
+    final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    final Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      histograms.put(operation, recorders.get(operation).getIntervalHistogram());
+      errorCounts.put(operation, errors.get(operation).sum());
+    }
+    return new StepResult(
+        rate,
+        sent,
+        Duration.ofNanos(sendingNanos),
+        Duration.ofNanos(elapsedNanos),
+        histograms,
+        errorCounts);
+  }
+
+  private HttpRequest createRequest(Operation operation) {
+    return switch (operation) {
+      case SERVE_AD -> HttpRequest.newBuilder(
+              baseUri.resolve("ad/" + CATEGORIES[random.nextInt(CATEGORIES.length)]))
+          .timeout(REQUEST_TIMEOUT)
+          .GET()
+          .build();
+      case CREATE_CAMPAIGN -> HttpRequest.newBuilder(baseUri.resolve("campaign"))
+          .timeout(REQUEST_TIMEOUT)
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofByteArray(createCampaignBody()))
+          .build();
+    };
+  }
+
+  private byte[] createCampaignBody() {
+    final int productCount = random.nextInt(1, 11);
+    final List<Long> campaignProductIds =
+        random
+            .ints(productCount, 0, productIds.size())
+            .mapToObj(productIds::get)
+            .distinct()
+            .toList();
+    final CampaignDTO campaign =
+        new CampaignDTO(
+            Optional.empty(),
+            "Load Test Campaign",
+            Instant.now().plus(Duration.ofHours(1)),
+            BigDecimal.valueOf(random.nextLong(100, 20_000), 2),
+            campaignProductIds);
+    try {
+      return objectMapper.writeValueAsBytes(campaign);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize campaign", e);
+    }
+  }
+
+  /**
+   * The outcome of one load step.
+   *
+   * @param targetRate The rate requests were sent at, in requests per second.
+   * @param sent The number of requests sent.
+   * @param sendingDuration How long sending took.
+   * @param elapsed How long it took until all responses were received, or the timeout elapsed.
+   * @param latencies The corrected latencies of every operation, in microseconds.
+   * @param errors The number of failed requests of every operation.
+   */
+  record StepResult(
+      int targetRate,
+      long sent,
+      Duration sendingDuration,
+      Duration elapsed,
+      Map<Operation, Histogram> latencies,
+      Map<Operation, Long> errors) {
+
+    /**
+     * Returns the rate at which requests completed successfully.
+     *
+     * @return The achieved throughput, in requests per second.
+     */
+    double achievedThroughput() {
+      final long completed =
+          latencies.values().stream().mapToLong(Histogram::getTotalCount).sum()
+              - errors.values().stream().mapToLong(Long::longValue).sum();
+      return completed / (elapsed.toNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Returns the latency of all operations together.
+     *
+     * @return The combined histogram, in microseconds.
+     */
+    Histogram combinedLatencies() {
+      final Histogram combined = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+      latencies.values().forEach(combined::add);
+      return combined;
+    }
+  }
+}
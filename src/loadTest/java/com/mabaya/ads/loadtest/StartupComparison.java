@@ -0,0 +1,230 @@
+package com.mabaya.ads.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the startup of the application as a JVM jar and as a native image. Starts an embedded
+ * PostgreSQL, migrates and seeds it through the jar, then starts every variant several times with
+ * the fast-start profile, measuring:
+ *
+ * <ul>
+ *   <li>the time until the readiness probe reports up,
+ *   <li>the latency of the first ad request once ready,
+ *   <li>the mean latency of the following {@value #WARM_UP_REQUESTS} ad requests, which shows how
+ *       far the serving path is from its steady state,
+ *   <li>the resident set size of the process after serving them, read from {@code /proc}, so only
+ *       on Linux.
+ * </ul>
+ *
+ * <p>Run it with {@code ./gradlew startupComparison}, which builds both variants. The medians of
+ * every variant are printed and written to {@code build/reports/startup/<timestamp>/summary.txt}.
+ * Settings are read from {@code startup.*} system properties: {@code jar} and {@code native} are
+ * the paths of the variants, {@code runs} is the number of starts per variant and {@code products}
+ * and {@code campaigns} the number seeded.
+ *
+ * <p>Without an executable native image the comparison fails, unless {@code jvmOnly} is set, with
+ * {@code ./gradlew startupComparison -PjvmOnly}. The JVM jar is then measured alone, and the native
+ * image is reported as not measured rather than left out of the summary.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public final class StartupComparison {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StartupComparison.class);
+
+  private static final int PORT = 18080;
+  private static final int WARM_UP_REQUESTS = 1000;
+  private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+  private static final HttpClient HTTP_CLIENT =
+      HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+  private StartupComparison() {}
+
+  public static void main(String[] args) throws Exception {
+    final Path jar = Path.of(System.getProperty("startup.jar"));
+    final Path nativeImage = Path.of(System.getProperty("startup.native", "none"));
+    final int runs = Integer.getInteger("startup.runs", 5);
+    final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+    final List<Variant> variants = new ArrayList<>();
+    variants.add(new Variant("jvm", List.of(java, "-jar", jar.toString())));
+    final boolean nativeMeasured = Files.isExecutable(nativeImage);
+    if (nativeMeasured) {
+      variants.add(new Variant("native", List.of(nativeImage.toString())));
+    } else if (Boolean.getBoolean("startup.jvmOnly")) {
+      LOGGER.warn("No native image at {}, measuring the JVM jar only", nativeImage);
+    } else {
+      throw new IllegalStateException(
+          "No native image at "
+              + nativeImage
+              + ", build it with a GraalVM toolchain or measure the JVM jar only with -PjvmOnly");
+    }
+
+    try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+      final List<String> database =
+          List.of(
+              "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+              "--spring.datasource.username=postgres",
+              "--spring.datasource.password=",
+              "--spring.output.ansi.enabled=NEVER");
+      runToCompletion(command(List.of(java, "-jar", jar.toString(), "migrate"), database));
+      runToCompletion(
+          command(
+              List.of(
+                  java,
+                  "-jar",
+                  jar.toString(),
+                  "seed",
+                  "--ads.data.generation.products="
+                      + Integer.getInteger("startup.products", 10_000),
+                  "--ads.data.generation.campaigns="
+                      + Integer.getInteger("startup.campaigns", 1_000)),
+              database));
+
+      final StringBuilder summary =
+          new StringBuilder(
+              String.format(
+                  "%-8s %10s %14s %16s %10s%n",
+                  "variant", "ready ms", "first ad ms", "next ads us", "rss MB"));
+      for (Variant variant : variants) {
+        final List<Run> results = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+          final Run run =
+              start(
+                  command(
+                      variant.command(),
+                      database,
+                      "--spring.profiles.active=fast-start",
+                      "--server.port=" + PORT));
+          LOGGER.info("{} run {}: {}", variant.name(), i + 1, run);
+          results.add(run);
+        }
+        summary.append(
+            String.format(
+                "%-8s %10d %14.1f %16d %10d%n",
+                variant.name(),
+                median(results.stream().mapToLong(Run::readyMillis).toArray()),
+                median(results.stream().mapToLong(Run::firstAdMicros).toArray()) / 1000.0,
+                median(results.stream().mapToLong(Run::nextAdsMicros).toArray()),
+                median(results.stream().mapToLong(Run::rssMegabytes).toArray())));
+      }
+      if (!nativeMeasured) {
+        summary.append(String.format("%-8s not measured, no image at %s%n", "native", nativeImage));
+      }
+      LOGGER.info("Medians of {} runs:{}{}", runs, System.lineSeparator(), summary);
+      final Path reportDirectory =
+          Path.of(System.getProperty("startup.reportDir", "build/reports/startup"))
+              .resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+      Files.createDirectories(reportDirectory);
+      Files.writeString(reportDirectory.resolve("summary.txt"), summary);
+      LOGGER.info("Startup report written to {}", reportDirectory.toAbsolutePath());
+    }
+  }
+
+  private static Run start(List<String> command) throws IOException, InterruptedException {
+    final long start = System.nanoTime();
+    final Process process =
+        new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    try {
+      final String base = "http://localhost:" + PORT;
+      while (status(base + "/actuator/health/readiness") != 200) {
+        if (!process.isAlive() || System.nanoTime() - start > START_TIMEOUT.toNanos()) {
+          throw new IllegalStateException("Not ready: " + String.join(" ", command));
+        }
+        Thread.sleep(10);
+      }
+      final long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      final long firstAdMicros = timeAdRequests(base, 1);
+      final long nextAdsMicros = timeAdRequests(base, WARM_UP_REQUESTS) / WARM_UP_REQUESTS;
+      return new Run(readyMillis, firstAdMicros, nextAdsMicros, rssMegabytes(process.pid()));
+    } finally {
+      process.destroy();
+      if (!process.waitFor(30, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    }
+  }
+
+  private static long timeAdRequests(String base, int count)
+      throws IOException, InterruptedException {
+    final long start = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      final int status = status(base + "/api/v1/ad/BOOKS");
+      if (status != 200 && status != 404) {
+        throw new IllegalStateException("Ad request failed with " + status);
+      }
+    }
+    return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+  }
+
+  private static int status(String url) throws IOException, InterruptedException {
+    try {
+      return HTTP_CLIENT
+          .send(
+              HttpRequest.newBuilder(URI.create(url)).build(),
+              HttpResponse.BodyHandlers.discarding())
+          .statusCode();
+    } catch (ConnectException e) {
+      return -1;
+    }
+  }
+
+  private static long rssMegabytes(long pid) throws IOException {
+    for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+      if (line.startsWith("VmRSS:")) {
+        return Long.parseLong(line.replaceAll("\\D", "")) / 1024;
+      }
+    }
+    return -1;
+  }
+
+  private static void runToCompletion(List<String> command)
+      throws IOException, InterruptedException {
+    final int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+    if (exitCode != 0) {
+      throw new IllegalStateException("Exited with " + exitCode + ": " + String.join(" ", command));
+    }
+  }
+
+  private static List<String> command(List<String> command, List<String> args, String... more) {
+    final List<String> result = new ArrayList<>(command);
+    result.addAll(args);
+    result.addAll(Arrays.asList(more));
+    return result;
+  }
+
+  private static long median(long[] values) {
+    Arrays.sort(values);
+    return values[values.length / 2];
+  }
+
+  private record Variant(String name, List<String> command) {}
+
+  /**
+   * @param readyMillis The time from launching the process until it reported ready.
+   * @param firstAdMicros The latency of the first ad request.
+   * @param nextAdsMicros The mean latency of the following ad requests.
+   * @param rssMegabytes The resident set size after serving them.
+   */
+  private record Run(long readyMillis, long firstAdMicros, long nextAdsMicros, long rssMegabytes) {}
+}
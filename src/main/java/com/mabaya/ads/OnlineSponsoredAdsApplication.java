@@ -1,11 +1,23 @@
 package com.mabaya.ads;
 
+import com.mabaya.ads.utils.DataSeedCommand;
+import com.mabaya.ads.utils.SchemaMigrationCommand;
+import java.util.Arrays;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// The R2DBC connection pool is owned by ReactiveCampaignRepository, so that the JPA transaction
+// manager stays the only transaction manager
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class OnlineSponsoredAdsApplication {
   public static void main(String[] args) {
+    if (args.length > 0 && DataSeedCommand.NAME.equals(args[0])) {
+      System.exit(DataSeedCommand.run(Arrays.copyOfRange(args, 1, args.length)));
+    }
+    if (args.length > 0 && SchemaMigrationCommand.NAME.equals(args[0])) {
+      System.exit(SchemaMigrationCommand.run(Arrays.copyOfRange(args, 1, args.length)));
+    }
     SpringApplication.run(OnlineSponsoredAdsApplication.class, args);
   }
 }
@@ -0,0 +1,45 @@
+package com.mabaya.ads.configuration;
+
+import com.mabaya.ads.datasource.ConcurrencyLimitingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class that puts a {@link ConcurrencyLimitingDataSource} in front of the data source
+ * of the application, enabled by {@code ads.datasource.limiter.enabled}, which defaults to whether
+ * requests are handled on virtual threads. With replicas configured, see {@link
+ * ReplicaRoutingConfiguration}, the permits are shared by the primary and the replicas.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Configuration
+@ConditionalOnProperty(name = "ads.datasource.limiter.enabled", havingValue = "true")
+public class ConcurrencyLimiterConfiguration {
+
+  private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+  // Static, so that post-processing the data source does not instantiate this configuration early
+  @Bean
+  public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(
+      ObjectProvider<MeterRegistry> meterRegistry,
+      @Value("${ads.datasource.limiter.permits:10}") int permits,
+      @Value("${ads.datasource.limiter.max-wait:2s}") Duration maxWait) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource dataSource) {
+          return new ConcurrencyLimitingDataSource(
+              dataSource, permits, maxWait, meterRegistry.getObject());
+        }
+        return bean;
+      }
+    };
+  }
+}
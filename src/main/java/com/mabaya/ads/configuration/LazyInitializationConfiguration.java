@@ -0,0 +1,37 @@
+package com.mabaya.ads.configuration;
+
+import com.mabaya.ads.controller.AdController;
+import com.mabaya.ads.controller.GlobalExceptionHandler;
+import com.mabaya.ads.controller.ReactiveAdController;
+import com.mabaya.ads.datasource.ReplicaLagMonitor;
+import com.mabaya.ads.service.index.CampaignActivationScheduler;
+import com.mabaya.ads.service.index.CampaignChangeFeed;
+import com.mabaya.ads.utils.VirtualThreadPinningMonitor;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for lazy initialization, enabled by {@code spring.main.lazy-initialization},
+ * e.g. in the fast-start profile. Beans are then created when first used, except those serving ads,
+ * which the first ad requests would otherwise wait for, and those working on their own, e.g. on a
+ * schedule, which nothing else would create.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Configuration
+public class LazyInitializationConfiguration {
+
+  // Static, so that it is available when bean definitions are post-processed
+  @Bean
+  public static LazyInitializationExcludeFilter eagerlyInitializedBeans() {
+    return LazyInitializationExcludeFilter.forBeanTypes(
+        AdController.class,
+        ReactiveAdController.class,
+        GlobalExceptionHandler.class,
+        CampaignActivationScheduler.class,
+        CampaignChangeFeed.class,
+        ReplicaLagMonitor.class,
+        VirtualThreadPinningMonitor.class);
+  }
+}
@@ -1,6 +1,7 @@
 package com.mabaya.ads.configuration;
 
 import com.mabaya.ads.controller.V1RestController;
+import com.mabaya.ads.controller.V2RestController;
 import com.mabaya.ads.model.Category;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -14,7 +15,8 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * Category}.
  *
  * <p>It ensures that all controllers annotated with {@link V1RestController} are prefixed with
- * 'api/v1', effectively namespacing the API version.
+ * 'api/v1', and those annotated with {@link V2RestController} with 'api/v2', effectively
+ * namespacing the API version.
  *
  * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
  */
@@ -23,6 +25,7 @@ public class MabayaWebMvcConfigurer implements WebMvcConfigurer {
   @Override
   public void configurePathMatch(PathMatchConfigurer configurer) {
     configurer.addPathPrefix("api/v1", HandlerTypePredicate.forAnnotation(V1RestController.class));
+    configurer.addPathPrefix("api/v2", HandlerTypePredicate.forAnnotation(V2RestController.class));
   }
 
   @Override
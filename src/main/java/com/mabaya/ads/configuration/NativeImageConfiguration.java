@@ -0,0 +1,57 @@
+package com.mabaya.ads.configuration;
+
+import com.mabaya.ads.dto.CampaignDTO;
+import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.CampaignChange;
+import com.mabaya.ads.model.Product;
+import com.mabaya.ads.utils.SnakeCaseNamingStrategy;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Configuration class registering what the native image reaches reflectively or as resources, see
+ * {@code ./gradlew nativeCompile}, beyond what Spring AOT infers from the beans, controllers and
+ * persistence unit.
+ *
+ * <p>{@link CampaignDTO} and {@link ProductDTO} are bound for Jackson, including the {@code
+ * Optional} ID, since they are also (de)serialized outside of controller signatures: ads are served
+ * pre-serialized, see {@link com.mabaya.ads.service.index.ServedAd}, and campaigns are streamed.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Configuration
+@ImportRuntimeHints(NativeImageConfiguration.ApplicationRuntimeHints.class)
+@RegisterReflectionForBinding({CampaignDTO.class, ProductDTO.class})
+public class NativeImageConfiguration {
+
+  static class ApplicationRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+      // Instantiated by Hibernate from spring.jpa.hibernate.naming.physical-strategy
+      hints
+          .reflection()
+          .registerType(SnakeCaseNamingStrategy.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+      // Instantiated and accessed through their fields by Hibernate
+      for (Class<?> entity : new Class<?>[] {Campaign.class, Product.class, CampaignChange.class}) {
+        hints
+            .reflection()
+            .registerType(
+                entity,
+                MemberCategory.DECLARED_FIELDS,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_DECLARED_METHODS);
+      }
+      // Swagger UI of springdoc, served from its webjar, whose version is read from its pom
+      hints
+          .resources()
+          .registerPattern("META-INF/resources/webjars/swagger-ui/*")
+          .registerPattern("META-INF/maven/org.webjars/swagger-ui/pom.properties");
+    }
+  }
+}
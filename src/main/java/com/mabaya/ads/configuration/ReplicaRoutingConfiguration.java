@@ -0,0 +1,103 @@
+package com.mabaya.ads.configuration;
+
+import com.mabaya.ads.datasource.ReadYourWritesFilter;
+import com.mabaya.ads.datasource.ReadYourWritesInterceptor;
+import com.mabaya.ads.datasource.ReplicaLagMonitor;
+import com.mabaya.ads.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration class that serves read-only transactions from replicas, enabled by listing their
+ * JDBC URLs in {@code ads.datasource.replicas.urls}. Replaces the auto-configured data source with
+ * a {@link ReplicaRoutingDataSource} over the primary, configured by the {@code spring.datasource}
+ * properties, and a pool per replica, configured like the primary.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Configuration
+@ConditionalOnProperty("ads.datasource.replicas.urls")
+public class ReplicaRoutingConfiguration {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  public ReplicaLagMonitor replicaLagMonitor(
+      HikariDataSource primaryDataSource,
+      MeterRegistry meterRegistry,
+      @Value("${ads.datasource.replicas.urls}") List<String> urls,
+      @Value("${ads.datasource.replicas.username:}") String username,
+      @Value("${ads.datasource.replicas.password:}") String password,
+      @Value("${ads.datasource.replicas.max-lag:5s}") Duration maxLag) {
+    final Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+    for (int i = 0; i < urls.size(); i++) {
+      final String name = "replica-" + (i + 1);
+      final HikariConfig config = new HikariConfig();
+      primaryDataSource.copyStateTo(config);
+      config.setPoolName(name);
+      config.setJdbcUrl(urls.get(i));
+      config.setReadOnly(true);
+      // An unreachable replica must not fail the startup, it is not selected until it is reachable
+      config.setInitializationFailTimeout(-1);
+      if (StringUtils.hasText(username)) {
+        config.setUsername(username);
+        config.setPassword(password);
+      }
+      config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+      replicas.put(name, new HikariDataSource(config));
+    }
+    return new ReplicaLagMonitor(primaryDataSource, replicas, maxLag, meterRegistry);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      HikariDataSource primaryDataSource,
+      ReplicaLagMonitor replicaLagMonitor,
+      MeterRegistry meterRegistry) {
+    return new LazyConnectionDataSourceProxy(
+        new ReplicaRoutingDataSource(primaryDataSource, replicaLagMonitor, meterRegistry));
+  }
+
+  @Bean
+  public ReadYourWritesFilter readYourWritesFilter() {
+    return new ReadYourWritesFilter();
+  }
+
+  @Bean
+  public WebMvcConfigurer readYourWritesConfigurer(
+      @Value("${ads.datasource.replicas.max-lag:5s}") Duration maxLag,
+      @Value("${ads.datasource.replicas.lag-check-interval:1000}") long lagCheckInterval) {
+    final ReadYourWritesInterceptor interceptor =
+        new ReadYourWritesInterceptor(maxLag.plusMillis(lagCheckInterval));
+    return new WebMvcConfigurer() {
+
+      @Override
+      public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor);
+      }
+    };
+  }
+}
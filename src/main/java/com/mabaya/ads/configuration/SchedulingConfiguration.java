@@ -0,0 +1,14 @@
+package com.mabaya.ads.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class that enables scheduled tasks, e.g. polling the campaign outbox, see {@link
+ * com.mabaya.ads.service.index.CampaignChangeFeed}.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {}
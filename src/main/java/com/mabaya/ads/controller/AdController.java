@@ -1,16 +1,26 @@
 package com.mabaya.ads.controller;
 
+import com.mabaya.ads.dto.AdBatchRequest;
+import com.mabaya.ads.dto.AdBatchResponse;
 import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.dto.RankedAdDTO;
 import com.mabaya.ads.model.Category;
 import com.mabaya.ads.service.AdService;
+import com.mabaya.ads.service.index.ServedAd;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.util.List;
 import java.util.NoSuchElementException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -44,20 +54,32 @@ public class AdController {
    * Serves an ad based on the specified product category. Retrieves the promoted product with the
    * highest bid within the active campaigns for the given category.
    *
+   * <p>The response body is the promoted {@link ProductDTO}, written from its pre-serialized JSON
+   * together with an ETag, so conditional requests are answered with 304 Not Modified.
+   *
    * @param category The category of products for which to serve an ad.
    * @return ResponseEntity containing the promoted ProductDTO or an appropriate error response.
    */
   @Operation(
       summary = "Serve an ad",
       description = "Serve a promoted product ad based on the specified category")
-  @ApiResponse(responseCode = "200", description = "Successfully served an ad")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Successfully served an ad",
+      content =
+          @Content(
+              mediaType = MediaType.APPLICATION_JSON_VALUE,
+              schema = @Schema(implementation = ProductDTO.class)))
   @GetMapping("/{category}")
-  public ResponseEntity<ProductDTO> serveAd(
+  public ResponseEntity<byte[]> serveAd(
       @Parameter(description = "Category of the product") @PathVariable Category category) {
     try {
-      final ProductDTO promotedProduct = adService.getPromotedProductWithHighestBid(category);
+      final ServedAd promotedAd = adService.getPromotedAd(category);
       LOGGER.debug("Serving ad for category: {}", category);
-      return ResponseEntity.ok(promotedProduct);
+      return ResponseEntity.ok()
+          .contentType(MediaType.APPLICATION_JSON)
+          .eTag(promotedAd.etag())
+          .body(promotedAd.body());
     } catch (NoSuchElementException e) {
       LOGGER.error("Error serving ad for category {}: {}", category, e.getMessage(), e);
       throw e; // Handled by GlobalExceptionHandler
@@ -66,4 +88,66 @@ public class AdController {
       throw e; // Handled by GlobalExceptionHandler
     }
   }
+
+  /**
+   * Serves the top ranked ads for the specified product category: the products of the active
+   * campaigns for the given category, ranked by the bid of their campaign, then by their price.
+   *
+   * @param category The category of products for which to serve ads.
+   * @param limit The maximum number of ads to serve.
+   * @return ResponseEntity containing the ranked ads or an appropriate error response.
+   */
+  @Operation(
+      summary = "Serve the top ads",
+      description =
+          "Serve up to the given number of promoted product ads for the specified category, ranked by bid, then by price")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Successfully served the ads",
+      content =
+          @Content(
+              mediaType = MediaType.APPLICATION_JSON_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = RankedAdDTO.class))))
+  @ApiResponse(responseCode = "503", description = "The ad index is still loading")
+  @GetMapping(path = "/{category}", params = "limit")
+  public ResponseEntity<List<RankedAdDTO>> serveTopAds(
+      @Parameter(description = "Category of the product") @PathVariable Category category,
+      @Parameter(description = "Maximum number of ads, at most 100") @RequestParam int limit) {
+    try {
+      final List<RankedAdDTO> rankedAds = adService.getTopPromotedAds(category, limit);
+      LOGGER.debug("Serving {} ads for category: {}", rankedAds.size(), category);
+      return ResponseEntity.ok(rankedAds);
+    } catch (NoSuchElementException e) {
+      LOGGER.error("Error serving ads for category {}: {}", category, e.getMessage(), e);
+      throw e; // Handled by GlobalExceptionHandler
+    } catch (Exception e) {
+      LOGGER.error("Unexpected error while serving ads: {}", e.getMessage(), e);
+      throw e; // Handled by GlobalExceptionHandler
+    }
+  }
+
+  /**
+   * Serves the ads of several ad slots at once, e.g. of all the slots of a page, from a single
+   * snapshot of the active campaigns. A product is served in at most one slot.
+   *
+   * @param request The slots to fill, with the category and number of products of each.
+   * @return ResponseEntity containing the products of every slot, in the order requested.
+   */
+  @Operation(
+      summary = "Serve the ads of several slots",
+      description =
+          "Serve up to the requested number of distinct promoted products for every slot, from a single snapshot of the active campaigns")
+  @ApiResponse(responseCode = "200", description = "Successfully served the ads of the slots")
+  @ApiResponse(responseCode = "503", description = "The ad index is still loading")
+  @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<AdBatchResponse> serveAds(@Valid @RequestBody AdBatchRequest request) {
+    try {
+      final AdBatchResponse response = adService.getPromotedAds(request);
+      LOGGER.debug("Serving ads for {} slots", request.slots().size());
+      return ResponseEntity.ok(response);
+    } catch (Exception e) {
+      LOGGER.error("Unexpected error while serving ads: {}", e.getMessage(), e);
+      throw e; // Handled by GlobalExceptionHandler
+    }
+  }
 }
@@ -1,28 +1,51 @@
 package com.mabaya.ads.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mabaya.ads.datasource.ReadYourWrites;
+import com.mabaya.ads.dto.CampaignBatchResponse;
 import com.mabaya.ads.dto.CampaignDTO;
+import com.mabaya.ads.dto.CampaignPage;
+import com.mabaya.ads.service.CampaignBatchService;
 import com.mabaya.ads.service.CampaignService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 /**
  * REST controller for campaign-related operations. This controller handles HTTP requests for
  * managing campaigns, utilizing {@link CampaignService} for business logic.
  *
- * <p>It offers endpoints for retrieving all campaigns and creating new campaigns, ensuring proper
- * handling of HTTP requests and responses.
+ * <p>It offers endpoints for retrieving campaigns, page by page or as a stream, and creating new
+ * campaigns, one at a time or in bulk using {@link CampaignBatchService}, ensuring proper handling
+ * of HTTP requests and responses.
  *
  * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
  * @see CampaignService
+ * @see CampaignBatchService
  * @see CampaignDTO
  */
 @Tag(
@@ -35,33 +58,98 @@ public class CampaignController {
   private static final Logger LOGGER = LoggerFactory.getLogger(CampaignController.class);
 
   private final CampaignService campaignService;
+  private final CampaignBatchService campaignBatchService;
+  private final ObjectReader campaignReader;
+  private final ObjectWriter campaignWriter;
+  private final Duration streamTimeout;
 
   @Autowired
-  public CampaignController(CampaignService campaignService) {
+  public CampaignController(
+      CampaignService campaignService,
+      CampaignBatchService campaignBatchService,
+      ObjectMapper objectMapper,
+      @Value("${ads.campaigns.stream-timeout:30m}") Duration streamTimeout) {
     this.campaignService = campaignService;
+    this.campaignBatchService = campaignBatchService;
+    this.campaignReader = objectMapper.readerFor(CampaignDTO.class);
+    this.campaignWriter = objectMapper.writerFor(CampaignDTO.class);
+    this.streamTimeout = streamTimeout;
   }
 
   /**
-   * Retrieves all existing campaigns and returns them as a list of {@link CampaignDTO}.
+   * Retrieves a page of existing campaigns in ID order.
    *
-   * @return ResponseEntity containing a list of CampaignDTOs.
+   * @param cursor The cursor of the page, as returned with the previous page, or null for the first
+   *     page.
+   * @param limit The maximum number of campaigns in the page.
+   * @return ResponseEntity containing the page of CampaignDTOs.
    */
   @Operation(
-      summary = "Get all campaigns",
-      description = "Retrieve a list of all existing campaigns")
-  @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of campaigns")
+      summary = "Get campaigns",
+      description =
+          "Retrieve a page of existing campaigns in ID order. Follow the next cursor to retrieve the following pages.")
+  @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of campaigns")
   @GetMapping
-  public ResponseEntity<List<CampaignDTO>> getCampaigns() {
-    LOGGER.info("Request received to fetch all campaigns");
+  public ResponseEntity<CampaignPage> getCampaigns(
+      @Parameter(description = "Cursor of the page, as returned with the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(description = "Maximum number of campaigns in the page, at most 1000")
+          @RequestParam(defaultValue = "100")
+          int limit) {
+    LOGGER.info("Request received to fetch {} campaigns after cursor {}", limit, cursor);
     try {
-      final List<CampaignDTO> allExistingCampaigns = campaignService.getAllCampaigns();
-      return ResponseEntity.ok(allExistingCampaigns);
+      return ResponseEntity.ok(campaignService.getCampaigns(cursor, limit));
     } catch (Exception e) {
       LOGGER.error("Unexpected error while fetching campaigns: {}", e.getMessage(), e);
       throw e; // Handled by GlobalExceptionHandler
     }
   }
 
+  /**
+   * Streams all existing campaigns in ID order as newline delimited {@link CampaignDTO}. The
+   * campaigns are written as they are read from the database rather than collected first.
+   *
+   * <p>The stream outlives the default async request timeout, so it has its own, {@code
+   * ads.campaigns.stream-timeout}, which applies to this endpoint only.
+   *
+   * @param response The response the campaigns are written to.
+   * @return WebAsyncTask streaming all CampaignDTOs within the stream timeout.
+   */
+  @Operation(
+      summary = "Stream all campaigns",
+      description = "Stream all existing campaigns in ID order as newline delimited JSON")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Successfully streamed the campaigns",
+      content =
+          @Content(
+              mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+              schema = @Schema(implementation = CampaignDTO.class)))
+  @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public WebAsyncTask<Void> streamCampaigns(HttpServletResponse response) {
+    LOGGER.info("Request received to stream all campaigns");
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    return new WebAsyncTask<>(
+        streamTimeout.toMillis(),
+        () -> {
+          final OutputStream outputStream = response.getOutputStream();
+          campaignService.streamAllCampaigns(
+              page -> {
+                try {
+                  for (CampaignDTO campaignDTO : page) {
+                    outputStream.write(campaignWriter.writeValueAsBytes(campaignDTO));
+                    outputStream.write('\n');
+                  }
+                  outputStream.flush();
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+          return null;
+        });
+  }
+
   /**
    * Creates a new campaign based on the provided {@link CampaignDTO} and returns the created
    * campaign.
@@ -74,6 +162,7 @@ public class CampaignController {
       description = "Create a new campaign with provided details")
   @ApiResponse(responseCode = "201", description = "Successfully created the campaign")
   @PostMapping
+  @ReadYourWrites
   public ResponseEntity<CampaignDTO> createCampaign(@Valid @RequestBody CampaignDTO campaignDTO) {
     LOGGER.info("Request received to create a new campaign: {}", campaignDTO);
     try {
@@ -84,4 +173,48 @@ public class CampaignController {
       throw e; // Handled by GlobalExceptionHandler
     }
   }
+
+  /**
+   * Creates the campaigns of the request body in bulk and returns the outcome of each. The body is
+   * either a JSON array of {@link CampaignDTO} or a stream of newline delimited {@link
+   * CampaignDTO}, and is read while the campaigns are created rather than as a whole.
+   *
+   * @param body The request body.
+   * @return ResponseEntity containing the outcome of every received campaign.
+   * @throws IOException If the request body can't be read.
+   */
+  @Operation(
+      summary = "Create campaigns in bulk",
+      description =
+          "Create many campaigns at once from a JSON array or a newline delimited JSON stream. Invalid campaigns are reported per item without aborting the batch.")
+  @io.swagger.v3.oas.annotations.parameters.RequestBody(
+      content = {
+        @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = CampaignDTO.class))),
+        @Content(
+            mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+            schema = @Schema(implementation = CampaignDTO.class))
+      })
+  @ApiResponse(
+      responseCode = "200",
+      description = "Processed the batch, see the outcome of every campaign")
+  @PostMapping(
+      path = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  @ReadYourWrites
+  public ResponseEntity<CampaignBatchResponse> createCampaigns(InputStream body)
+      throws IOException {
+    LOGGER.info("Request received to create campaigns in bulk");
+    try (MappingIterator<CampaignDTO> campaignDTOs = campaignReader.readValues(body)) {
+      return ResponseEntity.ok(campaignBatchService.createCampaigns(campaignDTOs));
+    } catch (JsonProcessingException e) {
+      LOGGER.error("Malformed campaigns: {}", e.getOriginalMessage());
+      throw new IllegalArgumentException(
+          "Malformed campaigns: " + e.getOriginalMessage()); // Handled by GlobalExceptionHandler
+    } catch (Exception e) {
+      LOGGER.error("Error while creating campaigns in bulk: {}", e.getMessage(), e);
+      throw e; // Handled by GlobalExceptionHandler
+    }
+  }
 }
@@ -1,20 +1,28 @@
 package com.mabaya.ads.controller;
 
 import com.mabaya.ads.dto.ExceptionResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Instant;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedRuntimeException;
 import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Global exception handler for the application. This class uses {@link ControllerAdvice} to handle
@@ -22,7 +30,10 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
  *
  * <p>It offers handling for common exceptions such as {@link MethodArgumentTypeMismatchException},
  * {@link ConversionFailedException}, {@link IllegalArgumentException}, and {@link
- * NoSuchElementException}, ensuring a consistent response format for various error scenarios.
+ * NoSuchElementException}, as well as failures to obtain a database connection and {@link
+ * ResponseStatusException} raised with an explicit status, ensuring a consistent response format
+ * for various error scenarios. Handled exceptions are counted by type and status as {@code
+ * ads.errors}, so e.g. the rate of requests without an ad to serve is visible.
  *
  * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
  * @see ResponseEntity
@@ -31,6 +42,13 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 public class GlobalExceptionHandler {
   private static final Logger LOGGER = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+  private final MeterRegistry meterRegistry;
+
+  @Autowired
+  public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
   /**
    * Handles validation failures for request payload.
    *
@@ -49,7 +67,7 @@ public class GlobalExceptionHandler {
             .collect(Collectors.joining(", "));
 
     LOGGER.error("Caught a {}: {}", ex.getClass().getSimpleName(), errorMessage);
-    return getExceptionResponseResponseEntity(HttpStatus.BAD_REQUEST, errorMessage);
+    return getExceptionResponseResponseEntity(HttpStatus.BAD_REQUEST, ex, errorMessage);
   }
 
   /**
@@ -69,7 +87,7 @@ public class GlobalExceptionHandler {
       IllegalArgumentException ex) {
     final String errorMessage = ex.getMessage();
     LOGGER.error("Caught a {}: {}", ex.getClass().getSimpleName(), errorMessage);
-    return getExceptionResponseResponseEntity(HttpStatus.BAD_REQUEST, errorMessage);
+    return getExceptionResponseResponseEntity(HttpStatus.BAD_REQUEST, ex, errorMessage);
   }
 
   /**
@@ -84,11 +102,54 @@ public class GlobalExceptionHandler {
   public ResponseEntity<ExceptionResponse> handleNoSuchElementException(NoSuchElementException ex) {
     final String errorMessage = ex.getMessage();
     LOGGER.error("No such element: {}", errorMessage);
-    return getExceptionResponseResponseEntity(HttpStatus.NOT_FOUND, errorMessage);
+    return getExceptionResponseResponseEntity(HttpStatus.NOT_FOUND, ex, errorMessage);
+  }
+
+  /**
+   * Handles failures to obtain a database connection, e.g. when no connection permit is available
+   * within its max wait or no R2DBC connection within its max acquire time, providing a
+   * SERVICE_UNAVAILABLE response so clients back off and retry.
+   *
+   * @param ex The exception encountered.
+   * @return A {@link ResponseEntity} with the exception's message and a SERVICE_UNAVAILABLE status.
+   */
+  @ExceptionHandler({
+    CannotCreateTransactionException.class,
+    TransientDataAccessResourceException.class,
+    DataAccessResourceFailureException.class
+  })
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public ResponseEntity<ExceptionResponse> handleDatabaseUnavailableException(
+      NestedRuntimeException ex) {
+    final String errorMessage = ex.getMostSpecificCause().getMessage();
+    LOGGER.error("Database unavailable: {}", errorMessage);
+    return getExceptionResponseResponseEntity(HttpStatus.SERVICE_UNAVAILABLE, ex, errorMessage);
+  }
+
+  /**
+   * Handles {@link ResponseStatusException}, responding with the status and reason it was raised
+   * with.
+   *
+   * @param ex The ResponseStatusException encountered.
+   * @return A {@link ResponseEntity} with the exception's reason and status.
+   */
+  @ExceptionHandler(ResponseStatusException.class)
+  public ResponseEntity<ExceptionResponse> handleResponseStatusException(
+      ResponseStatusException ex) {
+    final String errorMessage = ex.getReason();
+    LOGGER.error("Caught a {}: {}", ex.getClass().getSimpleName(), errorMessage);
+    return getExceptionResponseResponseEntity(
+        HttpStatus.valueOf(ex.getStatusCode().value()), ex, errorMessage);
   }
 
   private ResponseEntity<ExceptionResponse> getExceptionResponseResponseEntity(
-      HttpStatus httpStatus, String errorMessage) {
+      HttpStatus httpStatus, Exception ex, String errorMessage) {
+    Counter.builder("ads.errors")
+        .description("Exceptions handled by the global exception handler")
+        .tag("exception", ex.getClass().getSimpleName())
+        .tag("status", String.valueOf(httpStatus.value()))
+        .register(meterRegistry)
+        .increment();
     return new ResponseEntity<>(
         new ExceptionResponse(httpStatus.getReasonPhrase(), errorMessage, Instant.now()),
         httpStatus);
@@ -0,0 +1,86 @@
+package com.mabaya.ads.controller;
+
+import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.service.ReactiveAdService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking REST controller for serving ads, querying the database over R2DBC through {@link
+ * ReactiveAdService}. The returned {@link Mono} is handled as an asynchronous request, so no
+ * request thread is held while the query runs, and the number of concurrent requests is bounded by
+ * the connections of the server rather than by its threads.
+ *
+ * <p>Every request is bounded by its own {@code ads.r2dbc.request-timeout}, after which the query
+ * is cancelled and 503 is returned, rather than by the async request timeout of the server, which
+ * streaming endpoints need to be long.
+ *
+ * <p>Categories are converted and errors are mapped like for the version 1 endpoints, see {@link
+ * com.mabaya.ads.configuration.MabayaWebMvcConfigurer} and {@link GlobalExceptionHandler}.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdController
+ */
+@Tag(name = "Ad Controller", description = "The Ad API provides operations to serve ads.")
+@V2RestController
+@RequestMapping(path = "/ad")
+public class ReactiveAdController {
+
+  private final ReactiveAdService reactiveAdService;
+  private final Duration requestTimeout;
+
+  @Autowired
+  public ReactiveAdController(
+      ReactiveAdService reactiveAdService,
+      @Value("${ads.r2dbc.request-timeout:2s}") Duration requestTimeout) {
+    this.reactiveAdService = reactiveAdService;
+    this.requestTimeout = requestTimeout;
+  }
+
+  /**
+   * Serves an ad based on the specified product category, like {@link AdController#serveAd}, with a
+   * non-blocking database query.
+   *
+   * @param category The category of products for which to serve an ad.
+   * @return A Mono of the promoted ProductDTO, failing with SERVICE_UNAVAILABLE if the query takes
+   *     longer than the request timeout.
+   */
+  @Operation(
+      summary = "Serve an ad without blocking",
+      description =
+          "Serve a promoted product ad based on the specified category, querying the database without blocking")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Successfully served an ad",
+      content =
+          @Content(
+              mediaType = MediaType.APPLICATION_JSON_VALUE,
+              schema = @Schema(implementation = ProductDTO.class)))
+  @GetMapping(path = "/{category}", produces = MediaType.APPLICATION_JSON_VALUE)
+  public Mono<ProductDTO> serveAd(
+      @Parameter(description = "Category of the product") @PathVariable Category category) {
+    return reactiveAdService
+        .getPromotedProduct(category)
+        .timeout(
+            requestTimeout,
+            Mono.error(
+                () ->
+                    new ResponseStatusException(
+                        HttpStatus.SERVICE_UNAVAILABLE, "Ad query timed out, retry later")));
+  }
+}
@@ -0,0 +1,18 @@
+package com.mabaya.ads.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Custom annotation for marking REST controllers as version 2, like {@link V1RestController} does
+ * for version 1. Controllers annotated with it are prefixed with 'api/v2'.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@RestController
+public @interface V2RestController {}
@@ -0,0 +1,136 @@
+package com.mabaya.ads.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Bounds the number of connections in use at once by a fair {@link Semaphore} in front of the
+ * connection pool. A permit is acquired when a connection is obtained and released when it is
+ * closed. Callers that don't get a permit within the max wait fail fast with a {@link
+ * SQLTransientConnectionException}, instead of queueing for the pool until its connection timeout.
+ *
+ * <p>With virtual threads, a burst of requests is not bounded by the size of a thread pool anymore,
+ * so this limiter is where the burst queues. Waiting for a permit parks a virtual thread without
+ * pinning its carrier.
+ *
+ * <p>Publishes the time spent waiting for a permit ({@code ads.datasource.limiter.wait}), the
+ * number of rejected callers ({@code ads.datasource.limiter.rejections}) and the number of
+ * available permits and queued callers ({@code ads.datasource.limiter.available}, {@code
+ * ads.datasource.limiter.queued}).
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public class ConcurrencyLimitingDataSource extends DelegatingDataSource {
+
+  private final Semaphore permits;
+  private final long maxWaitNanos;
+  private final Timer waitTimer;
+  private final Counter rejections;
+
+  public ConcurrencyLimitingDataSource(
+      DataSource targetDataSource, int permits, Duration maxWait, MeterRegistry meterRegistry) {
+    super(targetDataSource);
+    this.permits = new Semaphore(permits, true);
+    this.maxWaitNanos = maxWait.toNanos();
+    this.waitTimer =
+        Timer.builder("ads.datasource.limiter.wait")
+            .description("Time spent waiting for a database connection permit")
+            .register(meterRegistry);
+    this.rejections =
+        Counter.builder("ads.datasource.limiter.rejections")
+            .description("Number of callers that got no database connection permit in time")
+            .register(meterRegistry);
+    Gauge.builder("ads.datasource.limiter.available", this.permits, Semaphore::availablePermits)
+        .description("Number of available database connection permits")
+        .register(meterRegistry);
+    Gauge.builder("ads.datasource.limiter.queued", this.permits, Semaphore::getQueueLength)
+        .description("Estimated number of callers waiting for a database connection permit")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquirePermit();
+    try {
+      return releasingPermitOnClose(super.getConnection());
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquirePermit();
+    try {
+      return releasingPermitOnClose(super.getConnection(username, password));
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  private void acquirePermit() throws SQLException {
+    final long start = System.nanoTime();
+    final boolean acquired;
+    try {
+      acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException(
+          "Interrupted while waiting for a database connection permit", e);
+    } finally {
+      waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    if (!acquired) {
+      rejections.increment();
+      throw new SQLTransientConnectionException(
+          "No database connection permit available within "
+              + Duration.ofNanos(maxWaitNanos).toMillis()
+              + "ms");
+    }
+  }
+
+  private Connection releasingPermitOnClose(Connection connection) {
+    final AtomicBoolean released = new AtomicBoolean();
+    return (Connection)
+        Proxy.newProxyInstance(
+            ConcurrencyLimitingDataSource.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "equals" -> proxy == args[0];
+                  case "hashCode" -> System.identityHashCode(proxy);
+                  case "close" -> {
+                    try {
+                      connection.close();
+                    } finally {
+                      if (released.compareAndSet(false, true)) {
+                        permits.release();
+                      }
+                    }
+                    yield null;
+                  }
+                  default -> {
+                    try {
+                      yield method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                      throw e.getTargetException();
+                    }
+                  }
+                });
+  }
+}
@@ -0,0 +1,56 @@
+package com.mabaya.ads.datasource;
+
+/**
+ * Per-thread override of the routing of read-only transactions to replicas, see {@link
+ * ReplicaRoutingDataSource}. Within a {@link #usePrimary()} scope, read-only transactions read from
+ * the primary, e.g. to read what the current client just wrote, or to read what a position in the
+ * campaign outbox refers to. Without replicas configured, the scope has no effect.
+ *
+ * <pre>{@code
+ * try (DataSourceRouting.Scope ignored = DataSourceRouting.usePrimary()) {
+ *   campaignService.getCampaignsWithProducts(campaignIds);
+ * }
+ * }</pre>
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public final class DataSourceRouting {
+
+  private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+  private DataSourceRouting() {}
+
+  /**
+   * Routes the read-only transactions of the current thread to the primary until the returned scope
+   * is closed. Scopes may be nested.
+   *
+   * @return The scope, to be closed by the caller.
+   */
+  public static Scope usePrimary() {
+    final Boolean previous = PRIMARY_REQUIRED.get();
+    PRIMARY_REQUIRED.set(Boolean.TRUE);
+    return () -> {
+      if (previous == null) {
+        PRIMARY_REQUIRED.remove();
+      } else {
+        PRIMARY_REQUIRED.set(previous);
+      }
+    };
+  }
+
+  /**
+   * Checks whether the current thread is within a {@link #usePrimary()} scope.
+   *
+   * @return {@code true} if read-only transactions must read from the primary.
+   */
+  public static boolean isPrimaryRequired() {
+    return PRIMARY_REQUIRED.get() != null;
+  }
+
+  /** A scope opened by {@link #usePrimary()}. */
+  @FunctionalInterface
+  public interface Scope extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
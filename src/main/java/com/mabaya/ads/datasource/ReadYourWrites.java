@@ -0,0 +1,17 @@
+package com.mabaya.ads.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method that writes to the database, e.g. creating a campaign, so that the client
+ * reads its own writes from the primary while the replicas catch up, see {@link
+ * ReadYourWritesInterceptor}. Handlers that only read, whatever their HTTP method, are not marked.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadYourWrites {}
@@ -0,0 +1,48 @@
+package com.mabaya.ads.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Lets clients read their own writes while reads are served from replicas. Every request handled by
+ * a write endpoint, marked with {@link ReadYourWrites}, sets the {@value #COOKIE_NAME} cookie, see
+ * {@link ReadYourWritesInterceptor}, and requests carrying it read from the primary within a {@link
+ * DataSourceRouting#usePrimary()} scope.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see ReplicaRoutingDataSource
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  public static final String COOKIE_NAME = "ads-read-your-writes";
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (!hasCookie(request)) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    try (DataSourceRouting.Scope ignored = DataSourceRouting.usePrimary()) {
+      filterChain.doFilter(request, response);
+    }
+  }
+
+  private static boolean hasCookie(HttpServletRequest request) {
+    final Cookie[] cookies = request.getCookies();
+    if (cookies != null) {
+      for (Cookie cookie : cookies) {
+        if (COOKIE_NAME.equals(cookie.getName())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
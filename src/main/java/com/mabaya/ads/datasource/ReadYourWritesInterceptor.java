@@ -0,0 +1,41 @@
+package com.mabaya.ads.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Sets the {@value ReadYourWritesFilter#COOKIE_NAME} cookie on the requests handled by a method
+ * marked with {@link ReadYourWrites}, so that the following reads of the client are served from the
+ * primary by the {@link ReadYourWritesFilter}. The cookie expires once every selectable replica has
+ * replicated the write, i.e. after the max lag of the replicas plus the interval their lag is
+ * measured at.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+  private final int windowSeconds;
+
+  public ReadYourWritesInterceptor(Duration window) {
+    this.windowSeconds = (int) Math.max(1, (window.toMillis() + 999) / 1000);
+  }
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (handler instanceof HandlerMethod handlerMethod
+        && handlerMethod.hasMethodAnnotation(ReadYourWrites.class)) {
+      // Set before the response is committed
+      final Cookie cookie = new Cookie(ReadYourWritesFilter.COOKIE_NAME, "1");
+      cookie.setMaxAge(windowSeconds);
+      cookie.setPath("/");
+      cookie.setHttpOnly(true);
+      response.addCookie(cookie);
+    }
+    return true;
+  }
+}
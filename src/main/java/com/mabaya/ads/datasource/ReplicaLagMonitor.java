@@ -0,0 +1,161 @@
+package com.mabaya.ads.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Measures the replication lag of every replica and selects the replica to serve a read-only
+ * transaction from. Reads are spread round-robin over the replicas lagging at most {@code
+ * ads.datasource.replicas.max-lag} behind the primary. A replica that cannot be reached is not
+ * selected until it is measured again.
+ *
+ * <p>A replica that has replayed the current WAL position of the primary has no lag, otherwise its
+ * lag is the time since the last transaction it replayed. Comparing WAL positions first avoids
+ * reporting an idle but up-to-date replica as lagging.
+ *
+ * <p>Publishes the lag of every replica in seconds ({@code ads.datasource.replica.lag}), NaN while
+ * unknown. Owns the connection pools of the replicas and closes them when closed.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see ReplicaRoutingDataSource
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+  private static final String PRIMARY_POSITION_SQL = "SELECT CAST(pg_current_wal_lsn() AS text)";
+
+  // Servers that are not in recovery, i.e. not replicating, replay nothing and have no lag
+  private static final String REPLICA_LAG_SQL =
+      "SELECT COALESCE(pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn), TRUE),"
+          + " EXTRACT(EPOCH FROM clock_timestamp() - pg_last_xact_replay_timestamp())";
+
+  private static final int QUERY_TIMEOUT_SECONDS = 1;
+
+  private final DataSource primary;
+  private final Map<String, HikariDataSource> replicas;
+  private final double maxLagSeconds;
+  private final Map<String, Double> lagSeconds = new ConcurrentHashMap<>();
+  private final AtomicInteger next = new AtomicInteger();
+  private volatile List<String> selectable = List.of();
+
+  public ReplicaLagMonitor(
+      DataSource primary,
+      Map<String, HikariDataSource> replicas,
+      Duration maxLag,
+      MeterRegistry meterRegistry) {
+    this.primary = primary;
+    this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+    this.maxLagSeconds = maxLag.toNanos() / 1e9;
+    for (String replica : this.replicas.keySet()) {
+      lagSeconds.put(replica, Double.NaN);
+      Gauge.builder("ads.datasource.replica.lag", lagSeconds, lags -> lags.get(replica))
+          .description("Replication lag of the replica behind the primary")
+          .baseUnit("seconds")
+          .tag("replica", replica)
+          .register(meterRegistry);
+    }
+  }
+
+  /**
+   * Returns the connection pools of the replicas by name.
+   *
+   * @return The replicas.
+   */
+  public Map<String, HikariDataSource> getReplicas() {
+    return replicas;
+  }
+
+  /**
+   * Selects the replica to serve the next read-only transaction from.
+   *
+   * @return The name of the replica, or an empty {@link Optional} if no replica is within the max
+   *     lag.
+   */
+  public Optional<String> selectReplica() {
+    final List<String> candidates = selectable;
+    if (candidates.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size())));
+  }
+
+  /** Measures the lag of every replica, which updates the replicas to select from. */
+  @Scheduled(fixedDelayString = "${ads.datasource.replicas.lag-check-interval:1000}")
+  public void checkLag() {
+    final String primaryPosition;
+    try (Connection connection = primary.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+      try (ResultSet resultSet = statement.executeQuery(PRIMARY_POSITION_SQL)) {
+        resultSet.next();
+        primaryPosition = resultSet.getString(1);
+      }
+    } catch (SQLException e) {
+      // Without the position of the primary, the replicas keep their last known lag
+      LOGGER.warn("Failed to read the WAL position of the primary", e);
+      return;
+    }
+    replicas.forEach(
+        (replica, dataSource) -> record(replica, measureLag(replica, dataSource, primaryPosition)));
+  }
+
+  /**
+   * Records the lag of a replica and updates the replicas to select from.
+   *
+   * @param replica The name of the replica.
+   * @param lag The lag in seconds, or NaN if unknown.
+   */
+  void record(String replica, double lag) {
+    lagSeconds.put(replica, lag);
+    final List<String> withinMaxLag = new ArrayList<>();
+    for (String name : replicas.keySet()) {
+      // NaN never compares as within the max lag
+      if (lagSeconds.get(name) <= maxLagSeconds) {
+        withinMaxLag.add(name);
+      }
+    }
+    if (!withinMaxLag.equals(selectable)) {
+      LOGGER.info("Serving read-only transactions from replicas {}", withinMaxLag);
+      selectable = List.copyOf(withinMaxLag);
+    }
+  }
+
+  private double measureLag(String replica, DataSource dataSource, String primaryPosition) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement(REPLICA_LAG_SQL)) {
+      statement.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+      statement.setString(1, primaryPosition);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+        if (resultSet.getBoolean(1)) {
+          return 0;
+        }
+        final double lag = resultSet.getDouble(2);
+        return resultSet.wasNull() ? Double.NaN : lag;
+      }
+    } catch (SQLException e) {
+      LOGGER.warn("Failed to measure the lag of replica {}", replica, e);
+      return Double.NaN;
+    }
+  }
+
+  @Override
+  public void close() {
+    replicas.values().forEach(HikariDataSource::close);
+  }
+}
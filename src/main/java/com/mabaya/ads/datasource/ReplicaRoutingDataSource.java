@@ -0,0 +1,65 @@
+package com.mabaya.ads.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes read-only transactions, i.e. {@code @Transactional(readOnly = true)} methods that don't
+ * join a read-write transaction, to a replica selected by the {@link ReplicaLagMonitor}, and
+ * everything else to the primary. Read-only transactions read from the primary as well if no
+ * replica is within the max lag, or within a {@link DataSourceRouting#usePrimary()} scope.
+ *
+ * <p>The transaction manager obtains the connection of a transaction before marking it read-only,
+ * so this data source must be wrapped in a {@link LazyConnectionDataSourceProxy}, which defers the
+ * routing until the first statement.
+ *
+ * <p>Publishes the number of read-only transactions served by every target ({@code
+ * ads.datasource.reads}).
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  static final String PRIMARY = "primary";
+
+  private final ReplicaLagMonitor lagMonitor;
+  private final Map<String, Counter> readsByTarget = new HashMap<>();
+
+  public ReplicaRoutingDataSource(
+      DataSource primary, ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+    this.lagMonitor = lagMonitor;
+    final Map<Object, Object> targets = new HashMap<>(lagMonitor.getReplicas());
+    targets.put(PRIMARY, primary);
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+    for (Object target : targets.keySet()) {
+      readsByTarget.put(
+          (String) target,
+          Counter.builder("ads.datasource.reads")
+              .description("Number of read-only transactions served by the target")
+              .tag("target", (String) target)
+              .register(meterRegistry));
+    }
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected String determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return PRIMARY;
+    }
+    final String target =
+        DataSourceRouting.isPrimaryRequired()
+            ? PRIMARY
+            : lagMonitor.selectReplica().orElse(PRIMARY);
+    readsByTarget.get(target).increment();
+    return target;
+  }
+}
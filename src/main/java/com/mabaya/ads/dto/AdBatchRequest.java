@@ -0,0 +1,32 @@
+package com.mabaya.ads.dto;
+
+import com.mabaya.ads.model.Category;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import java.util.List;
+
+/**
+ * Request for the ads of all the ad slots of a page at once.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Schema(
+    description =
+        "Request for the ads of several ad slots at once, e.g. of all the slots of a page. Slots are filled in the order listed.",
+    requiredProperties = {"slots"})
+public record AdBatchRequest(
+    @NotEmpty @Size(max = AdBatchRequest.MAX_SLOTS) List<@Valid @NotNull Slot> slots) {
+
+  public static final int MAX_SLOTS = 50;
+  public static final int MAX_ADS_PER_SLOT = 20;
+
+  /** An ad slot, showing up to the given number of distinct products of a category. */
+  @Schema(
+      description = "An ad slot, showing up to the given number of products of a category.",
+      requiredProperties = {"category", "count"})
+  public record Slot(
+      @NotNull @Schema(example = "BOOKS") Category category,
+      @Min(1) @Max(MAX_ADS_PER_SLOT) @Schema(example = "3", minimum = "1", maximum = "20")
+          int count) {}
+}
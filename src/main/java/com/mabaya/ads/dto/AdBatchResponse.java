@@ -0,0 +1,25 @@
+package com.mabaya.ads.dto;
+
+import com.mabaya.ads.model.Category;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * The ads of every slot of an {@link AdBatchRequest}, in the order requested.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Schema(
+    description =
+        "The ads of every requested slot, in the order requested. A product is served in at most one slot.")
+public record AdBatchResponse(List<Slot> slots) {
+
+  /** The products served in a slot, highest bid first. */
+  @Schema(description = "The products served in a slot, highest bid first.")
+  public record Slot(
+      @Schema(example = "BOOKS") Category category,
+      @Schema(
+              description =
+                  "Products of the category, followed by products of other categories if the category has too few active campaigns. Empty if there are no active campaigns left.")
+          List<ProductDTO> products) {}
+}
@@ -0,0 +1,49 @@
+package com.mabaya.ads.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * Result of creating campaigns in bulk, with the outcome of every received campaign.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Schema(
+    description =
+        "Result of creating campaigns in bulk. Lists the outcome of every received campaign, in the order received.")
+public record CampaignBatchResponse(
+    @Schema(description = "Number of campaigns received.", example = "3") int received,
+    @Schema(description = "Number of campaigns created.", example = "2") int created,
+    @Schema(description = "Number of campaigns rejected.", example = "1") int failed,
+    List<Item> items) {
+
+  public static CampaignBatchResponse of(List<Item> items) {
+    final int created = (int) items.stream().filter(item -> item.id() != null).count();
+    return new CampaignBatchResponse(items.size(), created, items.size() - created, items);
+  }
+
+  /**
+   * Outcome of a single campaign of the batch, either the ID of the created campaign or the reason
+   * it was rejected.
+   */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  @Schema(description = "Outcome of a single campaign of the batch.")
+  public record Item(
+      @Schema(description = "Position of the campaign in the batch, starting at 0.", example = "0")
+          int index,
+      @Schema(description = "ID of the created campaign.", example = "216") Long id,
+      @Schema(
+              description = "Reason the campaign was rejected.",
+              example = "Campaign start date cannot be in the past")
+          String error) {
+
+    public static Item created(int index, long id) {
+      return new Item(index, id, null);
+    }
+
+    public static Item failed(int index, String error) {
+      return new Item(index, null, error);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.mabaya.ads.dto;
 
+import com.mabaya.ads.model.Micros;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
@@ -15,7 +16,7 @@ import java.util.Optional;
  */
 @Schema(
     description =
-        "Data Transfer Object representing a campaign. It includes details such as the campaign name, start date, bid amount, and associated product IDs.",
+        "Data Transfer Object representing a campaign. It includes details such as the campaign name, start date, active period, bid amount, and associated product IDs.",
     requiredProperties = {"name", "startDate", "bid", "productIds"})
 public record CampaignDTO(
     @Schema(
@@ -26,9 +27,29 @@ public record CampaignDTO(
         Optional<Long> id,
     @NotBlank @Schema(example = "Creative Campaign Name") String name,
     @NotNull @FutureOrPresent @Schema(implementation = Instant.class) Instant startDate,
-    @Positive @NotNull @Schema(example = "99.89", minimum = "0", exclusiveMinimum = true)
+    @Positive
+        @NotNull
+        @Digits(integer = Micros.DECIMAL_INTEGER_DIGITS, fraction = Micros.DECIMAL_SCALE)
+        @Schema(example = "99.89", minimum = "0", exclusiveMinimum = true)
         BigDecimal bid,
     @ArraySchema(
             schema = @Schema(type = "long", minimum = "1", example = "[1, 3142, 9847, ...]"),
             minItems = 1)
-        Collection<Long> productIds) {}
+        Collection<Long> productIds,
+    @Positive
+        @Schema(
+            description =
+                "Number of days the campaign stays active, starting at its start date. Defaults to 10.",
+            example = "10",
+            minimum = "1")
+        Integer activeDays) {
+
+  public CampaignDTO(
+      Optional<Long> id,
+      String name,
+      Instant startDate,
+      BigDecimal bid,
+      Collection<Long> productIds) {
+    this(id, name, startDate, bid, productIds, null);
+  }
+}
@@ -0,0 +1,19 @@
+package com.mabaya.ads.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * A page of {@link CampaignDTO}, in ID order, with the cursor of the next page.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Schema(
+    description =
+        "A page of campaigns in ID order. Pass the next cursor to fetch the following page, it is absent on the last page.")
+public record CampaignPage(
+    List<CampaignDTO> campaigns,
+    @Schema(
+            description = "Opaque cursor of the next page, or null if this is the last page.",
+            example = "MjE2")
+        String nextCursor) {}
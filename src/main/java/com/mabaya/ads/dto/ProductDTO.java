@@ -1,7 +1,9 @@
 package com.mabaya.ads.dto;
 
 import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Micros;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -24,6 +26,9 @@ public record ProductDTO(
             accessMode = Schema.AccessMode.READ_ONLY)
         Optional<Long> id,
     @NotBlank String title,
-    @Schema(example = "197.12") @Positive BigDecimal price,
+    @Schema(example = "197.12")
+        @Positive
+        @Digits(integer = Micros.DECIMAL_INTEGER_DIGITS, fraction = Micros.DECIMAL_SCALE)
+        BigDecimal price,
     @NotNull Category category,
     @NotBlank String serialNumber) {}
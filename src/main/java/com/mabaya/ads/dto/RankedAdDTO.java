@@ -0,0 +1,16 @@
+package com.mabaya.ads.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * A promoted product together with the campaign promoting it, as ranked for a category.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Schema(
+    description =
+        "A promoted product together with the campaign promoting it. Ads are ranked by the bid of the campaign, then by the price of the product.")
+public record RankedAdDTO(
+    @Schema(description = "ID of the campaign promoting the product.", example = "216")
+        long campaignId,
+    ProductDTO product) {}
@@ -1,10 +1,13 @@
 package com.mabaya.ads.model;
 
+import com.mabaya.ads.service.index.CampaignIndexListener;
+import com.mabaya.ads.utils.MicrosConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
 
@@ -14,21 +17,44 @@ import java.util.Collection;
  * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
  */
 @Entity
-@Table(indexes = {@Index(name = "idx_campaign_start_date", columnList = "start_date")})
+@Table(
+    indexes = {
+      @Index(name = "idx_campaign_start_date", columnList = "start_date"),
+      @Index(name = "idx_campaign_end_date", columnList = "end_date"),
+      @Index(name = "idx_campaign_bid", columnList = "bid DESC, id")
+    })
+@EntityListeners(CampaignIndexListener.class)
 public class Campaign {
+
+  /** The period of time a campaign is active for, starting at its start date, unless specified. */
+  public static final Duration DEFAULT_ACTIVE_DURATION = Duration.ofDays(10);
+
+  // Drawn in blocks, the block size of the sequence in the database wins, see R__id_blocks.sql
   @Id
   @SequenceGenerator(
       name = "campaign_sequence",
       sequenceName = "campaign_sequence",
-      allocationSize = 1)
+      allocationSize = 50)
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "campaign_sequence")
   private Long id;
 
   @NotBlank private String name;
   @NotNull private Instant startDate;
-  @Positive private BigDecimal bid;
+  // Exclusive, a campaign is active while startDate <= now < endDate
+  @NotNull private Instant endDate;
+
+  // In micros, see Micros
+  @Positive
+  @Convert(converter = MicrosConverter.class)
+  private long bid;
 
   @ManyToMany(fetch = FetchType.LAZY)
+  @JoinTable(
+      name = "campaign_products",
+      indexes = {
+        @Index(name = "idx_campaign_products_campaign_id", columnList = "campaign_id"),
+        @Index(name = "idx_campaign_products_products_id", columnList = "products_id")
+      })
   private Collection<Product> products;
 
   public Campaign() {}
@@ -36,23 +62,47 @@ public class Campaign {
   public Campaign(String name, Instant startDate, BigDecimal bid, Collection<Product> products) {
     this.name = name;
     this.startDate = startDate;
-    this.bid = bid;
+    this.endDate = defaultEndDate(startDate);
+    this.bid = Micros.fromDecimal(bid);
     this.products = products;
   }
 
   public Campaign(
       Long id, String name, Instant startDate, BigDecimal bid, Collection<Product> products) {
+    this(id, name, startDate, defaultEndDate(startDate), bid, products);
+  }
+
+  public Campaign(
+      Long id,
+      String name,
+      Instant startDate,
+      Instant endDate,
+      BigDecimal bid,
+      Collection<Product> products) {
     this.id = id;
     this.name = name;
     this.startDate = startDate;
-    this.bid = bid;
+    this.endDate = endDate;
+    this.bid = Micros.fromDecimal(bid);
     this.products = products;
   }
 
   public Campaign(String name, Instant startDate, BigDecimal bid) {
     this.name = name;
     this.startDate = startDate;
-    this.bid = bid;
+    this.endDate = defaultEndDate(startDate);
+    this.bid = Micros.fromDecimal(bid);
+  }
+
+  private static Instant defaultEndDate(Instant startDate) {
+    return startDate == null ? null : startDate.plus(DEFAULT_ACTIVE_DURATION);
+  }
+
+  @PrePersist
+  void applyDefaultEndDate() {
+    if (endDate == null) {
+      endDate = defaultEndDate(startDate);
+    }
   }
 
   public Long getId() {
@@ -79,12 +129,24 @@ public class Campaign {
     this.startDate = startDate;
   }
 
+  public Instant getEndDate() {
+    return endDate;
+  }
+
+  public void setEndDate(Instant endDate) {
+    this.endDate = endDate;
+  }
+
   public BigDecimal getBid() {
-    return bid;
+    return Micros.toDecimal(bid);
   }
 
   public void setBid(BigDecimal bid) {
-    this.bid = bid;
+    this.bid = Micros.fromDecimal(bid);
+  }
+
+  public long getBidMicros() {
+    return bid;
   }
 
   public Collection<Product> getProducts() {
@@ -0,0 +1,55 @@
+package com.mabaya.ads.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
+
+/**
+ * An entry of the campaign outbox: records that a campaign was created, updated or removed, in the
+ * same transaction as the change itself. Entries are consumed by every instance to keep its
+ * in-memory view of the campaigns coherent, see {@link
+ * com.mabaya.ads.service.index.CampaignChangeFeed}. They are followed by the transaction that wrote
+ * them rather than by their ID: an instance reads the entries whose transaction committed since
+ * the snapshot of its previous read, so an entry with a lower ID that commits late is still read.
+ * The ID is only a key, and orders the entries of one read.
+ *
+ * <p>Entries only carry the ID of the changed campaign, consumers read its current state.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see com.mabaya.ads.repository.CampaignOutboxRepository
+ */
+@Entity
+@Table(indexes = {@Index(name = "idx_campaign_change_created_at", columnList = "created_at")})
+public class CampaignChange {
+
+  @Id
+  @SequenceGenerator(
+      name = "campaign_change_sequence",
+      sequenceName = "campaign_change_sequence",
+      allocationSize = 1)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "campaign_change_sequence")
+  private Long id;
+
+  @NotNull private Long campaignId;
+  @NotNull private Instant createdAt;
+
+  public CampaignChange() {}
+
+  public CampaignChange(Long id, Long campaignId, Instant createdAt) {
+    this.id = id;
+    this.campaignId = campaignId;
+    this.createdAt = createdAt;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getCampaignId() {
+    return campaignId;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+}
@@ -0,0 +1,68 @@
+package com.mabaya.ads.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point representation of monetary amounts, such as bids and prices, as a {@code long} count
+ * of millionths. Amounts are held in micros in memory so that ranking them is a primitive
+ * comparison, and converted exactly to and from {@link BigDecimal} at the API and persistence
+ * boundary. Amounts have at most {@link #DECIMAL_SCALE} decimal places, like the {@code
+ * numeric(38,2)} columns they are persisted in, so that an amount held in memory, e.g. ranked by
+ * the ad index, is always the one stored.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public final class Micros {
+
+  /** The number of decimal places represented. */
+  public static final int SCALE = 6;
+
+  /** The maximal number of decimal places of amounts, as persisted and exposed. */
+  public static final int DECIMAL_SCALE = 2;
+
+  /** The maximal number of integer digits of amounts, any of which fit in micros. */
+  public static final int DECIMAL_INTEGER_DIGITS = 12;
+
+  private Micros() {}
+
+  /**
+   * Converts the given amount to micros.
+   *
+   * @param amount The amount to convert.
+   * @return The amount in micros.
+   * @throws IllegalArgumentException if the amount is null, has more than {@link #DECIMAL_SCALE}
+   *     decimal places or doesn't fit in a long.
+   */
+  public static long fromDecimal(BigDecimal amount) {
+    if (amount == null) {
+      throw new IllegalArgumentException("Amount cannot be null");
+    }
+    // Would be rounded when persisted
+    if (amount.stripTrailingZeros().scale() > DECIMAL_SCALE) {
+      throw new IllegalArgumentException(
+          "Amount "
+              + amount.toPlainString()
+              + " has more than "
+              + DECIMAL_SCALE
+              + " decimal places");
+    }
+    try {
+      return amount.movePointRight(SCALE).longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException(
+          "Amount " + amount.toPlainString() + " cannot be represented in micros", e);
+    }
+  }
+
+  /**
+   * Converts the given micros back to an amount, with as many decimal places as needed but at least
+   * {@link #DECIMAL_SCALE}.
+   *
+   * @param micros The amount in micros.
+   * @return The amount.
+   */
+  public static BigDecimal toDecimal(long micros) {
+    final BigDecimal amount = BigDecimal.valueOf(micros, SCALE).stripTrailingZeros();
+    return amount.scale() < DECIMAL_SCALE ? amount.setScale(DECIMAL_SCALE) : amount;
+  }
+}
@@ -1,5 +1,6 @@
 package com.mabaya.ads.model;
 
+import com.mabaya.ads.utils.MicrosConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -15,16 +16,21 @@ import java.math.BigDecimal;
 @Table(indexes = {@Index(name = "idx_product_category", columnList = "category")})
 public class Product {
 
+  // Drawn in blocks, the block size of the sequence in the database wins, see R__id_blocks.sql
   @Id
   @SequenceGenerator(
       name = "product_sequence",
       sequenceName = "product_sequence",
-      allocationSize = 1)
+      allocationSize = 50)
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_sequence")
   private Long id;
 
   @NotBlank private String title;
-  @Positive private BigDecimal price;
+
+  // In micros, see Micros
+  @Positive
+  @Convert(converter = MicrosConverter.class)
+  private long price;
 
   @NotNull
   @Enumerated(EnumType.STRING)
@@ -38,7 +44,7 @@ public class Product {
 
   public Product(String title, BigDecimal price, Category category, String serialNumber) {
     this.title = title;
-    this.price = price;
+    this.price = Micros.fromDecimal(price);
     this.category = category;
     this.serialNumber = serialNumber;
   }
@@ -46,7 +52,7 @@ public class Product {
   public Product(Long id, String title, BigDecimal price, Category category, String serialNumber) {
     this.id = id;
     this.title = title;
-    this.price = price;
+    this.price = Micros.fromDecimal(price);
     this.category = category;
     this.serialNumber = serialNumber;
   }
@@ -68,11 +74,15 @@ public class Product {
   }
 
   public BigDecimal getPrice() {
-    return price;
+    return Micros.toDecimal(price);
   }
 
   public void setPrice(BigDecimal price) {
-    this.price = price;
+    this.price = Micros.fromDecimal(price);
+  }
+
+  public long getPriceMicros() {
+    return price;
   }
 
   public Category getCategory() {
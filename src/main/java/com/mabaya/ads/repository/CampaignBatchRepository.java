@@ -0,0 +1,100 @@
+package com.mabaya.ads.repository;
+
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Product;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Writes campaigns in bulk through JDBC batches, bypassing the persistence context. Unlike {@link
+ * CampaignRepository#saveAll}, IDs are drawn from the campaign sequence in a single round trip per
+ * batch and the join table rows are batched as well.
+ *
+ * <p>Campaigns written here don't go through the JPA entity listeners, callers are responsible for
+ * any side effects of persisting a campaign.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see CampaignRepository
+ */
+@Repository
+public class CampaignBatchRepository {
+
+  private static final int BATCH_SIZE = 1000;
+
+  // Every nextval reserves a block of IDs, as many as the increment of the sequence
+  private static final String ALLOCATE_IDS_SQL =
+      """
+          WITH sequence AS (
+            SELECT increment_by AS block_size FROM pg_sequences
+            WHERE schemaname = current_schema() AND sequencename = 'campaign_sequence'
+          ), block AS (
+            SELECT nextval('campaign_sequence') AS lo
+            FROM sequence, generate_series(1, (? + block_size - 1) / block_size)
+          )
+          SELECT lo + i FROM block, sequence, generate_series(0, block_size - 1) i
+          ORDER BY 1 LIMIT ?
+          """;
+
+  private static final String INSERT_CAMPAIGN_SQL =
+      "INSERT INTO campaign (id, name, start_date, end_date, bid) VALUES (?, ?, ?, ?, ?)";
+
+  private static final String INSERT_CAMPAIGN_PRODUCT_SQL =
+      "INSERT INTO campaign_products (campaign_id, products_id) VALUES (?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public CampaignBatchRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Draws IDs from the campaign sequence in a single round trip. The sequence hands out blocks of
+   * IDs, as it does to Hibernate, so only as many blocks as needed are drawn.
+   *
+   * @param count The number of IDs to allocate.
+   * @return The allocated IDs, in ascending order.
+   */
+  public List<Long> allocateIds(int count) {
+    return jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, count, count);
+  }
+
+  /**
+   * Inserts the given campaigns and their product links in JDBC batches. The campaigns must already
+   * have their IDs, see {@link #allocateIds(int)}.
+   *
+   * @param campaigns The campaigns to insert, with their products.
+   */
+  public void insertAll(List<Campaign> campaigns) {
+    jdbcTemplate.batchUpdate(
+        INSERT_CAMPAIGN_SQL,
+        campaigns,
+        BATCH_SIZE,
+        (ps, campaign) -> {
+          ps.setLong(1, campaign.getId());
+          ps.setString(2, campaign.getName());
+          ps.setObject(3, campaign.getStartDate().atOffset(ZoneOffset.UTC));
+          ps.setObject(4, campaign.getEndDate().atOffset(ZoneOffset.UTC));
+          ps.setBigDecimal(5, campaign.getBid());
+        });
+
+    final List<long[]> campaignProducts = new ArrayList<>();
+    for (Campaign campaign : campaigns) {
+      for (Product product : campaign.getProducts()) {
+        campaignProducts.add(new long[] {campaign.getId(), product.getId()});
+      }
+    }
+    jdbcTemplate.batchUpdate(
+        INSERT_CAMPAIGN_PRODUCT_SQL,
+        campaignProducts,
+        BATCH_SIZE,
+        (ps, campaignProduct) -> {
+          ps.setLong(1, campaignProduct[0]);
+          ps.setLong(2, campaignProduct[1]);
+        });
+  }
+}
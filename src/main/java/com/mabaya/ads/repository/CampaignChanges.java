@@ -0,0 +1,14 @@
+package com.mabaya.ads.repository;
+
+import com.mabaya.ads.model.CampaignChange;
+import java.util.List;
+
+/**
+ * The changes of the campaign outbox that became visible between two snapshots of the database, see
+ * {@link CampaignOutboxRepository#findCommittedSince(String, int)}.
+ *
+ * @param snapshot The snapshot the changes were read in, to read the next changes since.
+ * @param changes The changes, in ID order.
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public record CampaignChanges(String snapshot, List<CampaignChange> changes) {}
@@ -0,0 +1,130 @@
+package com.mabaya.ads.repository;
+
+import com.mabaya.ads.model.CampaignChange;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads and writes the campaign outbox, see {@link CampaignChange}, through JDBC. Entries are
+ * appended through the connection of the current transaction, so they are committed, or rolled
+ * back, together with the campaign changes they record.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see com.mabaya.ads.service.index.CampaignChangeFeed
+ */
+@Repository
+public class CampaignOutboxRepository {
+
+  private static final int BATCH_SIZE = 1000;
+
+  private static final String APPEND_SQL =
+      "INSERT INTO campaign_change (id, campaign_id, created_at)"
+          + " VALUES (nextval('campaign_change_sequence'), ?, clock_timestamp())";
+
+  private static final String FIND_CURRENT_SNAPSHOT_SQL = "SELECT pg_current_snapshot()::text";
+
+  // A single statement, so that the changes are read in the snapshot it returns. Transactions below
+  // the xmin of the given snapshot had ended when it was taken, which bounds the scan of tx_id
+  private static final String FIND_COMMITTED_SINCE_SQL =
+      "SELECT s.snapshot::text AS snapshot, c.id, c.campaign_id, c.created_at"
+          + " FROM (SELECT pg_current_snapshot() AS snapshot) s LEFT JOIN LATERAL ("
+          + "SELECT id, campaign_id, created_at FROM campaign_change"
+          + " WHERE tx_id >= pg_snapshot_xmin(CAST(? AS pg_snapshot))"
+          + " AND NOT pg_visible_in_snapshot(tx_id, CAST(? AS pg_snapshot))"
+          + " ORDER BY id LIMIT ?) c ON true";
+
+  private static final String DELETE_CREATED_BEFORE_SQL =
+      "DELETE FROM campaign_change WHERE created_at < ?";
+
+  private static final RowMapper<CampaignChange> CHANGE_ROW_MAPPER =
+      (rs, rowNum) ->
+          new CampaignChange(
+              rs.getLong("id"),
+              rs.getLong("campaign_id"),
+              rs.getObject("created_at", OffsetDateTime.class).toInstant());
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public CampaignOutboxRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Records a change of the campaign with the given ID.
+   *
+   * @param campaignId The ID of the changed campaign.
+   */
+  public void append(long campaignId) {
+    jdbcTemplate.update(APPEND_SQL, campaignId);
+  }
+
+  /**
+   * Records a change of every campaign with the given IDs, in JDBC batches.
+   *
+   * @param campaignIds The IDs of the changed campaigns.
+   */
+  public void appendAll(Collection<Long> campaignIds) {
+    jdbcTemplate.batchUpdate(
+        APPEND_SQL, campaignIds, BATCH_SIZE, (ps, campaignId) -> ps.setLong(1, campaignId));
+  }
+
+  /**
+   * Returns the current snapshot of the database, from which changes are read by {@link
+   * #findCommittedSince(String, int)}.
+   *
+   * @return The snapshot, in the text form of {@code pg_snapshot}.
+   */
+  public String findCurrentSnapshot() {
+    return jdbcTemplate.queryForObject(FIND_CURRENT_SNAPSHOT_SQL, String.class);
+  }
+
+  /**
+   * Finds the changes committed since the given snapshot, in ID order: the changes of the
+   * transactions that are visible in the current snapshot but were not in the given one. Unlike
+   * reading past the highest ID read so far, this reads changes whose transaction commits long
+   * after it drew their ID.
+   *
+   * @param snapshot The snapshot to read since, as returned by {@link #findCurrentSnapshot()} or by
+   *     the previous call.
+   * @param limit The maximum number of changes to read.
+   * @return The changes, and the snapshot they were read in. If the limit is reached, changes may
+   *     have been left out, so the returned snapshot is not to be read since.
+   */
+  public CampaignChanges findCommittedSince(String snapshot, int limit) {
+    return jdbcTemplate.query(
+        FIND_COMMITTED_SINCE_SQL,
+        rs -> {
+          String current = null;
+          final List<CampaignChange> changes = new ArrayList<>();
+          while (rs.next()) {
+            current = rs.getString("snapshot");
+            if (rs.getObject("id") != null) {
+              changes.add(CHANGE_ROW_MAPPER.mapRow(rs, changes.size()));
+            }
+          }
+          return new CampaignChanges(current, changes);
+        },
+        snapshot,
+        snapshot,
+        limit);
+  }
+
+  /**
+   * Deletes the changes recorded before the given instant.
+   *
+   * @param instant The instant to delete before, exclusive.
+   * @return The number of deleted changes.
+   */
+  public int deleteCreatedBefore(Instant instant) {
+    return jdbcTemplate.update(DELETE_CREATED_BEFORE_SQL, instant.atOffset(ZoneOffset.UTC));
+  }
+}
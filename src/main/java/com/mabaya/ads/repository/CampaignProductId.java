@@ -0,0 +1,11 @@
+package com.mabaya.ads.repository;
+
+/**
+ * A row of the campaign/product association, for reading which products campaigns promote without
+ * loading the products.
+ *
+ * @param campaignId The campaign ID.
+ * @param productId The ID of a product the campaign promotes.
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public record CampaignProductId(Long campaignId, Long productId) {}
@@ -1,12 +1,16 @@
 package com.mabaya.ads.repository;
 
 import com.mabaya.ads.model.Campaign;
-import com.mabaya.ads.model.Category;
+import jakarta.persistence.QueryHint;
 import java.time.Instant;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -16,20 +20,108 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface CampaignRepository extends JpaRepository<Campaign, Long> {
 
-  // Preferred complexity rather than separate calls to database.
-  // Ideally would have a more experienced architect to brainstorm with.
   /**
-   * Finds all active campaigns with the highest bid for a given category. The query joins the
-   * Campaign and Product entities, filtering by the campaign's start date to ensure it's active
-   * (within the last 10 days). It then filters by category (if provided) and orders the results by
-   * the campaign's bid in descending order, fetching the top result. If no category is specified,
-   * it defaults to fetching campaigns regardless of the product category.
+   * The query of {@link #findPromotedProductCandidates(Instant, String)}, shared with the reactive
+   * serving path, see {@link ReactiveCampaignRepository}.
+   */
+  String PROMOTED_PRODUCT_CANDIDATES_QUERY =
+      """
+          WITH category_bid AS (
+            SELECT cc.bid FROM campaign_category cc
+            WHERE cc.category = CAST(:category AS varchar)
+              AND cc.start_date <= :now AND cc.end_date > :now
+            ORDER BY cc.bid DESC LIMIT 1
+          ), fallback_bid AS (
+            SELECT cc.bid FROM campaign_category cc
+            WHERE cc.start_date <= :now AND cc.end_date > :now
+            ORDER BY cc.bid DESC LIMIT 1
+          ), fallback_campaign AS (
+            SELECT DISTINCT cc.campaign_id AS id FROM fallback_bid b
+            JOIN campaign_category cc ON cc.bid = b.bid
+            WHERE cc.start_date <= :now AND cc.end_date > :now
+          )
+          (SELECT cc.campaign_id AS "campaignId", false AS "fallback", p.id AS "productId",
+            p.title AS "title", p.price AS "price", p.category AS "category",
+            p.serial_number AS "serialNumber"
+          FROM category_bid b
+          JOIN campaign_category cc ON cc.category = CAST(:category AS varchar) AND cc.bid = b.bid
+          CROSS JOIN LATERAL (
+            SELECT p.* FROM campaign_products cp JOIN product p ON p.id = cp.products_id
+            WHERE cp.campaign_id = cc.campaign_id AND p.category = CAST(:category AS varchar)
+            ORDER BY p.price DESC, p.id LIMIT 1) p
+          WHERE cc.start_date <= :now AND cc.end_date > :now
+          ORDER BY p.price DESC, cc.campaign_id LIMIT 1)
+          UNION ALL
+          (SELECT fc.id, true, p.id, p.title, p.price, p.category, p.serial_number
+          FROM fallback_campaign fc CROSS JOIN LATERAL (
+            SELECT p.* FROM campaign_products cp JOIN product p ON p.id = cp.products_id
+            WHERE cp.campaign_id = fc.id
+            ORDER BY p.price DESC, p.id LIMIT 1) p
+          ORDER BY p.price DESC, fc.id LIMIT 1)
+          """;
+
+  /**
+   * Selects, in a single round trip, the candidate ads for a category at the given time: the active
+   * campaign with the highest bid promoting products of the category, with its highest priced
+   * product of the category, and the active campaign with the highest bid overall, with its highest
+   * priced product, as the fallback. Among campaigns with an equal bid, the one with the highest
+   * priced product is selected, then the one with the lowest ID, like in the in-memory index.
+   * Returns no in-category candidate if the category is null, and no candidate at all if there is
+   * no active campaign with products.
+   *
+   * <p>Both bids are found by walking the {@code campaign_category} table, which lists every
+   * campaign with the categories of its products, in bid order through its covering indexes. The
+   * query stops at the first active match with an index-only scan, then only compares the top
+   * products of the active campaigns of that bid, instead of joining all active campaigns with
+   * their products.
+   */
+  @Query(value = PROMOTED_PRODUCT_CANDIDATES_QUERY, nativeQuery = true)
+  List<PromotedProductCandidate> findPromotedProductCandidates(
+      @Param("now") Instant now, @Param("category") String category);
+
+  /**
+   * Finds all campaigns ending after the given instant, i.e. active or upcoming ones, without
+   * loading their products.
+   */
+  @Query("SELECT c FROM Campaign c WHERE c.endDate > :endingAfter")
+  List<Campaign> findAllEndingAfter(@Param("endingAfter") Instant endingAfter);
+
+  /**
+   * Finds the IDs of the products of all campaigns ending after the given instant, without loading
+   * the products.
    */
   @Query(
-      "SELECT c FROM Campaign c JOIN c.products p WHERE c.startDate <= :now AND c.startDate > :nowMinus10Days AND (:category IS NULL OR p.category = :category) ORDER BY c.bid DESC")
-  Page<Campaign> findAllActiveCampaignsByCategoryOrderedByBid(
-      @Param("now") Instant now,
-      @Param("nowMinus10Days") Instant nowMinus10Days,
-      @Param("category") Category category,
-      Pageable pageable);
+      "SELECT new com.mabaya.ads.repository.CampaignProductId(c.id, p.id) FROM Campaign c JOIN"
+          + " c.products p WHERE c.endDate > :endingAfter")
+  List<CampaignProductId> findAllProductIdsOfCampaignsEndingAfter(
+      @Param("endingAfter") Instant endingAfter);
+
+  /**
+   * Finds the next campaigns after the given ID in ID order, without loading their products, for
+   * keyset pagination.
+   */
+  List<Campaign> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+  /**
+   * Streams all campaigns in ID order, without loading their products. Rows are fetched from the
+   * database in batches instead of at once, the stream must be consumed within a transaction and
+   * closed.
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("SELECT c FROM Campaign c ORDER BY c.id")
+  Stream<Campaign> streamAllOrderedById();
+
+  /** Finds the IDs of the products of the given campaigns, without loading the products. */
+  @Query(
+      "SELECT new com.mabaya.ads.repository.CampaignProductId(c.id, p.id) FROM Campaign c JOIN"
+          + " c.products p WHERE c.id IN :campaignIds")
+  List<CampaignProductId> findAllProductIdsOfCampaigns(
+      @Param("campaignIds") Collection<Long> campaignIds);
+
+  /** Finds the given campaigns together with their products, in a single query. */
+  @Query("SELECT DISTINCT c FROM Campaign c LEFT JOIN FETCH c.products WHERE c.id IN :campaignIds")
+  List<Campaign> findAllWithProductsById(@Param("campaignIds") Collection<Long> campaignIds);
 }
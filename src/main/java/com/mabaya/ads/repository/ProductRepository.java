@@ -1,6 +1,8 @@
 package com.mabaya.ads.repository;
 
 import com.mabaya.ads.model.Product;
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,4 +10,10 @@ import org.springframework.stereotype.Repository;
  * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {}
+public interface ProductRepository extends JpaRepository<Product, Long> {
+
+  /**
+   * Finds the next products after the given ID in ID order, for reading all products in batches.
+   */
+  List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+}
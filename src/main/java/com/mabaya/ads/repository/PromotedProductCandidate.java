@@ -0,0 +1,37 @@
+package com.mabaya.ads.repository;
+
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import java.math.BigDecimal;
+
+/**
+ * A candidate ad selected by {@link CampaignRepository#findPromotedProductCandidates}: an active
+ * campaign together with the columns of the product it would promote.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public interface PromotedProductCandidate {
+
+  Long getCampaignId();
+
+  /**
+   * Returns whether this is the global fallback candidate rather than the in-category candidate.
+   */
+  Boolean getFallback();
+
+  Long getProductId();
+
+  String getTitle();
+
+  BigDecimal getPrice();
+
+  String getCategory();
+
+  String getSerialNumber();
+
+  /** Returns the promoted product, detached from any persistence context. */
+  default Product toProduct() {
+    return new Product(
+        getProductId(), getTitle(), getPrice(), Category.valueOf(getCategory()), getSerialNumber());
+  }
+}
@@ -0,0 +1,179 @@
+package com.mabaya.ads.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Row;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.ToDoubleFunction;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterpart of the campaign queries of the serving path, see {@link
+ * CampaignRepository#findPromotedProductCandidates(Instant, String)}, running over R2DBC.
+ *
+ * <p>The R2DBC connection pool is owned by this repository rather than exposed as a bean, so that
+ * the JPA transaction manager stays the only transaction manager of the application. It connects to
+ * {@code ads.r2dbc.url}, which defaults to the JDBC URL of {@code spring.datasource} with the
+ * {@code r2dbc:} scheme, with the same credentials. At most {@code ads.r2dbc.pool.max-size} queries
+ * run at once, and a query that waits longer than {@code ads.r2dbc.pool.max-acquire-time} for a
+ * connection fails, so the number of in-flight requests can't grow unbounded.
+ *
+ * <p>Publishes the connections of the pool by state ({@code ads.r2dbc.pool.connections}) and the
+ * number of queries waiting for a connection ({@code ads.r2dbc.pool.pending}).
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see com.mabaya.ads.service.ReactiveAdService
+ */
+@Repository
+public class ReactiveCampaignRepository implements DisposableBean {
+
+  private final ConnectionPool connectionPool;
+  private final DatabaseClient databaseClient;
+
+  @Autowired
+  public ReactiveCampaignRepository(
+      DataSourceProperties dataSourceProperties,
+      MeterRegistry meterRegistry,
+      @Value("${ads.r2dbc.url:}") String url,
+      @Value("${ads.r2dbc.pool.max-size:10}") int maxSize,
+      @Value("${ads.r2dbc.pool.max-acquire-time:2s}") Duration maxAcquireTime) {
+    final String r2dbcUrl =
+        StringUtils.hasText(url)
+            ? url
+            : dataSourceProperties.determineUrl().replaceFirst("^jdbc:", "r2dbc:");
+    final ConnectionFactoryOptions.Builder options =
+        ConnectionFactoryOptions.parse(r2dbcUrl).mutate();
+    final String username = dataSourceProperties.determineUsername();
+    if (username != null) {
+      options.option(ConnectionFactoryOptions.USER, username);
+    }
+    final String password = dataSourceProperties.determinePassword();
+    if (password != null) {
+      options.option(ConnectionFactoryOptions.PASSWORD, password);
+    }
+    this.connectionPool =
+        new ConnectionPool(
+            ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .name("ads-r2dbc")
+                .initialSize(0)
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+    this.databaseClient = DatabaseClient.create(connectionPool);
+
+    registerPoolGauge(meterRegistry, "acquired", PoolMetrics::acquiredSize);
+    registerPoolGauge(meterRegistry, "idle", PoolMetrics::idleSize);
+    Gauge.builder(
+            "ads.r2dbc.pool.pending", connectionPool, poolMetric(PoolMetrics::pendingAcquireSize))
+        .description("Number of queries waiting for an R2DBC connection")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Selects the candidate ads for a category at the given time, like {@link
+   * CampaignRepository#findPromotedProductCandidates(Instant, String)}.
+   *
+   * @param now The time the campaigns must be active at.
+   * @param category The name of the category, or null to select the fallback candidate only.
+   * @return The candidates, emitted once the query completes.
+   */
+  public Flux<PromotedProductCandidate> findPromotedProductCandidates(
+      Instant now, String category) {
+    DatabaseClient.GenericExecuteSpec query =
+        databaseClient.sql(CampaignRepository.PROMOTED_PRODUCT_CANDIDATES_QUERY).bind("now", now);
+    query =
+        category == null
+            ? query.bindNull("category", String.class)
+            : query.bind("category", category);
+    return query.<PromotedProductCandidate>map((row, metadata) -> CandidateRow.of(row)).all();
+  }
+
+  @Override
+  public void destroy() {
+    connectionPool.dispose();
+  }
+
+  private void registerPoolGauge(
+      MeterRegistry meterRegistry, String state, ToDoubleFunction<PoolMetrics> metric) {
+    Gauge.builder("ads.r2dbc.pool.connections", connectionPool, poolMetric(metric))
+        .description("Number of R2DBC connections by state")
+        .tag("state", state)
+        .register(meterRegistry);
+  }
+
+  private static ToDoubleFunction<ConnectionPool> poolMetric(ToDoubleFunction<PoolMetrics> metric) {
+    return pool -> pool.getMetrics().map(metric::applyAsDouble).orElse(Double.NaN);
+  }
+
+  /** A candidate read from a row of the candidate query. */
+  private record CandidateRow(
+      Long campaignId,
+      Boolean fallback,
+      Long productId,
+      String title,
+      BigDecimal price,
+      String category,
+      String serialNumber)
+      implements PromotedProductCandidate {
+
+    static CandidateRow of(Row row) {
+      return new CandidateRow(
+          row.get("campaignId", Long.class),
+          row.get("fallback", Boolean.class),
+          row.get("productId", Long.class),
+          row.get("title", String.class),
+          row.get("price", BigDecimal.class),
+          row.get("category", String.class),
+          row.get("serialNumber", String.class));
+    }
+
+    @Override
+    public Long getCampaignId() {
+      return campaignId;
+    }
+
+    @Override
+    public Boolean getFallback() {
+      return fallback;
+    }
+
+    @Override
+    public Long getProductId() {
+      return productId;
+    }
+
+    @Override
+    public String getTitle() {
+      return title;
+    }
+
+    @Override
+    public BigDecimal getPrice() {
+      return price;
+    }
+
+    @Override
+    public String getCategory() {
+      return category;
+    }
+
+    @Override
+    public String getSerialNumber() {
+      return serialNumber;
+    }
+  }
+}
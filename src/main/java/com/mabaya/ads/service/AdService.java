@@ -1,14 +1,27 @@
 package com.mabaya.ads.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mabaya.ads.dto.AdBatchRequest;
+import com.mabaya.ads.dto.AdBatchResponse;
 import com.mabaya.ads.dto.ProductDTO;
-import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.dto.RankedAdDTO;
 import com.mabaya.ads.model.Category;
-import com.mabaya.ads.model.Product;
-import java.util.NoSuchElementException;
+import com.mabaya.ads.repository.PromotedProductCandidate;
+import com.mabaya.ads.service.AdServingMetrics.Outcome;
+import com.mabaya.ads.service.AdServingMetrics.Source;
+import com.mabaya.ads.service.AdServingMetrics.Stage;
+import com.mabaya.ads.service.index.AdIndex;
+import com.mabaya.ads.service.index.RankedCampaigns;
+import com.mabaya.ads.service.index.ServedAd;
+import com.mabaya.ads.service.index.WinnerTable;
+import io.micrometer.core.instrument.Timer;
+import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 // While it's possible to eliminate this service and use the CampaignService or ProductService
 // instead, chose to keep this to better align with the business logic and accounting for future
@@ -22,9 +35,25 @@ import org.springframework.stereotype.Service;
  * specified category and subsequently finding the product with the highest price within that
  * campaign to serve as an ad.
  *
+ * <p>Ads are served from the precomputed {@link WinnerTable} of the in-memory {@link AdIndex} once
+ * it is loaded, so the serving path does not touch the database. The winners are already mapped and
+ * serialized, see {@link ServedAd}. While the index is not ready, ads are served from the database,
+ * concurrent requests for the same category sharing a single query, see {@link
+ * PromotedProductSingleFlight}. Those ads are cached for a configurable staleness budget, see
+ * {@link StaleWhileRevalidateAdCache}.
+ *
+ * <p>The ads of several slots are served at once from a single {@link RankedCampaigns} snapshot of
+ * the index, so all the slots of a page see the same active campaigns. The top ads of a category
+ * are ranked from the same snapshot, see {@link RankedCampaigns#top(Category, int)}.
+ *
+ * <p>Every serve and every stage of serving from the database is metered, see {@link
+ * AdServingMetrics}.
+ *
  * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
  * @see CampaignService
  * @see ProductService
+ * @see AdIndex
+ * @see AdServingMetrics
  * @see ProductDTO
  * @see Category
  */
@@ -33,13 +62,29 @@ public class AdService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(AdService.class);
 
-  private final CampaignService campaignService;
+  public static final int MAX_RANKED_ADS = 100;
+
+  private final PromotedProductSingleFlight promotedProducts;
   private final ProductService productService;
+  private final AdIndex adIndex;
+  private final StaleWhileRevalidateAdCache adCache;
+  private final ObjectMapper objectMapper;
+  private final AdServingMetrics metrics;
 
   @Autowired
-  public AdService(CampaignService campaignService, ProductService productService) {
-    this.campaignService = campaignService;
+  public AdService(
+      PromotedProductSingleFlight promotedProducts,
+      ProductService productService,
+      AdIndex adIndex,
+      StaleWhileRevalidateAdCache adCache,
+      ObjectMapper objectMapper,
+      AdServingMetrics metrics) {
+    this.promotedProducts = promotedProducts;
     this.productService = productService;
+    this.adIndex = adIndex;
+    this.adCache = adCache;
+    this.objectMapper = objectMapper;
+    this.metrics = metrics;
   }
 
   /**
@@ -52,13 +97,139 @@ public class AdService {
    * @throws NoSuchElementException if no active campaign or suitable product is found.
    */
   public ProductDTO getPromotedProductWithHighestBid(Category category) {
+    return getPromotedAd(category).product();
+  }
+
+  /**
+   * Retrieves the promoted product like {@link #getPromotedProductWithHighestBid(Category)},
+   * together with its serialized response body and ETag.
+   *
+   * @param category The category of products for which to serve an ad.
+   * @return The {@link ServedAd} of the product with the highest bid to be served as an ad.
+   * @throws NoSuchElementException if no active campaign or suitable product is found.
+   */
+  public ServedAd getPromotedAd(Category category) {
     LOGGER.debug("Getting promoted product with highest bid for category {}", category);
-    final Campaign activeCampaign = campaignService.getActiveCampaignWithHighestBid(category);
-    final boolean foundActiveCampaignByCategory =
-        campaignService.hasProductsWithCategory(activeCampaign, category);
-    final Product productWithHighestPrice =
-        productService.getProductWithHighestPrice(
-            activeCampaign.getProducts(), foundActiveCampaignByCategory ? category : null);
-    return productService.getDTO(productWithHighestPrice);
+    if (adIndex.isReady()) {
+      final Timer.Sample sample = Timer.start();
+      final WinnerTable.Winner winner = adIndex.getWinner(category);
+      sample.stop(metrics.serve(Source.INDEX));
+      if (winner == null) {
+        metrics.recordOutcome(category, Outcome.MISS);
+        throw new NoSuchElementException("No active campaigns found");
+      }
+      metrics.recordOutcome(category, winner.fallback() ? Outcome.FALLBACK : Outcome.HIT);
+      return winner.ad();
+    }
+    final Timer.Sample sample = Timer.start();
+    try {
+      // Counted on every serve, whether the ad was cached or selected by this request
+      final SelectedAd selected = adCache.get(category, this::getPromotedAdFromDatabase);
+      metrics.recordOutcome(category, selected.outcome());
+      return selected.ad();
+    } catch (NoSuchElementException e) {
+      metrics.recordOutcome(category, Outcome.MISS);
+      throw e;
+    } finally {
+      sample.stop(metrics.serve(Source.DATABASE));
+    }
+  }
+
+  private SelectedAd getPromotedAdFromDatabase(Category category) {
+    final PromotedProductCandidate candidate = findPromotedProductCandidate(category);
+    final ProductDTO productDTO = toProductDTO(candidate);
+    final ServedAd ad =
+        metrics.stage(Stage.SERIALIZATION).record(() -> ServedAd.of(productDTO, objectMapper));
+    return new SelectedAd(ad, candidate.getFallback() ? Outcome.FALLBACK : Outcome.HIT);
+  }
+
+  /**
+   * Retrieves the top ranked promoted products for the specified category: the (campaign, product)
+   * pairs of the active campaigns promoting the category, ranked by bid, then by price. Falls back
+   * to the pairs of all active campaigns if none promotes the category, like {@link
+   * #getPromotedProductWithHighestBid(Category)}.
+   *
+   * @param category The category of products for which to serve ads.
+   * @param limit The maximum number of ads, between 1 and {@link #MAX_RANKED_ADS}.
+   * @return The ranked ads, highest ranked first.
+   * @throws IllegalArgumentException if the limit is out of range.
+   * @throws NoSuchElementException if no active campaign is found.
+   * @throws ResponseStatusException with SERVICE_UNAVAILABLE if the index is not loaded yet.
+   */
+  public List<RankedAdDTO> getTopPromotedAds(Category category, int limit) {
+    LOGGER.debug("Getting top {} promoted products for category {}", limit, category);
+    if (limit < 1 || limit > MAX_RANKED_ADS) {
+      throw new IllegalArgumentException("Limit must be between 1 and " + MAX_RANKED_ADS);
+    }
+    if (!adIndex.isReady()) {
+      // The database path only selects the winner
+      throw new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "Ad index is loading, retry later");
+    }
+    final Timer.Sample sample = Timer.start();
+    final List<RankedCampaigns.RankedAd> rankedAds =
+        adIndex.getRankedCampaigns().top(category, limit);
+    sample.stop(metrics.serve(Source.TOP));
+    if (rankedAds.isEmpty()) {
+      metrics.recordOutcome(category, Outcome.MISS);
+      throw new NoSuchElementException("No active campaigns found");
+    }
+    metrics.recordOutcome(category, rankedAds.get(0).fallback() ? Outcome.FALLBACK : Outcome.HIT);
+    return rankedAds.stream()
+        .map(rankedAd -> new RankedAdDTO(rankedAd.campaignId(), rankedAd.product()))
+        .toList();
+  }
+
+  /**
+   * Retrieves the promoted products of several ad slots at once, from a single snapshot of the
+   * {@link AdIndex}. Slots are filled in the order requested, and a product is served in at most
+   * one of them. A slot is filled like the top ads of its category, see {@link
+   * #getTopPromotedAds(Category, int)}, with the distinct products not served yet: the products of
+   * its category of the active campaigns promoting it, ranked by bid, then by price. If there are
+   * too few, the rest of the slot is filled with the products of all active campaigns, ranked
+   * likewise.
+   *
+   * @param request The slots to fill.
+   * @return The products of every slot, in the order requested.
+   * @throws ResponseStatusException with SERVICE_UNAVAILABLE if the index is not loaded yet.
+   */
+  public AdBatchResponse getPromotedAds(AdBatchRequest request) {
+    LOGGER.debug("Getting promoted products for {} slots", request.slots().size());
+    if (!adIndex.isReady()) {
+      // The database path selects a single ad per query, it can't fill a page from one snapshot
+      throw new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "Ad index is loading, retry later");
+    }
+    final Timer.Sample sample = Timer.start();
+    final RankedCampaigns rankedCampaigns = adIndex.getRankedCampaigns();
+    final Set<Long> servedProductIds = new HashSet<>();
+    final List<AdBatchResponse.Slot> slots = new ArrayList<>(request.slots().size());
+    for (AdBatchRequest.Slot slot : request.slots()) {
+      final Category category = slot.category();
+      final List<RankedCampaigns.RankedAd> rankedAds =
+          rankedCampaigns.topNotServed(category, slot.count(), servedProductIds);
+      // The fallback ads come last
+      metrics.recordOutcome(
+          category,
+          rankedAds.isEmpty()
+              ? Outcome.MISS
+              : rankedAds.get(rankedAds.size() - 1).fallback() ? Outcome.FALLBACK : Outcome.HIT);
+      slots.add(
+          new AdBatchResponse.Slot(
+              category, rankedAds.stream().map(RankedCampaigns.RankedAd::product).toList()));
+    }
+    sample.stop(metrics.serve(Source.BATCH));
+    return new AdBatchResponse(slots);
+  }
+
+  private PromotedProductCandidate findPromotedProductCandidate(Category category) {
+    LOGGER.debug("Ad index not ready, querying the database for category {}", category);
+    return promotedProducts
+        .findPromotedProduct(category)
+        .orElseThrow(() -> new NoSuchElementException("No active campaigns found"));
+  }
+
+  private ProductDTO toProductDTO(PromotedProductCandidate candidate) {
+    return metrics.stage(Stage.MAPPING).record(() -> productService.getDTO(candidate.toProduct()));
   }
 }
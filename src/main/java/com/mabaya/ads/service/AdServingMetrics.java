@@ -0,0 +1,131 @@
+package com.mabaya.ads.service;
+
+import com.mabaya.ads.model.Category;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the ad-serving path, so the latency of a single serve can be broken down by stage.
+ * Meters are registered once up front, recording a sample is therefore a plain field access rather
+ * than a registry lookup.
+ *
+ * <ul>
+ *   <li>{@code ads.serve} times whole serves, tagged by the source of the ad, see {@link Source}.
+ *   <li>{@code ads.serve.stage} times every stage of serving from the database, see {@link Stage}.
+ *   <li>{@code ads.serve.requests} counts serves per category and {@link Outcome}.
+ * </ul>
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdService
+ */
+@Component
+public class AdServingMetrics {
+
+  /** Where an ad is served from. */
+  public enum Source {
+    INDEX,
+    DATABASE,
+    /** The database, queried without blocking, see {@link ReactiveAdService}. */
+    REACTIVE,
+    /** The index, for several ad slots at once, see {@link AdService#getPromotedAds}. */
+    BATCH,
+    /** The index, ranking the top ads of a category, see {@link AdService#getTopPromotedAds}. */
+    TOP
+  }
+
+  /** The stages of serving an ad from the database. */
+  public enum Stage {
+    /** Querying the in-category and fallback candidates, see {@link CampaignService}. */
+    CANDIDATE_QUERY,
+    /** Mapping the selected product to its DTO. */
+    MAPPING,
+    /** Serializing the DTO to the response body. */
+    SERIALIZATION
+  }
+
+  /** The outcome of serving an ad for a category. */
+  public enum Outcome {
+    /** Served a product of a campaign promoting the requested category. */
+    HIT,
+    /** Served a product of the highest bid campaign overall. */
+    FALLBACK,
+    /** No active campaign, nothing served. */
+    MISS
+  }
+
+  private final Map<Source, Timer> serveTimers = new EnumMap<>(Source.class);
+  private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+  private final Counter[][] outcomeCounters =
+      new Counter[Category.values().length][Outcome.values().length];
+
+  @Autowired
+  public AdServingMetrics(MeterRegistry meterRegistry) {
+    for (Source source : Source.values()) {
+      serveTimers.put(
+          source,
+          Timer.builder("ads.serve")
+              .description("Time to select the ad to serve")
+              .tag("source", tagValue(source))
+              .register(meterRegistry));
+    }
+    for (Stage stage : Stage.values()) {
+      stageTimers.put(
+          stage,
+          Timer.builder("ads.serve.stage")
+              .description("Time spent in a stage of serving an ad from the database")
+              .tag("stage", tagValue(stage))
+              .register(meterRegistry));
+    }
+    for (Category category : Category.values()) {
+      for (Outcome outcome : Outcome.values()) {
+        outcomeCounters[category.ordinal()][outcome.ordinal()] =
+            Counter.builder("ads.serve.requests")
+                .description("Ads served per category and outcome")
+                .tag("category", category.name())
+                .tag("outcome", tagValue(outcome))
+                .register(meterRegistry);
+      }
+    }
+  }
+
+  /**
+   * Returns the timer of whole serves from the given source.
+   *
+   * @param source The source of the ad.
+   * @return The timer.
+   */
+  public Timer serve(Source source) {
+    return serveTimers.get(source);
+  }
+
+  /**
+   * Returns the timer of the given stage of serving an ad from the database.
+   *
+   * @param stage The stage.
+   * @return The timer.
+   */
+  public Timer stage(Stage stage) {
+    return stageTimers.get(stage);
+  }
+
+  /**
+   * Counts a serve for the given category.
+   *
+   * @param category The requested category, serves without a category are not counted.
+   * @param outcome The outcome of the serve.
+   */
+  public void recordOutcome(Category category, Outcome outcome) {
+    if (category != null) {
+      outcomeCounters[category.ordinal()][outcome.ordinal()].increment();
+    }
+  }
+
+  private static String tagValue(Enum<?> value) {
+    return value.name().toLowerCase().replace('_', '.');
+  }
+}
@@ -0,0 +1,225 @@
+package com.mabaya.ads.service;
+
+import com.mabaya.ads.dto.CampaignBatchResponse;
+import com.mabaya.ads.dto.CampaignDTO;
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Product;
+import com.mabaya.ads.repository.CampaignBatchRepository;
+import com.mabaya.ads.repository.CampaignOutboxRepository;
+import com.mabaya.ads.service.index.CampaignActivationScheduler;
+import com.mabaya.ads.service.mapping.IMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates campaigns in bulk, e.g. from the campaign feeds of advertisers. Campaigns are processed
+ * in chunks of {@value #CHUNK_SIZE}: each chunk is validated, its product IDs are looked up at
+ * once, its campaign IDs are allocated in a single block and it is written through JDBC batches by
+ * {@link CampaignBatchRepository}, in its own transaction.
+ *
+ * <p>Invalid campaigns are reported per item, see {@link CampaignBatchResponse}, and don't abort
+ * the batch. A chunk that fails to be written is reported as failed as a whole, without affecting
+ * the chunks written before it.
+ *
+ * <p>As the campaigns are not persisted through JPA, they are recorded in the campaign outbox and
+ * handed to the {@link CampaignActivationScheduler} explicitly, the same way {@link
+ * com.mabaya.ads.service.index.CampaignIndexListener} does for single campaigns.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see CampaignService#createCampaign(CampaignDTO)
+ * @see CampaignBatchRepository
+ */
+@Service
+public class CampaignBatchService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CampaignBatchService.class);
+
+  static final int CHUNK_SIZE = 1000;
+
+  private final CampaignService campaignService;
+  private final ProductService productService;
+  private final CampaignBatchRepository campaignBatchRepository;
+  private final CampaignOutboxRepository campaignOutboxRepository;
+  private final IMapper<Campaign, CampaignDTO> campaignMapper;
+  private final Validator validator;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectProvider<CampaignActivationScheduler> schedulerProvider;
+
+  @Autowired
+  public CampaignBatchService(
+      CampaignService campaignService,
+      ProductService productService,
+      CampaignBatchRepository campaignBatchRepository,
+      CampaignOutboxRepository campaignOutboxRepository,
+      IMapper<Campaign, CampaignDTO> campaignMapper,
+      Validator validator,
+      PlatformTransactionManager transactionManager,
+      ObjectProvider<CampaignActivationScheduler> schedulerProvider) {
+    this.campaignService = campaignService;
+    this.productService = productService;
+    this.campaignBatchRepository = campaignBatchRepository;
+    this.campaignOutboxRepository = campaignOutboxRepository;
+    this.campaignMapper = campaignMapper;
+    this.validator = validator;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.schedulerProvider = schedulerProvider;
+  }
+
+  /**
+   * Creates the given campaigns, reporting the outcome of each. The campaigns are consumed as they
+   * are created, so a stream of campaigns is never held in memory as a whole.
+   *
+   * <p>If the iterator fails, e.g. because the campaign at hand is malformed, that campaign is
+   * reported as failed and the batch stops there. Campaigns received before it are still created.
+   *
+   * @param campaignDTOs The campaigns to create, in order.
+   * @return The outcome of every received campaign, in order.
+   */
+  public CampaignBatchResponse createCampaigns(Iterator<CampaignDTO> campaignDTOs) {
+    LOGGER.debug("Creating campaigns in bulk");
+    final List<CampaignBatchResponse.Item> items = new ArrayList<>();
+    final List<CampaignDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+    while (true) {
+      final CampaignDTO campaignDTO;
+      try {
+        if (!campaignDTOs.hasNext()) {
+          break;
+        }
+        campaignDTO = campaignDTOs.next();
+      } catch (RuntimeException e) {
+        LOGGER.warn(
+            "Stopping batch at malformed campaign {}: {}",
+            items.size() + chunk.size(),
+            e.getMessage());
+        items.addAll(createChunk(items.size(), chunk));
+        chunk.clear();
+        items.add(
+            CampaignBatchResponse.Item.failed(
+                items.size(), "Malformed campaign: " + e.getMessage()));
+        break;
+      }
+      chunk.add(campaignDTO);
+      if (chunk.size() == CHUNK_SIZE) {
+        items.addAll(createChunk(items.size(), chunk));
+        chunk.clear();
+      }
+    }
+    items.addAll(createChunk(items.size(), chunk));
+    final CampaignBatchResponse response = CampaignBatchResponse.of(items);
+    LOGGER.info("Created {} of {} campaigns in bulk", response.created(), response.received());
+    return response;
+  }
+
+  private List<CampaignBatchResponse.Item> createChunk(int firstIndex, List<CampaignDTO> chunk) {
+    final CampaignBatchResponse.Item[] items = new CampaignBatchResponse.Item[chunk.size()];
+    final List<PendingCampaign> pendingCampaigns = new ArrayList<>(chunk.size());
+    final Set<Long> productIds = new HashSet<>();
+    for (int i = 0; i < chunk.size(); i++) {
+      final int index = firstIndex + i;
+      try {
+        final PendingCampaign pendingCampaign = validate(index, chunk.get(i));
+        pendingCampaigns.add(pendingCampaign);
+        productIds.addAll(pendingCampaign.productIds());
+      } catch (IllegalArgumentException e) {
+        items[i] = CampaignBatchResponse.Item.failed(index, e.getMessage());
+      }
+    }
+
+    final Map<Long, Product> products =
+        productIds.isEmpty() ? Map.of() : productService.getProductsById(productIds);
+    final List<Campaign> campaigns = new ArrayList<>(pendingCampaigns.size());
+    final List<PendingCampaign> validCampaigns = new ArrayList<>(pendingCampaigns.size());
+    for (PendingCampaign pendingCampaign : pendingCampaigns) {
+      final Set<Long> missingIds =
+          pendingCampaign.productIds().stream()
+              .filter(id -> !products.containsKey(id))
+              .collect(Collectors.toCollection(LinkedHashSet::new));
+      if (missingIds.isEmpty()) {
+        pendingCampaign
+            .campaign()
+            .setProducts(pendingCampaign.productIds().stream().map(products::get).toList());
+        campaigns.add(pendingCampaign.campaign());
+        validCampaigns.add(pendingCampaign);
+      } else {
+        items[pendingCampaign.index() - firstIndex] =
+            CampaignBatchResponse.Item.failed(
+                pendingCampaign.index(), "Products not found for IDs: " + missingIds);
+      }
+    }
+
+    if (!campaigns.isEmpty()) {
+      try {
+        final List<Long> ids = campaignBatchRepository.allocateIds(campaigns.size());
+        for (int i = 0; i < campaigns.size(); i++) {
+          campaigns.get(i).setId(ids.get(i));
+        }
+        transactionTemplate.executeWithoutResult(
+            status -> {
+              campaignBatchRepository.insertAll(campaigns);
+              campaignOutboxRepository.appendAll(campaigns.stream().map(Campaign::getId).toList());
+              schedulerProvider.ifAvailable(scheduler -> campaigns.forEach(scheduler::track));
+            });
+        for (PendingCampaign validCampaign : validCampaigns) {
+          items[validCampaign.index() - firstIndex] =
+              CampaignBatchResponse.Item.created(
+                  validCampaign.index(), validCampaign.campaign().getId());
+        }
+      } catch (DataAccessException | TransactionException e) {
+        LOGGER.error(
+            "Failed to persist {} campaigns starting at {}: {}",
+            campaigns.size(),
+            firstIndex,
+            e.getMessage(),
+            e);
+        for (PendingCampaign validCampaign : validCampaigns) {
+          items[validCampaign.index() - firstIndex] =
+              CampaignBatchResponse.Item.failed(
+                  validCampaign.index(), "Failed to persist campaign");
+        }
+      }
+    }
+    return List.of(items);
+  }
+
+  private PendingCampaign validate(int index, CampaignDTO campaignDTO) {
+    final Set<ConstraintViolation<CampaignDTO>> violations = validator.validate(campaignDTO);
+    if (!violations.isEmpty()) {
+      // Same format as GlobalExceptionHandler uses for single campaigns
+      throw new IllegalArgumentException(
+          violations.stream()
+              .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+              .map(
+                  violation ->
+                      String.format(
+                          "[%s: %s]", violation.getPropertyPath(), violation.getMessage()))
+              .collect(Collectors.joining(", ")));
+    }
+    campaignService.validateCampaignData(campaignDTO);
+    if (campaignDTO.productIds() == null || campaignDTO.productIds().isEmpty()) {
+      throw new IllegalArgumentException("Product IDs cannot be null or empty");
+    }
+    // Mapping fails for bids that can't be represented, see Micros
+    final Campaign campaign = campaignMapper.mapToModel(campaignDTO);
+    return new PendingCampaign(index, campaign, new LinkedHashSet<>(campaignDTO.productIds()));
+  }
+
+  private record PendingCampaign(int index, Campaign campaign, Set<Long> productIds) {}
+}
@@ -1,21 +1,34 @@
 package com.mabaya.ads.service;
 
 import com.mabaya.ads.dto.CampaignDTO;
+import com.mabaya.ads.dto.CampaignPage;
 import com.mabaya.ads.model.Campaign;
 import com.mabaya.ads.model.Category;
 import com.mabaya.ads.model.Product;
+import com.mabaya.ads.repository.CampaignProductId;
 import com.mabaya.ads.repository.CampaignRepository;
+import com.mabaya.ads.repository.PromotedProductCandidate;
+import com.mabaya.ads.service.AdServingMetrics.Stage;
+import com.mabaya.ads.service.mapping.CampaignMapper;
 import com.mabaya.ads.service.mapping.IMapper;
-import java.time.Duration;
+import jakarta.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,18 +53,29 @@ public class CampaignService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(CampaignService.class);
 
+  /** The maximum number of campaigns in a page, see {@link #getCampaigns(String, int)}. */
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  private static final int STREAM_PAGE_SIZE = 1000;
+
   private final CampaignRepository campaignRepository;
-  private final IMapper<Campaign, CampaignDTO> campaignMapper;
+  private final CampaignMapper campaignMapper;
   private final ProductService productService;
+  private final EntityManager entityManager;
+  private final AdServingMetrics metrics;
 
   @Autowired
   public CampaignService(
       CampaignRepository campaignRepository,
-      IMapper<Campaign, CampaignDTO> campaignMapper,
-      ProductService productService) {
+      CampaignMapper campaignMapper,
+      ProductService productService,
+      EntityManager entityManager,
+      AdServingMetrics metrics) {
     this.campaignRepository = campaignRepository;
     this.campaignMapper = campaignMapper;
     this.productService = productService;
+    this.entityManager = entityManager;
+    this.metrics = metrics;
   }
 
   /**
@@ -73,7 +97,7 @@ public class CampaignService {
     return campaignMapper.mapToDTO(campaignRepository.save(campaign));
   }
 
-  private void validateCampaignData(CampaignDTO campaignDTO) {
+  void validateCampaignData(CampaignDTO campaignDTO) {
     LOGGER.debug("Validating campaign data: {}", campaignDTO);
     if (campaignDTO.startDate().isBefore(Instant.now())) {
       throw new IllegalArgumentException("Campaign start date cannot be in the past");
@@ -82,15 +106,90 @@ public class CampaignService {
   }
 
   /**
-   * Retrieves all campaigns and converts them to DTOs.
+   * Retrieves a page of campaigns in ID order, using keyset pagination: the page starts right after
+   * the last campaign of the previous page, so fetching a page costs the same wherever it is.
    *
-   * @return A list of {@link CampaignDTO} representing all campaigns.
+   * @param cursor The cursor returned with the previous page, or null for the first page.
+   * @param limit The maximum number of campaigns in the page, between 1 and {@value
+   *     #MAX_PAGE_SIZE}.
+   * @return The page of campaigns, with the cursor of the next page, if any.
+   * @throws IllegalArgumentException If the cursor or the limit is invalid.
    */
   @Transactional(readOnly = true)
-  public List<CampaignDTO> getAllCampaigns() {
-    LOGGER.debug("Retrieving all campaigns");
-    Collection<Campaign> campaigns = campaignRepository.findAll();
-    return campaignMapper.mapToDTO(campaigns).stream().toList();
+  public CampaignPage getCampaigns(String cursor, int limit) {
+    LOGGER.debug("Retrieving {} campaigns after cursor {}", limit, cursor);
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    final long afterId = cursor == null ? 0 : decodeCursor(cursor);
+    // Fetches one more campaign to know whether there is a next page
+    final List<Campaign> campaigns =
+        campaignRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit + 1));
+    if (campaigns.size() <= limit) {
+      return new CampaignPage(mapToDTOs(campaigns), null);
+    }
+    final List<Campaign> page = campaigns.subList(0, limit);
+    return new CampaignPage(mapToDTOs(page), encodeCursor(page.get(limit - 1).getId()));
+  }
+
+  /**
+   * Streams all campaigns in ID order to the given consumer, a page at a time. Campaigns are read
+   * through a database cursor and detached once their page is consumed, so memory use doesn't grow
+   * with the number of campaigns.
+   *
+   * @param pageConsumer The consumer of every page of campaigns.
+   */
+  @Transactional(readOnly = true)
+  public void streamAllCampaigns(Consumer<List<CampaignDTO>> pageConsumer) {
+    LOGGER.debug("Streaming all campaigns");
+    try (Stream<Campaign> campaigns = campaignRepository.streamAllOrderedById()) {
+      final Iterator<Campaign> iterator = campaigns.iterator();
+      final List<Campaign> page = new ArrayList<>(STREAM_PAGE_SIZE);
+      while (iterator.hasNext()) {
+        page.add(iterator.next());
+        if (page.size() == STREAM_PAGE_SIZE || !iterator.hasNext()) {
+          pageConsumer.accept(mapToDTOs(page));
+          page.clear();
+          entityManager.clear();
+        }
+      }
+    }
+  }
+
+  private List<CampaignDTO> mapToDTOs(List<Campaign> campaigns) {
+    if (campaigns.isEmpty()) {
+      return List.of();
+    }
+    // A single query for the product IDs of the whole page rather than one per campaign
+    final Map<Long, List<Long>> productIds =
+        campaignRepository
+            .findAllProductIdsOfCampaigns(campaigns.stream().map(Campaign::getId).toList())
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    CampaignProductId::campaignId,
+                    Collectors.mapping(CampaignProductId::productId, Collectors.toList())));
+    return campaigns.stream()
+        .map(
+            campaign ->
+                campaignMapper.mapToDTO(
+                    campaign, productIds.getOrDefault(campaign.getId(), List.of())))
+        .toList();
+  }
+
+  private static String encodeCursor(long lastId) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static long decodeCursor(String cursor) {
+    try {
+      return Long.parseLong(
+          new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
   }
 
   /**
@@ -105,78 +204,81 @@ public class CampaignService {
   }
 
   /**
-   * Attempts to find an active campaign with the highest bid for a given category at the time of
-   * the request. If no campaign is found for the specified {@link Category}, it retries the search
-   * without considering the category.
+   * Selects the product to promote for a given category at the time of the request: the highest
+   * priced product of the category in the active campaign with the highest bid promoting the
+   * category. If no active campaign promotes the category, the highest priced product of the active
+   * campaign with the highest bid overall is selected instead. Both candidates are selected by a
+   * single query, see {@link CampaignRepository#findPromotedProductCandidates}.
    *
-   * @param category The category to filter campaigns, or null to ignore the category.
-   * @return The campaign with the highest bid.
-   * @throws NoSuchElementException if no active campaign is found after retries.
+   * @param category The category to select a product for, or null to ignore the category.
+   * @return The selected candidate, {@link PromotedProductCandidate#getFallback()} telling whether
+   *     it is the fallback, or empty if there is no active campaign with products.
    */
   @Transactional(readOnly = true)
-  public Campaign getActiveCampaignWithHighestBid(Category category) {
-    Instant requestTime = Instant.now();
-    try {
-      return findActiveCampaignWithHighestBid(category, requestTime);
-    } catch (NoSuchElementException e) {
-      LOGGER.debug(
-          "No campaign found for category {}. Trying without category constraint.", category);
-      if (category != null) {
-        // Retry without category
-        return findActiveCampaignWithHighestBid(null, requestTime);
-      } else {
-        // If the retry was already without category, rethrow the exception
-        throw e;
+  public Optional<PromotedProductCandidate> findPromotedProduct(Category category) {
+    final Instant requestTime = Instant.now();
+    LOGGER.debug("Selecting promoted product for category: {} at time: {}", category, requestTime);
+    final List<PromotedProductCandidate> candidates =
+        metrics
+            .stage(Stage.CANDIDATE_QUERY)
+            .record(
+                () ->
+                    campaignRepository.findPromotedProductCandidates(
+                        requestTime, category == null ? null : category.name()));
+    PromotedProductCandidate selected = null;
+    for (PromotedProductCandidate candidate : candidates) {
+      if (selected == null || !candidate.getFallback()) {
+        selected = candidate;
       }
     }
+    LOGGER.debug("Selected promoted product candidate: {}", selected);
+    return Optional.ofNullable(selected);
   }
 
   /**
-   * Finds an active campaign based on the provided category and current time. If no active
-   * campaigns are found, a {@link NoSuchElementException} is thrown.
+   * Retrieves all campaigns that are active at, or start after, the specified time, without their
+   * products. See {@link #getProductIdsOfActiveAndUpcomingCampaigns(Instant)}.
    *
-   * @param category The category to filter campaigns, or null to fetch campaigns without category
-   *     constraint.
-   * @return The active campaign with the highest bid for the specified category.
-   * @throws NoSuchElementException if no active campaigns are found for the given category.
+   * @param requestTime The timestamp to evaluate the campaigns' active period against.
+   * @return A list of active and upcoming campaigns.
    */
   @Transactional(readOnly = true)
-  public Campaign findActiveCampaignWithHighestBid(Category category)
-      throws NoSuchElementException {
-    return findActiveCampaignWithHighestBid(category, Instant.now());
+  public List<Campaign> getActiveAndUpcomingCampaigns(Instant requestTime) {
+    LOGGER.debug("Retrieving active and upcoming campaigns at time: {}", requestTime);
+    return campaignRepository.findAllEndingAfter(requestTime);
   }
 
   /**
-   * Finds an active campaign based on the provided category and specified request time. If no
-   * active campaign is found, a {@link NoSuchElementException} is thrown.
+   * Retrieves the campaigns with the given IDs together with their products. Campaigns that don't
+   * exist are not included.
    *
-   * @param category The category to filter campaigns, or null to fetch campaigns without category
-   *     constraint.
-   * @param requestTime The timestamp when the request was made.
-   * @return The active campaign with the highest bid for the specified category.
-   * @throws NoSuchElementException if no active campaigns are found for the given category and
-   *     time.
+   * @param campaignIds The IDs of the campaigns.
+   * @return The campaigns, with their products loaded.
    */
   @Transactional(readOnly = true)
-  public Campaign findActiveCampaignWithHighestBid(Category category, Instant requestTime)
-      throws NoSuchElementException {
-    LOGGER.debug("Finding active campaign for category: {} at time: {}", category, requestTime);
-    final Instant tenDaysAgo = requestTime.minus(Duration.ofDays(10));
-    final PageRequest pageRequest = PageRequest.of(0, 1);
-
-    final List<Campaign> activeCampaigns =
-        campaignRepository
-            .findAllActiveCampaignsByCategoryOrderedByBid(
-                requestTime, tenDaysAgo, category, pageRequest)
-            .getContent();
+  public List<Campaign> getCampaignsWithProducts(Collection<Long> campaignIds) {
+    LOGGER.debug("Retrieving {} campaigns with products", campaignIds.size());
+    return campaignRepository.findAllWithProductsById(campaignIds);
+  }
 
-    if (activeCampaigns.isEmpty()) {
-      LOGGER.debug("No active campaigns found for category: {}", category);
-      throw new NoSuchElementException("No active campaigns found");
-    }
-    final Campaign campaign = activeCampaigns.get(0);
-    LOGGER.debug("Active campaign found: {}", campaign);
-    return campaign;
+  /**
+   * Retrieves the IDs of the products of all campaigns that are active at, or start after, the
+   * specified time. Campaigns without products are not included.
+   *
+   * @param requestTime The timestamp to evaluate the campaigns' active period against.
+   * @return The product IDs of every campaign, by campaign ID.
+   */
+  @Transactional(readOnly = true)
+  public Map<Long, long[]> getProductIdsOfActiveAndUpcomingCampaigns(Instant requestTime) {
+    LOGGER.debug(
+        "Retrieving product IDs of active and upcoming campaigns at time: {}", requestTime);
+    return campaignRepository.findAllProductIdsOfCampaignsEndingAfter(requestTime).stream()
+        .collect(
+            Collectors.groupingBy(
+                CampaignProductId::campaignId,
+                Collectors.collectingAndThen(
+                    Collectors.toList(),
+                    rows -> rows.stream().mapToLong(CampaignProductId::productId).toArray())));
   }
 
   /**
@@ -204,13 +306,4 @@ public class CampaignService {
     LOGGER.debug("Persisting multiple campaigns: {}", campaigns);
     return campaignRepository.saveAll(campaigns);
   }
-
-  public boolean hasProductsWithCategory(Campaign campaign, Category category) {
-    for (Product product : campaign.getProducts()) {
-      if (product.getCategory().equals(category)) {
-        return true;
-      }
-    }
-    return false;
-  }
 }
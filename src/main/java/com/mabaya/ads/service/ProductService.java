@@ -4,12 +4,14 @@ import com.mabaya.ads.dto.ProductDTO;
 import com.mabaya.ads.model.Category;
 import com.mabaya.ads.model.Product;
 import com.mabaya.ads.repository.ProductRepository;
+import com.mabaya.ads.service.index.ProductCatalog;
 import com.mabaya.ads.service.mapping.IMapper;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,6 +35,10 @@ public class ProductService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ProductService.class);
 
+  private static final int CATALOG_BATCH_SIZE = 10_000;
+  // Keeps the IN list well below the bind parameter limit of the driver
+  private static final int LOOKUP_BATCH_SIZE = 10_000;
+
   private final ProductRepository productRepository;
   private final IMapper<Product, ProductDTO> productMapper;
 
@@ -72,6 +78,27 @@ public class ProductService {
     return products;
   }
 
+  /**
+   * Fetches the products with the given IDs in as few queries as possible, without failing for
+   * missing IDs.
+   *
+   * @param productIds The distinct IDs of the products to fetch.
+   * @return The existing products, by ID.
+   */
+  @Transactional(readOnly = true)
+  public Map<Long, Product> getProductsById(Collection<Long> productIds) {
+    LOGGER.debug("Fetching {} products by ID", productIds.size());
+    final List<Long> ids = List.copyOf(productIds);
+    final Map<Long, Product> products = new HashMap<>(ids.size() * 2);
+    for (int from = 0; from < ids.size(); from += LOOKUP_BATCH_SIZE) {
+      final List<Long> batch = ids.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, ids.size()));
+      productRepository
+          .findAllById(batch)
+          .forEach(product -> products.put(product.getId(), product));
+    }
+    return products;
+  }
+
   /**
    * Counts the total number of products available in the repository.
    *
@@ -124,14 +151,48 @@ public class ProductService {
    * @throws NoSuchElementException if no product matching the criteria is found.
    */
   public Product getProductWithHighestPrice(Collection<Product> products, Category category) {
-    return products.stream()
-        // Filter only if category is not null
-        .filter(product -> category == null || product.getCategory().equals(category))
-        // Find product with the maximum price
-        .max(Comparator.comparing(Product::getPrice))
-        // Throw an exception if no product is found
-        .orElseThrow(
-            () -> new NoSuchElementException("No product found for the specified criteria"));
+    // Compares prices in micros, see Micros, so finding the maximum neither allocates nor compares
+    // BigDecimals. The first of equally priced products wins.
+    Product productWithHighestPrice = null;
+    for (Product product : products) {
+      // Filter only if category is not null
+      if ((category == null || product.getCategory() == category)
+          && (productWithHighestPrice == null
+              || product.getPriceMicros() > productWithHighestPrice.getPriceMicros())) {
+        productWithHighestPrice = product;
+      }
+    }
+    if (productWithHighestPrice == null) {
+      throw new NoSuchElementException("No product found for the specified criteria");
+    }
+    return productWithHighestPrice;
+  }
+
+  /**
+   * Loads all products into a {@link ProductCatalog}. Products are read in ID order and in batches,
+   * each in its own persistence context, so the loaded entities don't accumulate.
+   *
+   * @return The product catalog.
+   */
+  public ProductCatalog loadCatalog() {
+    LOGGER.info("Loading product catalog");
+    final ProductCatalog.Builder builder = ProductCatalog.builder((int) productRepository.count());
+    long lastId = 0;
+    List<Product> batch;
+    do {
+      batch =
+          productRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(CATALOG_BATCH_SIZE));
+      batch.forEach(builder::add);
+      if (!batch.isEmpty()) {
+        lastId = batch.get(batch.size() - 1).getId();
+      }
+    } while (batch.size() == CATALOG_BATCH_SIZE);
+    final ProductCatalog catalog = builder.build();
+    LOGGER.info(
+        "Loaded product catalog of {} products, {} bytes off-heap",
+        catalog.size(),
+        catalog.offHeapBytes());
+    return catalog;
   }
 
   /**
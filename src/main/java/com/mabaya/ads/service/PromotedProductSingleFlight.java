@@ -0,0 +1,166 @@
+package com.mabaya.ads.service;
+
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.repository.PromotedProductCandidate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Coalesces concurrent selections of the promoted product of the same category, see {@link
+ * CampaignService#findPromotedProduct(Category)}. While the ad index is loading, e.g. at startup,
+ * every request is served from the database, and a burst of requests for the same category would
+ * otherwise run the same query at the same moment.
+ *
+ * <p>Callers for the same category within the same time bucket of {@code
+ * ads.serving.single-flight.bucket} share a single query: the first one runs it and the others wait
+ * for its {@link CompletableFuture}. A new bucket starts a new query, so a selection is never older
+ * than a bucket plus the query time. Waiting callers wait for at most {@code
+ * ads.serving.single-flight.max-wait}, then are served the last selection of their category, if it
+ * is not older than {@code ads.serving.single-flight.max-stale}, or fail with 503 otherwise.
+ * Failures of the query are rethrown to every caller sharing it.
+ *
+ * <p>Counts every call in {@code ads.serve.single.flight}, tagged by its result, see {@link
+ * Result}. The coalescing ratio is the share of calls that didn't query the database themselves.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdService
+ */
+@Component
+public class PromotedProductSingleFlight {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PromotedProductSingleFlight.class);
+
+  /** The result of a call. */
+  public enum Result {
+    /** Queried the database for the callers of its category and bucket. */
+    LEADER,
+    /** Served the result of the query of another caller. */
+    COALESCED,
+    /** Served the last selection after the query of another caller took too long. */
+    STALE,
+    /** Failed after the query of another caller took too long, without a recent selection. */
+    UNAVAILABLE
+  }
+
+  private record Flight(Category category, long bucket) {}
+
+  private record Selection(Optional<PromotedProductCandidate> candidate, long selectedAtNanos) {}
+
+  private final CampaignService campaignService;
+  private final long bucketMillis;
+  private final long maxWaitNanos;
+  private final long maxStaleNanos;
+  private final ConcurrentMap<Flight, CompletableFuture<Optional<PromotedProductCandidate>>>
+      flights = new ConcurrentHashMap<>();
+  // The last selection of every category, and of no category at the end
+  private final AtomicReferenceArray<Selection> lastSelections =
+      new AtomicReferenceArray<>(Category.values().length + 1);
+  private final Counter[] resultCounters = new Counter[Result.values().length];
+
+  @Autowired
+  public PromotedProductSingleFlight(
+      CampaignService campaignService,
+      MeterRegistry meterRegistry,
+      @Value("${ads.serving.single-flight.bucket:1s}") Duration bucket,
+      @Value("${ads.serving.single-flight.max-wait:500ms}") Duration maxWait,
+      @Value("${ads.serving.single-flight.max-stale:30s}") Duration maxStale) {
+    this.campaignService = campaignService;
+    this.bucketMillis = bucket.toMillis();
+    this.maxWaitNanos = maxWait.toNanos();
+    this.maxStaleNanos = maxStale.toNanos();
+    for (Result result : Result.values()) {
+      resultCounters[result.ordinal()] =
+          Counter.builder("ads.serve.single.flight")
+              .description("Selections of the promoted product from the database per result")
+              .tag("result", result.name().toLowerCase())
+              .register(meterRegistry);
+    }
+  }
+
+  /**
+   * Selects the product to promote for a given category like {@link
+   * CampaignService#findPromotedProduct(Category)}, sharing the query with concurrent callers.
+   *
+   * @param category The category to select a product for, or null to ignore the category.
+   * @return The selected candidate, or empty if there is no active campaign with products.
+   * @throws ResponseStatusException with SERVICE_UNAVAILABLE if the shared query took longer than
+   *     the max wait and there is no recent selection to serve instead.
+   */
+  public Optional<PromotedProductCandidate> findPromotedProduct(Category category) {
+    final Flight flight = new Flight(category, System.currentTimeMillis() / bucketMillis);
+    final CompletableFuture<Optional<PromotedProductCandidate>> future = new CompletableFuture<>();
+    final CompletableFuture<Optional<PromotedProductCandidate>> inFlight =
+        flights.putIfAbsent(flight, future);
+    if (inFlight == null) {
+      return lead(flight, future);
+    }
+    return follow(category, inFlight);
+  }
+
+  private Optional<PromotedProductCandidate> lead(
+      Flight flight, CompletableFuture<Optional<PromotedProductCandidate>> future) {
+    resultCounters[Result.LEADER.ordinal()].increment();
+    try {
+      final Optional<PromotedProductCandidate> candidate =
+          campaignService.findPromotedProduct(flight.category());
+      lastSelections.set(index(flight.category()), new Selection(candidate, System.nanoTime()));
+      future.complete(candidate);
+      return candidate;
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      flights.remove(flight, future);
+    }
+  }
+
+  private Optional<PromotedProductCandidate> follow(
+      Category category, CompletableFuture<Optional<PromotedProductCandidate>> inFlight) {
+    try {
+      final Optional<PromotedProductCandidate> candidate =
+          inFlight.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+      resultCounters[Result.COALESCED.ordinal()].increment();
+      return candidate;
+    } catch (TimeoutException e) {
+      final Selection lastSelection = lastSelections.get(index(category));
+      if (lastSelection != null
+          && System.nanoTime() - lastSelection.selectedAtNanos() <= maxStaleNanos) {
+        LOGGER.debug("Promoted product query for {} is slow, serving the last selection", category);
+        resultCounters[Result.STALE.ordinal()].increment();
+        return lastSelection.candidate();
+      }
+      resultCounters[Result.UNAVAILABLE.ordinal()].increment();
+      throw new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "Promoted product query is slow, retry later");
+    } catch (ExecutionException e) {
+      resultCounters[Result.COALESCED.ordinal()].increment();
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Promoted product query failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the promoted product", e);
+    }
+  }
+
+  private static int index(Category category) {
+    return category == null ? Category.values().length : category.ordinal();
+  }
+}
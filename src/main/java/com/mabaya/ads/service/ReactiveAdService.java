@@ -0,0 +1,79 @@
+package com.mabaya.ads.service;
+
+import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.repository.ReactiveCampaignRepository;
+import com.mabaya.ads.service.AdServingMetrics.Outcome;
+import com.mabaya.ads.service.AdServingMetrics.Source;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.util.NoSuchElementException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link CampaignService#findPromotedProduct(Category)}: serves the
+ * same ad, selected by the same query, see {@link ReactiveCampaignRepository}, without blocking a
+ * thread while the query runs.
+ *
+ * <p>Serves are metered like the blocking ones, with the {@code reactive} source, see {@link
+ * AdServingMetrics}.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdService
+ */
+@Service
+public class ReactiveAdService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveAdService.class);
+
+  private final ReactiveCampaignRepository campaignRepository;
+  private final ProductService productService;
+  private final AdServingMetrics metrics;
+
+  @Autowired
+  public ReactiveAdService(
+      ReactiveCampaignRepository campaignRepository,
+      ProductService productService,
+      AdServingMetrics metrics) {
+    this.campaignRepository = campaignRepository;
+    this.productService = productService;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Retrieves the promoted product with the highest bid for the given category, falling back to the
+   * highest bid campaign overall if no active campaign promotes the category.
+   *
+   * @param category The category of products for which to serve an ad.
+   * @return A {@link Mono} of the {@link ProductDTO} to be served as an ad, failing with a {@link
+   *     NoSuchElementException} if no active campaign or suitable product is found.
+   */
+  public Mono<ProductDTO> getPromotedProduct(Category category) {
+    return Mono.defer(
+        () -> {
+          LOGGER.debug("Selecting promoted product for category: {}", category);
+          final Timer.Sample sample = Timer.start();
+          return campaignRepository
+              .findPromotedProductCandidates(Instant.now(), category.name())
+              // Prefers the in-category candidate over the fallback
+              .reduce((selected, candidate) -> selected.getFallback() ? candidate : selected)
+              .map(
+                  candidate -> {
+                    metrics.recordOutcome(
+                        category, candidate.getFallback() ? Outcome.FALLBACK : Outcome.HIT);
+                    return productService.getDTO(candidate.toProduct());
+                  })
+              .switchIfEmpty(
+                  Mono.defer(
+                      () -> {
+                        metrics.recordOutcome(category, Outcome.MISS);
+                        return Mono.error(new NoSuchElementException("No active campaigns found"));
+                      }))
+              .doFinally(signal -> sample.stop(metrics.serve(Source.REACTIVE)));
+        });
+  }
+}
@@ -0,0 +1,15 @@
+package com.mabaya.ads.service;
+
+import com.mabaya.ads.service.AdServingMetrics.Outcome;
+import com.mabaya.ads.service.index.ServedAd;
+
+/**
+ * An ad selected from the database, together with the outcome of its selection, so that every serve
+ * of a cached ad is counted like the selection it came from, see {@link
+ * StaleWhileRevalidateAdCache}.
+ *
+ * @param ad The ad to serve.
+ * @param outcome Whether the ad is of a campaign promoting the requested category, or a fallback.
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public record SelectedAd(ServedAd ad, Outcome outcome) {}
@@ -0,0 +1,196 @@
+package com.mabaya.ads.service;
+
+import com.mabaya.ads.model.Category;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches the ad served for every category from the database, see {@link
+ * AdService#getPromotedProductWithHighestBid(Category)}, trading staleness for not waiting on the
+ * database. Ads served from the ad index are not cached, they don't touch the database. The outcome
+ * of the selection is cached with the ad, see {@link SelectedAd}.
+ *
+ * <p>Every cached ad has a soft TTL, {@code ads.serving.cache.soft-ttl}, and a hard TTL, {@code
+ * ads.serving.cache.hard-ttl}, which is the staleness budget:
+ *
+ * <ul>
+ *   <li>Before the soft TTL, the cached ad is served.
+ *   <li>Between the soft and the hard TTL, the cached ad is still served, and refreshed on a
+ *       dedicated executor of {@code ads.serving.cache.refresh-threads} threads, a single refresh
+ *       per category at a time. If the refresh fails, e.g. with a {@link
+ *       java.util.NoSuchElementException} caused by a transient database issue, the last known ad
+ *       keeps being served, and the refresh is retried by the first request a soft TTL later.
+ *   <li>After the hard TTL, or without a cached ad, the ad is loaded by the caller, whose failures
+ *       are not cached.
+ * </ul>
+ *
+ * <p>Publishes the age of every served ad ({@code ads.serve.cache.staleness}), the requests by
+ * whether the ad was fresh, stale or loaded ({@code ads.serve.cache.requests}) and the refreshes by
+ * result ({@code ads.serve.cache.refreshes}).
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdService
+ */
+@Component
+public class StaleWhileRevalidateAdCache implements DisposableBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StaleWhileRevalidateAdCache.class);
+
+  /** Whether a request was served from the cache. */
+  public enum Result {
+    /** Served a cached ad younger than the soft TTL. */
+    FRESH,
+    /** Served a cached ad older than the soft TTL, and refreshed it in the background. */
+    STALE,
+    /** Loaded the ad, none being cached or the cached one being older than the hard TTL. */
+    LOADED
+  }
+
+  private record Entry(
+      SelectedAd ad, long loadedAtNanos, AtomicLong nextRefreshNanos, AtomicBoolean refreshing) {
+
+    static Entry loaded(SelectedAd ad, long softTtlNanos) {
+      final long now = System.nanoTime();
+      return new Entry(ad, now, new AtomicLong(now + softTtlNanos), new AtomicBoolean());
+    }
+  }
+
+  private final boolean enabled;
+  private final long softTtlNanos;
+  private final long hardTtlNanos;
+  private final ExecutorService refreshExecutor;
+  // The cached ad of every category, and of no category at the end
+  private final AtomicReferenceArray<Entry> entries =
+      new AtomicReferenceArray<>(Category.values().length + 1);
+
+  private final Timer staleness;
+  private final Counter[] resultCounters = new Counter[Result.values().length];
+  private final Counter refreshes;
+  private final Counter refreshFailures;
+
+  @Autowired
+  public StaleWhileRevalidateAdCache(
+      MeterRegistry meterRegistry,
+      @Value("${ads.serving.cache.enabled:true}") boolean enabled,
+      @Value("${ads.serving.cache.soft-ttl:1s}") Duration softTtl,
+      @Value("${ads.serving.cache.hard-ttl:30s}") Duration hardTtl,
+      @Value("${ads.serving.cache.refresh-threads:2}") int refreshThreads) {
+    this.enabled = enabled;
+    this.softTtlNanos = softTtl.toNanos();
+    this.hardTtlNanos = hardTtl.toNanos();
+
+    final CustomizableThreadFactory threadFactory =
+        new CustomizableThreadFactory("ad-cache-refresh-");
+    threadFactory.setDaemon(true);
+    this.refreshExecutor = Executors.newFixedThreadPool(refreshThreads, threadFactory);
+
+    this.staleness =
+        Timer.builder("ads.serve.cache.staleness")
+            .description("Age of the ads served from the database cache")
+            .register(meterRegistry);
+    for (Result result : Result.values()) {
+      resultCounters[result.ordinal()] =
+          Counter.builder("ads.serve.cache.requests")
+              .description("Requests served from the database, by cache result")
+              .tag("result", result.name().toLowerCase())
+              .register(meterRegistry);
+    }
+    this.refreshes =
+        Counter.builder("ads.serve.cache.refreshes")
+            .description("Background refreshes of cached ads")
+            .tag("result", "success")
+            .register(meterRegistry);
+    this.refreshFailures =
+        Counter.builder("ads.serve.cache.refreshes")
+            .description("Background refreshes of cached ads")
+            .tag("result", "failure")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Returns the cached ad of the given category, loading it if it is not cached or older than the
+   * hard TTL, and refreshing it in the background if it is older than the soft TTL.
+   *
+   * @param category The category of the ad, or null for no category.
+   * @param loader Loads the ad of a category from the database.
+   * @return The ad to serve.
+   * @throws RuntimeException Any exception of the loader, if the ad had to be loaded.
+   */
+  public SelectedAd get(Category category, Function<Category, SelectedAd> loader) {
+    if (!enabled) {
+      return loader.apply(category);
+    }
+    final Entry entry = entries.get(index(category));
+    if (entry != null) {
+      final long age = System.nanoTime() - entry.loadedAtNanos();
+      if (age <= hardTtlNanos) {
+        if (age > softTtlNanos) {
+          resultCounters[Result.STALE.ordinal()].increment();
+          refreshInBackground(category, entry, loader);
+        } else {
+          resultCounters[Result.FRESH.ordinal()].increment();
+        }
+        staleness.record(age, TimeUnit.NANOSECONDS);
+        return entry.ad();
+      }
+    }
+    resultCounters[Result.LOADED.ordinal()].increment();
+    final SelectedAd ad = loader.apply(category);
+    entries.set(index(category), Entry.loaded(ad, softTtlNanos));
+    staleness.record(0, TimeUnit.NANOSECONDS);
+    return ad;
+  }
+
+  private void refreshInBackground(
+      Category category, Entry entry, Function<Category, SelectedAd> loader) {
+    if (System.nanoTime() - entry.nextRefreshNanos().get() < 0
+        || !entry.refreshing().compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      refreshExecutor.execute(() -> refresh(category, entry, loader));
+    } catch (RejectedExecutionException e) {
+      entry.refreshing().set(false);
+    }
+  }
+
+  private void refresh(Category category, Entry entry, Function<Category, SelectedAd> loader) {
+    try {
+      entries.set(index(category), Entry.loaded(loader.apply(category), softTtlNanos));
+      refreshes.increment();
+    } catch (RuntimeException e) {
+      LOGGER.warn(
+          "Failed to refresh the ad of {}, serving the last known one: {}", category, e.toString());
+      refreshFailures.increment();
+      // Backs off for a soft TTL rather than retrying on every request
+      entry.nextRefreshNanos().set(System.nanoTime() + softTtlNanos);
+      entry.refreshing().set(false);
+    }
+  }
+
+  private static int index(Category category) {
+    return category == null ? Category.values().length : category.ordinal();
+  }
+
+  @Override
+  public void destroy() {
+    refreshExecutor.shutdownNow();
+  }
+}
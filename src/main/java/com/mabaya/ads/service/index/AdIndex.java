@@ -0,0 +1,363 @@
+package com.mabaya.ads.service.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import java.util.*;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process ad-selection index. Keeps, for every {@link Category}, the currently active campaigns
+ * ordered by bid together with the highest priced product of each campaign, so that serving an ad
+ * is a memory read instead of a database round trip.
+ *
+ * <p>The index only holds active campaigns and never evaluates dates itself: campaigns are moved in
+ * and out of it by the {@link CampaignActivationScheduler} at the exact moment they start and end.
+ * Until the scheduler loads it, {@link #isReady()} returns false and callers are expected to fall
+ * back to the database.
+ *
+ * <p>When loading, campaigns are indexed from the columnar {@link ProductCatalog} rather than from
+ * product entities, by the rows of their products. Campaigns tracked incrementally are indexed from
+ * their entities, through a catalog of their own products. Either way, only the top product of
+ * every category is kept as a DTO, pre-serialized.
+ *
+ * <p>The ranked sets are only touched by writers, which are serialized. After every change the
+ * writer recomputes the {@link WinnerTable} and publishes it with a single volatile write, so
+ * readers never lock, never allocate and always see a consistent answer for all categories. Readers
+ * that need more than the winners take a {@link RankedCampaigns} snapshot, which is copied from the
+ * ranked sets on the first read after a change and shared until the next one.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see IndexedCampaign
+ * @see WinnerTable
+ * @see RankedCampaigns
+ * @see ProductCatalog
+ * @see CampaignActivationScheduler
+ */
+@Component
+public class AdIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdIndex.class);
+
+  private static final Comparator<IndexedCampaign> BY_BID_DESCENDING =
+      Comparator.comparingLong(IndexedCampaign::bidMicros)
+          .reversed()
+          .thenComparingLong(IndexedCampaign::id);
+
+  private static final Category[] CATEGORIES = Category.values();
+
+  private final ObjectMapper objectMapper;
+
+  // Guarded by writeLock
+  private final Map<Long, IndexedCampaign> campaignsById = new HashMap<>();
+  private final NavigableSet<IndexedCampaign> allCampaigns = new TreeSet<>(BY_BID_DESCENDING);
+  private final List<NavigableSet<IndexedCampaign>> campaignsByCategory;
+  private final Object writeLock = new Object();
+
+  private volatile WinnerTable winnerTable = WinnerTable.EMPTY;
+  // Null once stale, until taken again
+  private volatile RankedCampaigns rankedCampaigns = RankedCampaigns.EMPTY;
+  private volatile ProductCatalog catalog = ProductCatalog.EMPTY;
+  private volatile boolean ready;
+
+  @Autowired
+  public AdIndex(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    final List<NavigableSet<IndexedCampaign>> byCategory = new ArrayList<>();
+    for (int i = 0; i < Category.values().length; i++) {
+      byCategory.add(new TreeSet<>(BY_BID_DESCENDING));
+    }
+    this.campaignsByCategory = List.copyOf(byCategory);
+  }
+
+  /**
+   * Indicates whether the index is loaded and can be used to serve ads.
+   *
+   * @return true if the index is loaded.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Returns the winner for the given category. Mirrors {@link
+   * com.mabaya.ads.service.CampaignService#findPromotedProduct(Category)}: the active campaign with
+   * the highest bid that promotes products of the category wins with its highest priced product of
+   * that category. If no such campaign exists, the active campaign with the highest bid overall
+   * wins with its highest priced product. Among campaigns with an equal bid, the one with the
+   * highest priced product wins, then the one with the lowest ID, like the top pair of {@link
+   * RankedCampaigns#top(Category, int)}.
+   *
+   * @param category The category to serve an ad for, or null to ignore the category.
+   * @return The winner, or null if there is no active campaign at all.
+   */
+  public WinnerTable.Winner getWinner(Category category) {
+    return winnerTable.winnerFor(category);
+  }
+
+  /**
+   * Returns the currently published winner table.
+   *
+   * @return The winner table.
+   */
+  public WinnerTable getWinnerTable() {
+    return winnerTable;
+  }
+
+  /**
+   * Returns a snapshot of the active campaigns in bid order. The snapshot is taken on the first
+   * call after the active set changed, later calls share it.
+   *
+   * @return The ranked campaigns.
+   */
+  public RankedCampaigns getRankedCampaigns() {
+    final RankedCampaigns ranked = rankedCampaigns;
+    if (ranked != null) {
+      return ranked;
+    }
+    synchronized (writeLock) {
+      if (rankedCampaigns == null) {
+        rankedCampaigns = RankedCampaigns.of(allCampaigns, campaignsByCategory);
+      }
+      return rankedCampaigns;
+    }
+  }
+
+  /**
+   * Adds the given campaign to the active set, replacing any previous version of it.
+   *
+   * @param campaign The campaign that became active.
+   */
+  public void activate(IndexedCampaign campaign) {
+    synchronized (writeLock) {
+      removeById(campaign.id());
+      add(campaign);
+      publishWinnerTable();
+    }
+  }
+
+  /**
+   * Removes the campaign with the given ID from the active set, if present.
+   *
+   * @param campaignId The ID of the campaign that is no longer active.
+   */
+  public void deactivate(long campaignId) {
+    synchronized (writeLock) {
+      if (removeById(campaignId)) {
+        publishWinnerTable();
+      }
+    }
+  }
+
+  /**
+   * Replaces the whole active set and marks the index as ready.
+   *
+   * @param activeCampaigns The currently active campaigns.
+   */
+  public void replaceAll(Collection<IndexedCampaign> activeCampaigns) {
+    synchronized (writeLock) {
+      clear();
+      activeCampaigns.forEach(this::add);
+      publishWinnerTable();
+      ready = true;
+    }
+  }
+
+  /**
+   * Returns the number of active campaigns.
+   *
+   * @return The number of active campaigns.
+   */
+  public int size() {
+    synchronized (writeLock) {
+      return campaignsById.size();
+    }
+  }
+
+  /**
+   * Replaces the product catalog campaigns are indexed from.
+   *
+   * @param catalog The loaded product catalog.
+   */
+  public void replaceCatalog(ProductCatalog catalog) {
+    this.catalog = catalog;
+  }
+
+  /**
+   * Returns the product catalog campaigns are indexed from.
+   *
+   * @return The product catalog, empty until loaded.
+   */
+  public ProductCatalog getCatalog() {
+    return catalog;
+  }
+
+  /**
+   * Creates the serving-side snapshot of the given campaign from the {@link ProductCatalog},
+   * without touching product entities. Products missing from the catalog are ignored.
+   *
+   * @param campaign The campaign, its products are not accessed.
+   * @param productIds The IDs of the campaign's products.
+   * @return The indexed campaign, or null if none of the products is in the catalog.
+   */
+  public IndexedCampaign toIndexedCampaign(Campaign campaign, long[] productIds) {
+    final ProductCatalog productCatalog = catalog;
+    final int[] rows = new int[productIds.length];
+    int size = 0;
+    for (long productId : productIds) {
+      final int row = productCatalog.rowOf(productId);
+      if (row < 0) {
+        LOGGER.warn("Product {} of campaign {} is not in the catalog", productId, campaign.getId());
+        continue;
+      }
+      rows[size++] = row;
+    }
+    return toIndexedCampaign(campaign, productCatalog, Arrays.copyOf(rows, size));
+  }
+
+  /**
+   * Creates the serving-side snapshot of the given campaign from its product entities, which may
+   * not be in the {@link ProductCatalog} yet, e.g. products of a campaign created since it was
+   * loaded. The products are copied into a catalog of their own.
+   *
+   * @param campaign The campaign, with its products accessible.
+   * @return The indexed campaign, or null if the campaign has no products and cannot be served.
+   */
+  public IndexedCampaign toIndexedCampaign(Campaign campaign) {
+    final Collection<Product> products = campaign.getProducts();
+    if (products == null || products.isEmpty()) {
+      return null;
+    }
+    final List<Product> productsById = new ArrayList<>(products);
+    productsById.sort(Comparator.comparing(Product::getId));
+    final ProductCatalog.Builder builder = ProductCatalog.builder(productsById.size());
+    Long previousId = null;
+    for (Product product : productsById) {
+      if (!product.getId().equals(previousId)) {
+        builder.add(product);
+        previousId = product.getId();
+      }
+    }
+    final ProductCatalog campaignCatalog = builder.build();
+    return toIndexedCampaign(
+        campaign, campaignCatalog, IntStream.range(0, campaignCatalog.size()).toArray());
+  }
+
+  // Sorts the rows by price and serializes the top product of every category once, so that serving
+  // it doesn't. The other products stay rows until ranked
+  private IndexedCampaign toIndexedCampaign(
+      Campaign campaign, ProductCatalog productCatalog, int[] rows) {
+    if (rows.length == 0) {
+      return null;
+    }
+    final int[] rowsByPrice =
+        IntStream.of(rows)
+            .boxed()
+            .sorted(
+                (row, other) -> {
+                  final int comparison =
+                      Long.compare(
+                          productCatalog.priceMicros(other), productCatalog.priceMicros(row));
+                  return comparison != 0
+                      ? comparison
+                      : Long.compare(productCatalog.id(row), productCatalog.id(other));
+                })
+            .mapToInt(Integer::intValue)
+            .toArray();
+    final int[] counts = new int[CATEGORIES.length];
+    for (int row : rowsByPrice) {
+      counts[productCatalog.category(row).ordinal()]++;
+    }
+    final Map<Category, int[]> rowsByCategory = new EnumMap<>(Category.class);
+    final Map<Category, ServedAd> servedAdByCategory = new EnumMap<>(Category.class);
+    for (Category category : CATEGORIES) {
+      if (counts[category.ordinal()] == 0) {
+        continue;
+      }
+      final int[] categoryRows = new int[counts[category.ordinal()]];
+      int filled = 0;
+      for (int row : rowsByPrice) {
+        if (productCatalog.category(row) == category) {
+          categoryRows[filled++] = row;
+        }
+      }
+      rowsByCategory.put(category, categoryRows);
+      servedAdByCategory.put(
+          category, ServedAd.of(productCatalog.toDTO(categoryRows[0]), objectMapper));
+    }
+    return new IndexedCampaign(
+        campaign.getId(),
+        campaign.getBidMicros(),
+        campaign.getStartDate(),
+        campaign.getEndDate(),
+        servedAdByCategory.get(productCatalog.category(rowsByPrice[0])),
+        Collections.unmodifiableMap(servedAdByCategory),
+        productCatalog,
+        rowsByPrice,
+        Collections.unmodifiableMap(rowsByCategory));
+  }
+
+  private void add(IndexedCampaign campaign) {
+    campaignsById.put(campaign.id(), campaign);
+    allCampaigns.add(campaign);
+    campaign
+        .topProductByCategory()
+        .keySet()
+        .forEach(category -> campaignsByCategory.get(category.ordinal()).add(campaign));
+  }
+
+  private boolean removeById(long campaignId) {
+    final IndexedCampaign campaign = campaignsById.remove(campaignId);
+    if (campaign == null) {
+      return false;
+    }
+    allCampaigns.remove(campaign);
+    campaignsByCategory.forEach(rankedCampaigns -> rankedCampaigns.remove(campaign));
+    return true;
+  }
+
+  private void publishWinnerTable() {
+    final IndexedCampaign[] categoryWinners = new IndexedCampaign[CATEGORIES.length];
+    for (Category category : CATEGORIES) {
+      categoryWinners[category.ordinal()] =
+          winner(
+              campaignsByCategory.get(category.ordinal()),
+              campaign -> campaign.topPriceMicrosIn(category));
+    }
+    winnerTable =
+        WinnerTable.of(categoryWinners, winner(allCampaigns, IndexedCampaign::topPriceMicros));
+    rankedCampaigns = null;
+  }
+
+  // The campaign of the highest bid with the highest priced top product, ties broken by the lowest
+  // ID, which comes first in bid order
+  private static IndexedCampaign winner(
+      NavigableSet<IndexedCampaign> rankedCampaigns,
+      ToLongFunction<IndexedCampaign> topPriceMicros) {
+    IndexedCampaign winner = null;
+    long winnerPriceMicros = 0;
+    for (IndexedCampaign campaign : rankedCampaigns) {
+      if (winner != null && campaign.bidMicros() != winner.bidMicros()) {
+        break;
+      }
+      final long priceMicros = topPriceMicros.applyAsLong(campaign);
+      if (winner == null || priceMicros > winnerPriceMicros) {
+        winner = campaign;
+        winnerPriceMicros = priceMicros;
+      }
+    }
+    return winner;
+  }
+
+  private void clear() {
+    campaignsById.clear();
+    allCampaigns.clear();
+    campaignsByCategory.forEach(Set::clear);
+  }
+}
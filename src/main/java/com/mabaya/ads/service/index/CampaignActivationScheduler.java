@@ -0,0 +1,397 @@
+package com.mabaya.ads.service.index;
+
+import com.mabaya.ads.datasource.DataSourceRouting;
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.service.CampaignService;
+import com.mabaya.ads.service.ProductService;
+import com.mabaya.ads.utils.InitialDataGeneratedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drives the active set of the {@link AdIndex}. Every tracked campaign has exactly one pending
+ * transition event: an activation at its start date or, once active, an expiry at its end date.
+ * Events are kept in the priority queue of a single-threaded {@link ScheduledThreadPoolExecutor},
+ * so the active set changes at the moment a campaign starts or ends and serving never evaluates
+ * date predicates.
+ *
+ * <p>Campaigns are loaded once the application is ready and are then tracked incrementally through
+ * {@link CampaignIndexListener}, after the writing transaction commits. The lock guarding the
+ * tracked campaigns is only held to apply changes, never while reading the database, so a
+ * committing writer doesn't wait for a load to finish, and no carrier thread is pinned by JDBC in
+ * virtual-thread mode.
+ *
+ * <p>Publishes the number of pending events ({@code ads.campaign.scheduler.pending.events}), the
+ * number of transitions ({@code ads.campaign.scheduler.transitions}) and the delay between the
+ * moment a transition was due and the moment it was applied ({@code
+ * ads.campaign.scheduler.transition.lag}).
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdIndex
+ * @see CampaignIndexListener
+ */
+@Component
+public class CampaignActivationScheduler implements DisposableBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CampaignActivationScheduler.class);
+
+  private static final long[] NO_PRODUCT_IDS = new long[0];
+
+  private final CampaignService campaignService;
+  private final ProductService productService;
+  private final AdIndex adIndex;
+  private final boolean enabled;
+  private final ScheduledThreadPoolExecutor executor;
+  private final ReentrantLock lock = new ReentrantLock();
+  // Serializes loads, without blocking incremental updates
+  private final ReentrantLock loadLock = new ReentrantLock();
+  // Guarded by lock
+  private final Map<Long, TrackedCampaign> trackedCampaigns = new HashMap<>();
+  // Incremental updates tracked while loading, replayed on top of the load. Guarded by lock, null
+  // unless loading
+  private List<Runnable> updatesWhileLoading;
+
+  private final Timer transitionLag;
+  private final Counter activations;
+  private final Counter expirations;
+
+  @Autowired
+  public CampaignActivationScheduler(
+      CampaignService campaignService,
+      ProductService productService,
+      AdIndex adIndex,
+      MeterRegistry meterRegistry,
+      @Value("${ads.serving.index.enabled:true}") boolean enabled) {
+    this.campaignService = campaignService;
+    this.productService = productService;
+    this.adIndex = adIndex;
+    this.enabled = enabled;
+
+    final CustomizableThreadFactory threadFactory =
+        new CustomizableThreadFactory("campaign-scheduler-");
+    threadFactory.setDaemon(true);
+    this.executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+    this.executor.setRemoveOnCancelPolicy(true);
+
+    Gauge.builder("ads.campaign.scheduler.pending.events", executor, e -> e.getQueue().size())
+        .description("Number of scheduled campaign activation and expiry events")
+        .register(meterRegistry);
+    this.transitionLag =
+        Timer.builder("ads.campaign.scheduler.transition.lag")
+            .description("Delay between a campaign transition being due and being applied")
+            .register(meterRegistry);
+    this.activations =
+        Counter.builder("ads.campaign.scheduler.transitions")
+            .tag("type", "activation")
+            .register(meterRegistry);
+    this.expirations =
+        Counter.builder("ads.campaign.scheduler.transitions")
+            .tag("type", "expiry")
+            .register(meterRegistry);
+  }
+
+  /** Loads the active and upcoming campaigns once the application is ready. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (enabled) {
+      load();
+    } else {
+      LOGGER.info("Ad index is disabled, ads will be served from the database");
+    }
+  }
+
+  /** Reloads the campaigns once initial data generated in the background is in the database. */
+  @EventListener(InitialDataGeneratedEvent.class)
+  public void onInitialDataGenerated() {
+    if (enabled) {
+      load();
+    }
+  }
+
+  /**
+   * (Re)loads all active and upcoming campaigns, replacing the active set of the {@link AdIndex}
+   * and rescheduling all transitions. Loads run one at a time.
+   *
+   * <p>Campaigns are loaded without their products, which are resolved through a freshly loaded
+   * {@link ProductCatalog} instead. The campaigns and the catalog are read and indexed without
+   * holding the lock of incremental updates: updates arriving meanwhile are applied to the current
+   * set right away, so writers still read their writes, and buffered to be replayed on top of the
+   * loaded set once it is swapped in. Replaying an update the load already saw is harmless.
+   */
+  public void load() {
+    loadLock.lock();
+    try {
+      lock.lock();
+      try {
+        updatesWhileLoading = new ArrayList<>();
+      } finally {
+        lock.unlock();
+      }
+      List<IndexedCampaign> campaigns = null;
+      try {
+        campaigns = loadCampaigns();
+      } finally {
+        // Even if the load failed, the buffered updates are applied to the current set
+        lock.lock();
+        try {
+          if (campaigns != null) {
+            replaceTrackedCampaigns(campaigns);
+          }
+          final List<Runnable> updates = updatesWhileLoading;
+          updatesWhileLoading = null;
+          updates.forEach(Runnable::run);
+          LOGGER.info(
+              "Replayed {} updates tracked while loading, {} transitions pending",
+              updates.size(),
+              executor.getQueue().size());
+        } finally {
+          lock.unlock();
+        }
+      }
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  private List<IndexedCampaign> loadCampaigns() {
+    LOGGER.info("Loading active and upcoming campaigns");
+    final Instant now = Instant.now();
+    final List<Campaign> campaigns;
+    final Map<Long, long[]> productIds;
+    // Read from the primary, like the changes applied on top of the load, see CampaignChangeFeed
+    try (DataSourceRouting.Scope ignored = DataSourceRouting.usePrimary()) {
+      campaigns = campaignService.getActiveAndUpcomingCampaigns(now);
+      productIds = campaignService.getProductIdsOfActiveAndUpcomingCampaigns(now);
+      // Loaded last, so that it contains every product of the loaded campaigns
+      adIndex.replaceCatalog(productService.loadCatalog());
+    }
+    final List<IndexedCampaign> indexedCampaigns = new ArrayList<>(campaigns.size());
+    for (Campaign campaign : campaigns) {
+      final IndexedCampaign indexedCampaign =
+          adIndex.toIndexedCampaign(
+              campaign, productIds.getOrDefault(campaign.getId(), NO_PRODUCT_IDS));
+      if (indexedCampaign != null) {
+        indexedCampaigns.add(indexedCampaign);
+      }
+    }
+    return indexedCampaigns;
+  }
+
+  // Guarded by lock
+  private void replaceTrackedCampaigns(List<IndexedCampaign> campaigns) {
+    trackedCampaigns.values().forEach(tracked -> tracked.nextTransition().cancel(false));
+    trackedCampaigns.clear();
+    // Campaigns may have started or ended while loading
+    final Instant now = Instant.now();
+    final List<IndexedCampaign> activeCampaigns = new ArrayList<>();
+    for (IndexedCampaign campaign : campaigns) {
+      if (campaign.hasEndedAt(now)) {
+        continue;
+      }
+      if (campaign.isActiveAt(now)) {
+        activeCampaigns.add(campaign);
+        scheduleExpiry(campaign, now);
+      } else {
+        scheduleActivation(campaign, now);
+      }
+    }
+    adIndex.replaceAll(activeCampaigns);
+    LOGGER.info("Loaded {} active campaigns", activeCampaigns.size());
+  }
+
+  /**
+   * Tracks the given campaign once the current transaction (if any) commits: activates it if it is
+   * active and schedules its next transition. Campaigns without products are untracked instead.
+   *
+   * @param campaign The persisted campaign, with its products accessible.
+   */
+  public void track(Campaign campaign) {
+    final long campaignId = campaign.getId();
+    final IndexedCampaign indexedCampaign = adIndex.toIndexedCampaign(campaign);
+    afterCommit(
+        () -> {
+          if (indexedCampaign == null) {
+            untrackNow(campaignId);
+          } else {
+            trackNow(indexedCampaign);
+          }
+        });
+  }
+
+  /**
+   * Stops tracking the campaign with the given ID once the current transaction (if any) commits,
+   * removing it from the active set.
+   *
+   * @param campaignId The ID of the removed campaign.
+   */
+  public void untrack(Long campaignId) {
+    afterCommit(() -> untrackNow(campaignId));
+  }
+
+  /**
+   * Returns the number of pending activation and expiry events.
+   *
+   * @return The number of pending events.
+   */
+  public int getPendingEventCount() {
+    return executor.getQueue().size();
+  }
+
+  private void trackNow(IndexedCampaign campaign) {
+    apply(() -> applyTrack(campaign));
+  }
+
+  private void untrackNow(long campaignId) {
+    apply(() -> applyUntrack(campaignId));
+  }
+
+  private void apply(Runnable update) {
+    lock.lock();
+    try {
+      update.run();
+      if (updatesWhileLoading != null) {
+        updatesWhileLoading.add(update);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Guarded by lock
+  private void applyTrack(IndexedCampaign campaign) {
+    cancel(campaign.id());
+    final Instant now = Instant.now();
+    if (campaign.hasEndedAt(now)) {
+      adIndex.deactivate(campaign.id());
+    } else if (campaign.isActiveAt(now)) {
+      adIndex.activate(campaign);
+      scheduleExpiry(campaign, now);
+    } else {
+      adIndex.deactivate(campaign.id());
+      scheduleActivation(campaign, now);
+    }
+  }
+
+  // Guarded by lock
+  private void applyUntrack(long campaignId) {
+    cancel(campaignId);
+    adIndex.deactivate(campaignId);
+  }
+
+  private void cancel(long campaignId) {
+    final TrackedCampaign tracked = trackedCampaigns.remove(campaignId);
+    if (tracked != null) {
+      tracked.nextTransition().cancel(false);
+    }
+  }
+
+  private void scheduleActivation(IndexedCampaign campaign, Instant now) {
+    schedule(campaign, campaign.startDate(), now, () -> activate(campaign));
+  }
+
+  private void scheduleExpiry(IndexedCampaign campaign, Instant now) {
+    schedule(campaign, campaign.endDate(), now, () -> expire(campaign));
+  }
+
+  private void schedule(IndexedCampaign campaign, Instant dueAt, Instant now, Runnable transition) {
+    final long delayNanos = Math.max(0, Duration.between(now, dueAt).toNanos());
+    final ScheduledFuture<?> future =
+        executor.schedule(transition, delayNanos, TimeUnit.NANOSECONDS);
+    trackedCampaigns.put(campaign.id(), new TrackedCampaign(campaign, future));
+  }
+
+  private void activate(IndexedCampaign campaign) {
+    lock.lock();
+    try {
+      if (!isCurrent(campaign)) {
+        return;
+      }
+      final Instant now = Instant.now();
+      if (now.isBefore(campaign.startDate())) {
+        // Fired early due to clock adjustments
+        scheduleActivation(campaign, now);
+        return;
+      }
+      recordLag(campaign.startDate(), now);
+      LOGGER.debug("Activating campaign {}", campaign.id());
+      adIndex.activate(campaign);
+      activations.increment();
+      scheduleExpiry(campaign, now);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void expire(IndexedCampaign campaign) {
+    lock.lock();
+    try {
+      if (!isCurrent(campaign)) {
+        return;
+      }
+      final Instant now = Instant.now();
+      if (now.isBefore(campaign.endDate())) {
+        // Fired early due to clock adjustments
+        scheduleExpiry(campaign, now);
+        return;
+      }
+      recordLag(campaign.endDate(), now);
+      LOGGER.debug("Expiring campaign {}", campaign.id());
+      trackedCampaigns.remove(campaign.id());
+      adIndex.deactivate(campaign.id());
+      expirations.increment();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean isCurrent(IndexedCampaign campaign) {
+    // A transition may fire right after its campaign was re-tracked or untracked
+    final TrackedCampaign tracked = trackedCampaigns.get(campaign.id());
+    return tracked != null && tracked.campaign() == campaign;
+  }
+
+  private void recordLag(Instant dueAt, Instant appliedAt) {
+    transitionLag.record(Duration.between(dueAt, appliedAt));
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  private record TrackedCampaign(IndexedCampaign campaign, ScheduledFuture<?> nextTransition) {}
+}
@@ -0,0 +1,221 @@
+package com.mabaya.ads.service.index;
+
+import com.mabaya.ads.datasource.DataSourceRouting;
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.CampaignChange;
+import com.mabaya.ads.repository.CampaignChanges;
+import com.mabaya.ads.repository.CampaignOutboxRepository;
+import com.mabaya.ads.service.CampaignService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link AdIndex} of this instance coherent with campaign writes handled by other
+ * instances. Every campaign write is recorded in the campaign outbox within its transaction, see
+ * {@link CampaignChange}, and this feed polls the outbox, applying the changes read since the last
+ * poll through the {@link CampaignActivationScheduler}. Changes only carry the ID of the campaign,
+ * so the current state of the changed campaigns is read, which makes applying a change idempotent.
+ *
+ * <p>The position in the outbox is a snapshot of the database: every change of a transaction
+ * visible in it has been applied. Since sequence numbers are drawn before their transaction
+ * commits, a change may become visible after changes with higher numbers, however long its
+ * transaction takes. So rather than reading past the highest ID, every poll reads the changes of
+ * the transactions that committed since the snapshot of the previous poll, see {@link
+ * CampaignOutboxRepository#findCommittedSince(String, int)}.
+ *
+ * <p>If the feed falls too far behind ({@code ads.serving.changes.resync-threshold} changes) or
+ * could not poll for longer than {@code ads.serving.changes.stale-after}, it gives up on catching
+ * up and reloads the whole index instead. Changes older than {@code ads.serving.changes.retention}
+ * are pruned from the outbox.
+ *
+ * <p>Publishes the delay between a change being recorded and being applied ({@code
+ * ads.campaign.changes.propagation}), the number of applied changes ({@code
+ * ads.campaign.changes.applied}) and the number of full resyncs ({@code
+ * ads.campaign.changes.resyncs}).
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see CampaignOutboxRepository
+ * @see CampaignIndexListener
+ */
+@Component
+public class CampaignChangeFeed {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CampaignChangeFeed.class);
+
+  private final CampaignOutboxRepository outboxRepository;
+  private final CampaignService campaignService;
+  private final CampaignActivationScheduler scheduler;
+  private final boolean enabled;
+  private final int batchSize;
+  private final int resyncThreshold;
+  private final Duration staleAfter;
+  private final Duration retention;
+
+  // Guarded by this
+  private boolean started;
+  private String snapshot;
+  private Instant lastSyncedAt;
+  private Instant loadedAt;
+
+  private final Timer propagation;
+  private final Counter appliedChanges;
+  private final Counter resyncs;
+
+  @Autowired
+  public CampaignChangeFeed(
+      CampaignOutboxRepository outboxRepository,
+      CampaignService campaignService,
+      CampaignActivationScheduler scheduler,
+      MeterRegistry meterRegistry,
+      @Value("${ads.serving.index.enabled:true}") boolean enabled,
+      @Value("${ads.serving.changes.batch-size:1000}") int batchSize,
+      @Value("${ads.serving.changes.resync-threshold:100000}") int resyncThreshold,
+      @Value("${ads.serving.changes.stale-after:30s}") Duration staleAfter,
+      @Value("${ads.serving.changes.retention:1h}") Duration retention) {
+    this.outboxRepository = outboxRepository;
+    this.campaignService = campaignService;
+    this.scheduler = scheduler;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.resyncThreshold = resyncThreshold;
+    this.staleAfter = staleAfter;
+    this.retention = retention;
+
+    this.propagation =
+        Timer.builder("ads.campaign.changes.propagation")
+            .description("Delay between a campaign change being recorded and being applied")
+            .register(meterRegistry);
+    this.appliedChanges =
+        Counter.builder("ads.campaign.changes.applied")
+            .description("Number of campaign changes applied from the outbox")
+            .register(meterRegistry);
+    this.resyncs =
+        Counter.builder("ads.campaign.changes.resyncs")
+            .description("Number of full reloads of the ad index by the change feed")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Starts following the outbox from its current end. Runs before the {@link
+   * CampaignActivationScheduler} loads the index, so changes recorded while it loads are applied on
+   * top.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public synchronized void start() {
+    if (enabled) {
+      startFrom(outboxRepository.findCurrentSnapshot());
+      started = true;
+    }
+  }
+
+  /** Applies the changes recorded since the last poll, or resyncs the index if too far behind. */
+  @Scheduled(fixedDelayString = "${ads.serving.changes.poll-interval:100}")
+  public synchronized void poll() {
+    if (!started) {
+      return;
+    }
+    final Instant now = Instant.now();
+    try {
+      if (Duration.between(lastSyncedAt, now).compareTo(staleAfter) > 0) {
+        resync("not synced since " + lastSyncedAt);
+        return;
+      }
+      final CampaignChanges changes =
+          outboxRepository.findCommittedSince(snapshot, resyncThreshold + 1);
+      if (changes.changes().size() > resyncThreshold) {
+        resync("more than " + resyncThreshold + " changes behind");
+        return;
+      }
+      for (int from = 0; from < changes.changes().size(); from += batchSize) {
+        final int to = Math.min(from + batchSize, changes.changes().size());
+        apply(changes.changes().subList(from, to), now);
+      }
+      snapshot = changes.snapshot();
+      lastSyncedAt = now;
+    } catch (DataAccessException e) {
+      LOGGER.warn("Failed to poll campaign changes, last synced at {}", lastSyncedAt, e);
+    }
+  }
+
+  /** Deletes the changes that are older than the retention period from the outbox. */
+  @Scheduled(
+      fixedDelayString = "${ads.serving.changes.prune-interval:60000}",
+      initialDelayString = "${ads.serving.changes.prune-interval:60000}")
+  public void prune() {
+    try {
+      final int deleted = outboxRepository.deleteCreatedBefore(Instant.now().minus(retention));
+      LOGGER.debug("Pruned {} campaign changes", deleted);
+    } catch (DataAccessException e) {
+      LOGGER.warn("Failed to prune campaign changes", e);
+    }
+  }
+
+  /**
+   * Returns the snapshot the feed is at: every change of a transaction visible in it has been
+   * applied.
+   *
+   * @return The snapshot, in the text form of {@code pg_snapshot}.
+   */
+  public synchronized String getSnapshot() {
+    return snapshot;
+  }
+
+  private void apply(List<CampaignChange> changes, Instant now) {
+    final Set<Long> campaignIds = new LinkedHashSet<>();
+    for (CampaignChange change : changes) {
+      campaignIds.add(change.getCampaignId());
+    }
+    if (!campaignIds.isEmpty()) {
+      final List<Campaign> campaigns;
+      // A replica may not have replicated the changes yet
+      try (DataSourceRouting.Scope ignored = DataSourceRouting.usePrimary()) {
+        campaigns = campaignService.getCampaignsWithProducts(campaignIds);
+      }
+      for (Campaign campaign : campaigns) {
+        scheduler.track(campaign);
+        campaignIds.remove(campaign.getId());
+      }
+      // Removed since the change was recorded
+      campaignIds.forEach(scheduler::untrack);
+    }
+    for (CampaignChange change : changes) {
+      // Changes committed while the index loaded may already be part of it
+      if (change.getCreatedAt().isAfter(loadedAt)) {
+        propagation.record(Duration.between(change.getCreatedAt(), now));
+      }
+      appliedChanges.increment();
+    }
+  }
+
+  private void resync(String reason) {
+    LOGGER.warn("Reloading the ad index, {}", reason);
+    final String current = outboxRepository.findCurrentSnapshot();
+    scheduler.load();
+    resyncs.increment();
+    startFrom(current);
+  }
+
+  private void startFrom(String current) {
+    // Changes committed after the snapshot, even while loading, are read by the next poll. Applying
+    // those the load already saw is harmless.
+    snapshot = current;
+    loadedAt = Instant.now();
+    lastSyncedAt = loadedAt;
+  }
+}
@@ -0,0 +1,51 @@
+package com.mabaya.ads.service.index;
+
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.repository.CampaignOutboxRepository;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that keeps the {@link AdIndex} in sync with campaign writes. Every campaign
+ * persisted, updated or removed through JPA, e.g. by {@link
+ * com.mabaya.ads.service.CampaignService#createCampaign} or {@link
+ * com.mabaya.ads.service.CampaignService#persistCampaigns}, is forwarded to the {@link
+ * CampaignActivationScheduler}, which applies the change once the surrounding transaction commits.
+ * Every write is also recorded in the campaign outbox within the same transaction, so that the
+ * other instances apply it too, see {@link CampaignChangeFeed}.
+ *
+ * <p>Instances are created by Hibernate through Spring's bean container. The scheduler and the
+ * outbox are looked up lazily so that slices without them (e.g. {@code @DataJpaTest}) still work.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdIndex
+ * @see CampaignActivationScheduler
+ * @see CampaignChangeFeed
+ */
+public class CampaignIndexListener {
+
+  private final ObjectProvider<CampaignActivationScheduler> schedulerProvider;
+  private final ObjectProvider<CampaignOutboxRepository> outboxProvider;
+
+  public CampaignIndexListener(
+      ObjectProvider<CampaignActivationScheduler> schedulerProvider,
+      ObjectProvider<CampaignOutboxRepository> outboxProvider) {
+    this.schedulerProvider = schedulerProvider;
+    this.outboxProvider = outboxProvider;
+  }
+
+  @PostPersist
+  @PostUpdate
+  public void onCampaignSaved(Campaign campaign) {
+    outboxProvider.ifAvailable(outbox -> outbox.append(campaign.getId()));
+    schedulerProvider.ifAvailable(scheduler -> scheduler.track(campaign));
+  }
+
+  @PostRemove
+  public void onCampaignRemoved(Campaign campaign) {
+    outboxProvider.ifAvailable(outbox -> outbox.append(campaign.getId()));
+    schedulerProvider.ifAvailable(scheduler -> scheduler.untrack(campaign.getId()));
+  }
+}
@@ -0,0 +1,102 @@
+package com.mabaya.ads.service.index;
+
+import com.mabaya.ads.model.Category;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Immutable, serving-side snapshot of a {@link com.mabaya.ads.model.Campaign}. Holds only what is
+ * needed to rank the campaign and to serve its ads: the bid, the active window, the already
+ * serialized highest priced product, both overall and per {@link Category}, and the rows of all its
+ * products in a {@link ProductCatalog} in price order, to rank more than the top product, see
+ * {@link RankedCampaigns#top}. Products are ranked on the primitive columns of the catalog and only
+ * turned into DTOs once returned.
+ *
+ * @param id The campaign ID.
+ * @param bidMicros The campaign bid in {@link com.mabaya.ads.model.Micros}, used for ranking.
+ * @param startDate The instant the campaign becomes active.
+ * @param endDate The instant the campaign stops being active (exclusive).
+ * @param topProduct The highest priced product of the campaign.
+ * @param topProductByCategory The highest priced product of the campaign for every category it has
+ *     products in.
+ * @param catalog The catalog holding the products of the campaign: the shared catalog of the {@link
+ *     AdIndex}, or one of the campaign's own products if it was indexed from its entities.
+ * @param rows The rows of the products of the campaign in the catalog, highest price first, ties
+ *     broken by the lowest ID. Must not be modified.
+ * @param rowsByCategory The rows of the products of the campaign in every category it has products
+ *     in, in the same order. Must not be modified.
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public record IndexedCampaign(
+    long id,
+    long bidMicros,
+    Instant startDate,
+    Instant endDate,
+    ServedAd topProduct,
+    Map<Category, ServedAd> topProductByCategory,
+    ProductCatalog catalog,
+    int[] rows,
+    Map<Category, int[]> rowsByCategory) {
+
+  private static final int[] NO_ROWS = new int[0];
+
+  /**
+   * Checks whether the campaign is active at the given instant.
+   *
+   * @param instant The instant to check.
+   * @return true if the campaign started at or before the instant and has not ended yet.
+   */
+  public boolean isActiveAt(Instant instant) {
+    return !startDate.isAfter(instant) && endDate.isAfter(instant);
+  }
+
+  /**
+   * Checks whether the campaign has ended at the given instant.
+   *
+   * @param instant The instant to check.
+   * @return true if the campaign's active window is over.
+   */
+  public boolean hasEndedAt(Instant instant) {
+    return !endDate.isAfter(instant);
+  }
+
+  /**
+   * Returns the highest priced product of the given category.
+   *
+   * @param category The category of the product.
+   * @return The highest priced product in the category, or null if there is none.
+   */
+  public ServedAd topProductIn(Category category) {
+    return topProductByCategory.get(category);
+  }
+
+  /**
+   * Returns the price of the highest priced product of the campaign.
+   *
+   * @return The price in {@link com.mabaya.ads.model.Micros}.
+   */
+  public long topPriceMicros() {
+    return catalog.priceMicros(rows[0]);
+  }
+
+  /**
+   * Returns the price of the highest priced product of the given category.
+   *
+   * @param category The category of the product, which the campaign must have products in.
+   * @return The price in {@link com.mabaya.ads.model.Micros}.
+   */
+  public long topPriceMicrosIn(Category category) {
+    return catalog.priceMicros(rowsIn(category)[0]);
+  }
+
+  /**
+   * Returns the catalog rows of the products of the given category, in price order.
+   *
+   * @param category The category of the products.
+   * @return The rows in the category, highest price first, empty if there is none. Must not be
+   *     modified.
+   */
+  public int[] rowsIn(Category category) {
+    return rowsByCategory.getOrDefault(category, NO_ROWS);
+  }
+}
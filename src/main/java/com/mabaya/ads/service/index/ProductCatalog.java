@@ -0,0 +1,253 @@
+package com.mabaya.ads.service.index;
+
+import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Micros;
+import com.mabaya.ads.model.Product;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Immutable, columnar store of the product catalog for the serving side. Every product is a row
+ * spread over primitive columns: the ID, the price in {@link Micros} and the {@link Category}
+ * ordinal. Titles and serial numbers are kept UTF-8 encoded in a single off-heap arena and
+ * addressed by offset, so millions of products cost a few arrays instead of an entity graph of
+ * boxed IDs, {@link java.math.BigDecimal} prices and strings.
+ *
+ * <p>Rows are ordered by product ID, so products are looked up by ID with a binary search. The rows
+ * of every category are indexed as well. Catalogs are built with a {@link Builder} and never
+ * change, they are safe to read from any thread.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdIndex
+ */
+public final class ProductCatalog {
+
+  private static final Category[] CATEGORIES = Category.values();
+
+  /** Catalog without any product, used until the catalog is loaded. */
+  public static final ProductCatalog EMPTY = builder(0).build();
+
+  private final int size;
+  private final long[] ids;
+  private final long[] priceMicros;
+  private final byte[] categories;
+  // The title of row i spans [textOffsets[2i], textOffsets[2i + 1]) of the arena, its serial
+  // number [textOffsets[2i + 1], textOffsets[2i + 2])
+  private final int[] textOffsets;
+  private final ByteBuffer text;
+  private final int[][] rowsByCategory;
+
+  private ProductCatalog(
+      int size,
+      long[] ids,
+      long[] priceMicros,
+      byte[] categories,
+      int[] textOffsets,
+      ByteBuffer text) {
+    this.size = size;
+    this.ids = ids;
+    this.priceMicros = priceMicros;
+    this.categories = categories;
+    this.textOffsets = textOffsets;
+    this.text = text;
+    this.rowsByCategory = indexByCategory(size, categories);
+  }
+
+  private static int[][] indexByCategory(int size, byte[] categories) {
+    final int[] counts = new int[CATEGORIES.length];
+    for (int row = 0; row < size; row++) {
+      counts[categories[row]]++;
+    }
+    final int[][] rowsByCategory = new int[CATEGORIES.length][];
+    for (int i = 0; i < CATEGORIES.length; i++) {
+      rowsByCategory[i] = new int[counts[i]];
+    }
+    final int[] filled = new int[CATEGORIES.length];
+    for (int row = 0; row < size; row++) {
+      final int category = categories[row];
+      rowsByCategory[category][filled[category]++] = row;
+    }
+    return rowsByCategory;
+  }
+
+  /**
+   * Creates a builder for a catalog of about the given number of products.
+   *
+   * @param expectedSize The expected number of products, used to size the columns.
+   * @return The builder.
+   */
+  public static Builder builder(int expectedSize) {
+    return new Builder(expectedSize);
+  }
+
+  /**
+   * Returns the number of products in the catalog.
+   *
+   * @return The number of products.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the row of the product with the given ID.
+   *
+   * @param id The product ID.
+   * @return The row, or -1 if the catalog doesn't contain the product.
+   */
+  public int rowOf(long id) {
+    final int row = Arrays.binarySearch(ids, 0, size, id);
+    return row < 0 ? -1 : row;
+  }
+
+  /**
+   * Returns the rows of the products of the given category, in ID order.
+   *
+   * @param category The category.
+   * @return The rows, must not be modified.
+   */
+  public int[] rowsIn(Category category) {
+    return rowsByCategory[category.ordinal()];
+  }
+
+  public long id(int row) {
+    return ids[row];
+  }
+
+  public long priceMicros(int row) {
+    return priceMicros[row];
+  }
+
+  public Category category(int row) {
+    return CATEGORIES[categories[row]];
+  }
+
+  public String title(int row) {
+    return decode(textOffsets[2 * row], textOffsets[2 * row + 1]);
+  }
+
+  public String serialNumber(int row) {
+    return decode(textOffsets[2 * row + 1], textOffsets[2 * row + 2]);
+  }
+
+  /**
+   * Creates the DTO of the product in the given row.
+   *
+   * @param row The row of the product.
+   * @return The product DTO.
+   */
+  public ProductDTO toDTO(int row) {
+    return new ProductDTO(
+        Optional.of(id(row)),
+        title(row),
+        Micros.toDecimal(priceMicros(row)),
+        category(row),
+        serialNumber(row));
+  }
+
+  /**
+   * Returns the size of the off-heap text arena.
+   *
+   * @return The number of bytes held off-heap.
+   */
+  public long offHeapBytes() {
+    return text.capacity();
+  }
+
+  private String decode(int start, int end) {
+    final byte[] bytes = new byte[end - start];
+    // Absolute bulk get, doesn't touch the shared buffer's position
+    text.get(start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Builds a {@link ProductCatalog}. Products must be added in ascending ID order, as they are read
+   * from the database. Not thread-safe.
+   */
+  public static final class Builder {
+
+    private int size;
+    private long[] ids;
+    private long[] priceMicros;
+    private byte[] categories;
+    private int[] textOffsets;
+    private ByteBuffer text;
+
+    private Builder(int expectedSize) {
+      final int capacity = Math.max(expectedSize, 16);
+      this.ids = new long[capacity];
+      this.priceMicros = new long[capacity];
+      this.categories = new byte[capacity];
+      this.textOffsets = new int[2 * capacity + 1];
+      this.text = ByteBuffer.allocateDirect(capacity * 32);
+    }
+
+    /**
+     * Adds the given product as the next row.
+     *
+     * @param product The product, with an ID greater than the ID of the previously added one.
+     * @return This builder.
+     * @throws IllegalArgumentException if the product is out of order.
+     * @throws IllegalStateException if the text arena would exceed 2 GB.
+     */
+    public Builder add(Product product) {
+      final long id = product.getId();
+      if (size > 0 && id <= ids[size - 1]) {
+        throw new IllegalArgumentException(
+            "Products must be added in ascending ID order, got " + id + " after " + ids[size - 1]);
+      }
+      if (size == ids.length) {
+        final int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        priceMicros = Arrays.copyOf(priceMicros, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        textOffsets = Arrays.copyOf(textOffsets, 2 * capacity + 1);
+      }
+      ids[size] = id;
+      priceMicros[size] = product.getPriceMicros();
+      categories[size] = (byte) product.getCategory().ordinal();
+      textOffsets[2 * size + 1] = append(product.getTitle());
+      textOffsets[2 * size + 2] = append(product.getSerialNumber());
+      size++;
+      return this;
+    }
+
+    /** Appends the encoded string to the arena and returns the offset of its end. */
+    private int append(String value) {
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      if (text.remaining() < bytes.length) {
+        final long required = (long) text.position() + bytes.length;
+        if (required > Integer.MAX_VALUE) {
+          throw new IllegalStateException("Product catalog text exceeds 2 GB");
+        }
+        final ByteBuffer grown =
+            ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, required * 2));
+        grown.put(text.flip());
+        text = grown;
+      }
+      text.put(bytes);
+      return text.position();
+    }
+
+    /**
+     * Builds the catalog, trimming the columns and the arena to their final size.
+     *
+     * @return The catalog.
+     */
+    public ProductCatalog build() {
+      final ByteBuffer trimmed = ByteBuffer.allocateDirect(text.position());
+      trimmed.put(text.duplicate().flip()).flip();
+      return new ProductCatalog(
+          size,
+          Arrays.copyOf(ids, size),
+          Arrays.copyOf(priceMicros, size),
+          Arrays.copyOf(categories, size),
+          Arrays.copyOf(textOffsets, 2 * size + 1),
+          trimmed.asReadOnlyBuffer());
+    }
+  }
+}
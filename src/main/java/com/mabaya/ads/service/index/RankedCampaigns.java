@@ -0,0 +1,224 @@
+package com.mabaya.ads.service.index;
+
+import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.model.Category;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshot of the active campaigns of the {@link AdIndex} in bid order, both overall and
+ * per {@link Category}. Lets a reader rank more than the single winner of the {@link WinnerTable},
+ * e.g. to fill several ad slots, against one consistent view of the active campaigns.
+ *
+ * <p>The top ads of a category are ranked with a k-way merge of the price ordered products of the
+ * campaigns, see {@link #top(Category, int)}. Products are compared on the price micros of their
+ * {@link ProductCatalog} rows, and only the returned ones are turned into DTOs.
+ *
+ * <p>Snapshots are taken by {@link AdIndex#getRankedCampaigns()} on demand and reused until the
+ * active set changes.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdIndex
+ */
+public final class RankedCampaigns {
+
+  /** Snapshot without any active campaign. */
+  public static final RankedCampaigns EMPTY = new RankedCampaigns(List.of(), emptyByCategory());
+
+  private final List<IndexedCampaign> all;
+  private final List<List<IndexedCampaign>> byCategory;
+
+  private RankedCampaigns(List<IndexedCampaign> all, List<List<IndexedCampaign>> byCategory) {
+    this.all = all;
+    this.byCategory = byCategory;
+  }
+
+  /**
+   * Copies the given ranked campaigns.
+   *
+   * @param all All active campaigns, in bid order.
+   * @param byCategory The active campaigns promoting products of every category, indexed by
+   *     ordinal, in bid order.
+   * @return The snapshot.
+   */
+  static RankedCampaigns of(
+      Collection<IndexedCampaign> all, List<? extends Collection<IndexedCampaign>> byCategory) {
+    final List<List<IndexedCampaign>> copies = new ArrayList<>(byCategory.size());
+    byCategory.forEach(rankedCampaigns -> copies.add(List.copyOf(rankedCampaigns)));
+    return new RankedCampaigns(List.copyOf(all), List.copyOf(copies));
+  }
+
+  /**
+   * Returns all active campaigns, in bid order.
+   *
+   * @return The campaigns, highest bid first, ties broken by the lowest ID.
+   */
+  public List<IndexedCampaign> all() {
+    return all;
+  }
+
+  /**
+   * Returns the active campaigns promoting products of the given category, in bid order.
+   *
+   * @param category The category.
+   * @return The campaigns, highest bid first, ties broken by the lowest ID.
+   */
+  public List<IndexedCampaign> in(Category category) {
+    return byCategory.get(category.ordinal());
+  }
+
+  /**
+   * Ranks the (campaign, product) pairs of the given category by bid, then by price, and returns
+   * the first ones. Mirrors {@link WinnerTable}: the products of the category of the campaigns
+   * promoting it are ranked, and if there is no such campaign, all products of all campaigns are
+   * ranked as the fallback. A product promoted by several campaigns is only ranked with the highest
+   * ranked one.
+   *
+   * <p>Pairs are merged rather than sorted: campaigns are opened one bid tier at a time, in bid
+   * order, and a heap holding the next product of every open campaign yields the pairs of the tier
+   * by price. Only as many tiers as needed for the limit are opened, so ranking costs O((k + t) log
+   * t) for k pairs and tiers of at most t campaigns, regardless of the number of campaigns.
+   *
+   * <p>Pairs of an equal bid and price are ranked by the lowest campaign ID, then product ID, so
+   * the top pair is the winner of the {@link WinnerTable}.
+   *
+   * @param category The category to rank ads for, or null to ignore the category.
+   * @param limit The maximum number of pairs to return.
+   * @return The top pairs, highest ranked first.
+   */
+  public List<RankedAd> top(Category category, int limit) {
+    final List<RankedAd> ranked = new ArrayList<>(Math.min(limit, all.size()));
+    final List<IndexedCampaign> inCategory = category == null ? List.of() : in(category);
+    if (!inCategory.isEmpty()) {
+      rank(
+          inCategory, campaign -> campaign.rowsIn(category), false, limit, new HashSet<>(), ranked);
+    } else {
+      rank(all, IndexedCampaign::rows, true, limit, new HashSet<>(), ranked);
+    }
+    return ranked;
+  }
+
+  /**
+   * Ranks the pairs of an ad slot of a page like {@link #top(Category, int)}, skipping the products
+   * already served in the other slots of the page. The slot is filled with the pairs of the
+   * category first and, if there are too few of them, with the pairs of all products of all
+   * campaigns as the fallback.
+   *
+   * @param category The category of the slot.
+   * @param limit The maximum number of pairs to return.
+   * @param servedProductIds The IDs of the products served in the other slots, to which the
+   *     products of the returned pairs are added.
+   * @return The top pairs of distinct products not served yet, highest ranked first, the pairs of
+   *     the category before the fallback ones.
+   */
+  public List<RankedAd> topNotServed(Category category, int limit, Set<Long> servedProductIds) {
+    final List<RankedAd> ranked = new ArrayList<>(limit);
+    rank(
+        in(category),
+        campaign -> campaign.rowsIn(category),
+        false,
+        limit,
+        servedProductIds,
+        ranked);
+    rank(all, IndexedCampaign::rows, true, limit, servedProductIds, ranked);
+    return ranked;
+  }
+
+  private static void rank(
+      List<IndexedCampaign> campaigns,
+      Function<IndexedCampaign, int[]> rows,
+      boolean fallback,
+      int limit,
+      Set<Long> rankedProductIds,
+      List<RankedAd> ranked) {
+    final PriorityQueue<Cursor> tier = new PriorityQueue<>();
+    int nextCampaign = 0;
+    while (ranked.size() < limit) {
+      if (tier.isEmpty()) {
+        if (nextCampaign == campaigns.size()) {
+          break;
+        }
+        final long bidMicros = campaigns.get(nextCampaign).bidMicros();
+        while (nextCampaign < campaigns.size()
+            && campaigns.get(nextCampaign).bidMicros() == bidMicros) {
+          final IndexedCampaign campaign = campaigns.get(nextCampaign++);
+          tier.add(new Cursor(campaign, rows.apply(campaign)));
+        }
+      }
+      final Cursor cursor = tier.poll();
+      if (rankedProductIds.add(cursor.productId)) {
+        ranked.add(new RankedAd(cursor.campaign.id(), cursor.toDTO(), fallback));
+      }
+      if (cursor.advance()) {
+        tier.add(cursor);
+      }
+    }
+  }
+
+  private static List<List<IndexedCampaign>> emptyByCategory() {
+    final List<List<IndexedCampaign>> byCategory = new ArrayList<>();
+    for (int i = 0; i < Category.values().length; i++) {
+      byCategory.add(List.of());
+    }
+    return List.copyOf(byCategory);
+  }
+
+  /**
+   * A (campaign, product) pair ranked for a category.
+   *
+   * @param campaignId The ID of the campaign promoting the product.
+   * @param product The product to promote.
+   * @param fallback true if the campaign doesn't promote products of the requested category and was
+   *     ranked as the fallback.
+   */
+  public record RankedAd(long campaignId, ProductDTO product, boolean fallback) {}
+
+  /**
+   * The next product of a campaign of the current bid tier, ordered by price, then by campaign ID,
+   * then by product ID.
+   */
+  private static final class Cursor implements Comparable<Cursor> {
+
+    private final IndexedCampaign campaign;
+    private final int[] rows;
+    private int position;
+    // Of the current row, read once per position
+    private long priceMicros;
+    private long productId;
+
+    Cursor(IndexedCampaign campaign, int[] rows) {
+      this.campaign = campaign;
+      this.rows = rows;
+      read();
+    }
+
+    ProductDTO toDTO() {
+      return campaign.catalog().toDTO(rows[position]);
+    }
+
+    boolean advance() {
+      if (++position == rows.length) {
+        return false;
+      }
+      read();
+      return true;
+    }
+
+    private void read() {
+      priceMicros = campaign.catalog().priceMicros(rows[position]);
+      productId = campaign.catalog().id(rows[position]);
+    }
+
+    @Override
+    public int compareTo(Cursor other) {
+      final int comparison = Long.compare(other.priceMicros, priceMicros);
+      if (comparison != 0) {
+        return comparison;
+      }
+      final int campaignComparison = Long.compare(campaign.id(), other.campaign.id());
+      return campaignComparison != 0
+          ? campaignComparison
+          : Long.compare(productId, other.productId);
+    }
+  }
+}
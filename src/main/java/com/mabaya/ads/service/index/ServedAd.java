@@ -0,0 +1,36 @@
+package com.mabaya.ads.service.index;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mabaya.ads.dto.ProductDTO;
+import org.springframework.util.DigestUtils;
+
+/**
+ * A promoted product together with its JSON response body, encoded once with the application's
+ * {@link ObjectMapper}, and the matching ETag. Lets the serving path write the response without
+ * mapping or serializing anything per request.
+ *
+ * @param product The promoted product.
+ * @param body The JSON representation of the product, must not be modified.
+ * @param etag The strong, quoted ETag of the body.
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public record ServedAd(ProductDTO product, byte[] body, String etag) {
+
+  /**
+   * Serializes the given product.
+   *
+   * @param product The promoted product.
+   * @param objectMapper The mapper used to encode the product, same as for regular responses.
+   * @return The served ad.
+   * @throws IllegalStateException if the product cannot be serialized.
+   */
+  public static ServedAd of(ProductDTO product, ObjectMapper objectMapper) {
+    try {
+      final byte[] body = objectMapper.writeValueAsBytes(product);
+      return new ServedAd(product, body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize product " + product.id(), e);
+    }
+  }
+}
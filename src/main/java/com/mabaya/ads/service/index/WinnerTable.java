@@ -0,0 +1,74 @@
+package com.mabaya.ads.service.index;
+
+import com.mabaya.ads.model.Category;
+
+/**
+ * Immutable table of the ad to serve for every {@link Category}, indexed by {@link
+ * Category#ordinal()}. Categories without an active campaign of their own already point at the
+ * global fallback winner, so a lookup is a single array read that neither locks nor allocates.
+ *
+ * <p>Tables are recomputed by {@link AdIndex} whenever the active set changes and published as a
+ * whole, readers therefore always see a consistent table.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see AdIndex
+ */
+public final class WinnerTable {
+
+  /** Table without any winner, used until the first active campaign is indexed. */
+  public static final WinnerTable EMPTY =
+      new WinnerTable(new Winner[Category.values().length], null);
+
+  private final Winner[] winnersByCategory;
+  private final Winner fallbackWinner;
+
+  private WinnerTable(Winner[] winnersByCategory, Winner fallbackWinner) {
+    this.winnersByCategory = winnersByCategory;
+    this.fallbackWinner = fallbackWinner;
+  }
+
+  /**
+   * Creates a table from the winner of every category and the global fallback winner.
+   *
+   * @param categoryWinners The winning campaign of every category, indexed by ordinal, or null
+   *     where the category has no active campaign.
+   * @param fallbackCampaign The winning campaign among all active campaigns, or null if none.
+   * @return The winner table.
+   */
+  static WinnerTable of(IndexedCampaign[] categoryWinners, IndexedCampaign fallbackCampaign) {
+    final Winner fallbackWinner =
+        fallbackCampaign == null
+            ? null
+            : new Winner(fallbackCampaign.id(), fallbackCampaign.topProduct(), true);
+    final Category[] categories = Category.values();
+    final Winner[] winnersByCategory = new Winner[categories.length];
+    for (Category category : categories) {
+      final IndexedCampaign campaign = categoryWinners[category.ordinal()];
+      winnersByCategory[category.ordinal()] =
+          campaign == null
+              ? fallbackWinner
+              : new Winner(campaign.id(), campaign.topProductIn(category), false);
+    }
+    return new WinnerTable(winnersByCategory, fallbackWinner);
+  }
+
+  /**
+   * Returns the winner for the given category.
+   *
+   * @param category The category to serve an ad for, or null to ignore the category.
+   * @return The winner, or null if there is no active campaign at all.
+   */
+  public Winner winnerFor(Category category) {
+    return category == null ? fallbackWinner : winnersByCategory[category.ordinal()];
+  }
+
+  /**
+   * The ad to serve for a category.
+   *
+   * @param campaignId The ID of the winning campaign.
+   * @param ad The product to promote, already serialized.
+   * @param fallback true if the campaign doesn't promote products of the requested category and won
+   *     as the global fallback.
+   */
+  public record Winner(long campaignId, ServedAd ad, boolean fallback) {}
+}
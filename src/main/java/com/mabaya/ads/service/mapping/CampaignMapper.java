@@ -3,6 +3,9 @@ package com.mabaya.ads.service.mapping;
 import com.mabaya.ads.dto.CampaignDTO;
 import com.mabaya.ads.model.Campaign;
 import com.mabaya.ads.model.Product;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -24,25 +27,40 @@ public class CampaignMapper implements IMapper<Campaign, CampaignDTO> {
 
   /**
    * Maps {@link Campaign} entity to {@link CampaignDTO}. Transfers entity properties to a DTO
-   * format, including associated product IDs.
+   * format, including associated product IDs and the campaign's active period in days.
    *
    * @param model the Campaign entity to be mapped.
    * @return Corresponding CampaignDTO.
    */
   @Override
   public CampaignDTO mapToDTO(Campaign model) {
+    return mapToDTO(
+        model, model.getProducts().stream().map(Product::getId).collect(Collectors.toSet()));
+  }
+
+  /**
+   * Maps {@link Campaign} entity to {@link CampaignDTO} like {@link #mapToDTO(Campaign)}, using the
+   * given product IDs instead of loading the campaign's products.
+   *
+   * @param model the Campaign entity to be mapped.
+   * @param productIds the IDs of the campaign's products.
+   * @return Corresponding CampaignDTO.
+   */
+  public CampaignDTO mapToDTO(Campaign model, Collection<Long> productIds) {
     LOGGER.debug("Mapping Campaign model to DTO");
     return new CampaignDTO(
         Optional.of(model.getId()),
         model.getName(),
         model.getStartDate(),
         model.getBid(),
-        model.getProducts().stream().map(Product::getId).collect(Collectors.toSet()));
+        productIds,
+        (int) Duration.between(model.getStartDate(), model.getEndDate()).toDays());
   }
 
   /**
    * Maps {@link CampaignDTO} to {@link Campaign} entity. Handles creation and updates by mapping
-   * DTO fields to the Campaign entity.
+   * DTO fields to the Campaign entity. The end date is derived from the active period, which
+   * defaults to {@link Campaign#DEFAULT_ACTIVE_DURATION}.
    *
    * @param dto the CampaignDTO to be mapped.
    * @return Corresponding Campaign entity.
@@ -50,8 +68,11 @@ public class CampaignMapper implements IMapper<Campaign, CampaignDTO> {
   @Override
   public Campaign mapToModel(CampaignDTO dto) {
     LOGGER.debug("Mapping DTO to Campaign model");
-    return dto.id()
-        .map(id -> new Campaign(id, dto.name(), dto.startDate(), dto.bid(), null))
-        .orElseGet(() -> new Campaign(dto.name(), dto.startDate(), dto.bid()));
+    final Instant endDate =
+        dto.activeDays() == null
+            ? dto.startDate().plus(Campaign.DEFAULT_ACTIVE_DURATION)
+            : dto.startDate().plus(Duration.ofDays(dto.activeDays()));
+    return new Campaign(
+        dto.id().orElse(null), dto.name(), dto.startDate(), endDate, dto.bid(), null);
   }
 }
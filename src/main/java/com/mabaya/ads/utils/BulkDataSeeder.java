@@ -0,0 +1,217 @@
+package com.mabaya.ads.utils;
+
+import com.mabaya.ads.utils.SeedDataGenerator.SeedCampaign;
+import com.mabaya.ads.utils.SeedDataGenerator.SeedProduct;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seeds an empty database with millions of products and campaigns. Products and campaigns are split
+ * into chunks, which a pool of workers generates and writes in parallel, every chunk through {@code
+ * COPY} on its own connection. Campaigns are only written once all products are, since they
+ * reference them.
+ *
+ * <p>Every chunk is generated from its own split of a {@link SplittableRandom} seeded with {@code
+ * ads.data.generation.seed}. Splits are taken in chunk order before any worker starts, so the same
+ * seed, counts and chunk size always seed the same data, whatever the number of workers.
+ *
+ * <p>Rows are written with IDs counting from 1, and the sequences are moved past them afterwards.
+ * Campaigns seeded here don't go through the JPA entity listeners, so the ad index must be loaded
+ * after seeding, which is the case at startup.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ * @see SeedDataGenerator
+ * @see InitialDataGenerationRunner
+ */
+@Component
+public class BulkDataSeeder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkDataSeeder.class);
+
+  private static final String COPY_PRODUCTS_SQL =
+      "COPY product (id, title, price, category, serial_number) FROM STDIN";
+
+  private static final String COPY_CAMPAIGNS_SQL =
+      "COPY campaign (id, name, start_date, end_date, bid) FROM STDIN";
+
+  private static final String COPY_CAMPAIGN_PRODUCTS_SQL =
+      "COPY campaign_products (campaign_id, products_id) FROM STDIN";
+
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final long seed;
+  private final int workers;
+  private final int chunkSize;
+
+  @Autowired
+  public BulkDataSeeder(
+      DataSource dataSource,
+      JdbcTemplate jdbcTemplate,
+      @Value("${ads.data.generation.seed:42}") long seed,
+      @Value("${ads.data.generation.workers:4}") int workers,
+      @Value("${ads.data.generation.chunk-size:10000}") int chunkSize) {
+    this.dataSource = dataSource;
+    this.jdbcTemplate = jdbcTemplate;
+    this.seed = seed;
+    this.workers = workers;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Seeds the given number of products and campaigns. The product and campaign tables must be
+   * empty.
+   *
+   * @param productCount The number of products to seed.
+   * @param campaignCount The number of campaigns to seed.
+   */
+  public void seed(long productCount, long campaignCount) {
+    LOGGER.info(
+        "Seeding {} products and {} campaigns on {} workers", productCount, campaignCount, workers);
+    final long start = System.nanoTime();
+    final SplittableRandom random = new SplittableRandom(seed);
+    final Instant now = Instant.now();
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("data-seeder-"));
+    try {
+      final List<Callable<Void>> productChunks = new ArrayList<>();
+      for (long from = 0; from < productCount; from += chunkSize) {
+        final long chunkFrom = from;
+        final long chunkTo = Math.min(from + chunkSize, productCount);
+        final SplittableRandom chunkRandom = random.split();
+        productChunks.add(() -> copyProducts(chunkFrom, chunkTo, chunkRandom));
+      }
+      final List<Callable<Void>> campaignChunks = new ArrayList<>();
+      for (long from = 0; from < campaignCount; from += chunkSize) {
+        final long chunkFrom = from;
+        final long chunkTo = Math.min(from + chunkSize, campaignCount);
+        final SplittableRandom chunkRandom = random.split();
+        campaignChunks.add(
+            () -> copyCampaigns(chunkFrom, chunkTo, campaignCount, productCount, now, chunkRandom));
+      }
+      runAll(executor, productChunks);
+      LOGGER.info("Seeded {} products in {}", productCount, elapsedSince(start));
+      runAll(executor, campaignChunks);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    jdbcTemplate.queryForObject(
+        "SELECT setval('product_sequence', ?, false)", Long.class, productCount + 1);
+    jdbcTemplate.queryForObject(
+        "SELECT setval('campaign_sequence', ?, false)", Long.class, campaignCount + 1);
+    // Lets the planner see the seeded tables before the first queries
+    jdbcTemplate.execute("ANALYZE product, campaign, campaign_products, campaign_category");
+    LOGGER.info(
+        "Seeded {} products and {} campaigns in {}",
+        productCount,
+        campaignCount,
+        elapsedSince(start));
+  }
+
+  private static void runAll(ExecutorService executor, List<Callable<Void>> chunks) {
+    try {
+      for (Future<Void> chunk : executor.invokeAll(chunks)) {
+        chunk.get();
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to seed a chunk", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while seeding", e);
+    }
+  }
+
+  private Void copyProducts(long from, long to, SplittableRandom random)
+      throws SQLException, IOException {
+    final StringBuilder rows = new StringBuilder();
+    for (long index = from; index < to; index++) {
+      final SeedProduct product = SeedDataGenerator.product(index, random);
+      rows.append(index + 1)
+          .append('\t')
+          .append(product.title())
+          .append('\t')
+          .append(product.price().toPlainString())
+          .append('\t')
+          .append(product.category().name())
+          .append('\t')
+          .append(product.serialNumber())
+          .append('\n');
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(true);
+      copyManager(connection).copyIn(COPY_PRODUCTS_SQL, new StringReader(rows.toString()));
+    }
+    return null;
+  }
+
+  private Void copyCampaigns(
+      long from,
+      long to,
+      long campaignCount,
+      long productCount,
+      Instant now,
+      SplittableRandom random)
+      throws SQLException, IOException {
+    final StringBuilder campaignRows = new StringBuilder();
+    final StringBuilder productRows = new StringBuilder();
+    for (long index = from; index < to; index++) {
+      final SeedCampaign campaign =
+          SeedDataGenerator.campaign(index, campaignCount, productCount, now, random);
+      final long id = index + 1;
+      campaignRows
+          .append(id)
+          .append('\t')
+          .append(campaign.name())
+          .append('\t')
+          .append(campaign.startDate())
+          .append('\t')
+          .append(campaign.endDate())
+          .append('\t')
+          .append(campaign.bid().toPlainString())
+          .append('\n');
+      for (long productIndex : campaign.productIndexes()) {
+        productRows.append(id).append('\t').append(productIndex + 1).append('\n');
+      }
+    }
+    // The links of a chunk are written with their campaigns, in a single transaction
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try {
+        final CopyManager copyManager = copyManager(connection);
+        copyManager.copyIn(COPY_CAMPAIGNS_SQL, new StringReader(campaignRows.toString()));
+        copyManager.copyIn(COPY_CAMPAIGN_PRODUCTS_SQL, new StringReader(productRows.toString()));
+        connection.commit();
+      } catch (SQLException | IOException e) {
+        connection.rollback();
+        throw e;
+      }
+    }
+    return null;
+  }
+
+  private static CopyManager copyManager(Connection connection) throws SQLException {
+    return connection.unwrap(PGConnection.class).getCopyAPI();
+  }
+
+  private static Duration elapsedSince(long startNanos) {
+    return Duration.ofMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+  }
+}
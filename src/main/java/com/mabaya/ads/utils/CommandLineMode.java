@@ -0,0 +1,42 @@
+package com.mabaya.ads.utils;
+
+import com.mabaya.ads.OnlineSponsoredAdsApplication;
+import java.util.Map;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Runs the application without its web server in a command line mode, e.g. {@link DataSeedCommand},
+ * and exits once it started. The settings of the mode take precedence over any configuration.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+final class CommandLineMode {
+
+  private CommandLineMode() {}
+
+  /**
+   * Runs the application in the given mode.
+   *
+   * @param name The name of the mode.
+   * @param settings The settings of the mode.
+   * @param args The application arguments, without the name of the mode.
+   * @return The exit code.
+   */
+  static int run(String name, Map<String, Object> settings, String... args) {
+    final ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(OnlineSponsoredAdsApplication.class)
+            .web(WebApplicationType.NONE)
+            .initializers(
+                applicationContext ->
+                    applicationContext
+                        .getEnvironment()
+                        .getPropertySources()
+                        .addFirst(new MapPropertySource(name, settings)))
+            .run(args);
+    return SpringApplication.exit(context);
+  }
+}
@@ -0,0 +1,40 @@
+package com.mabaya.ads.utils;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the initial data generation of the {@link InitialDataGenerationRunner}: out of service
+ * while data is generated in the background, down if generating it failed and up otherwise. It is
+ * part of the readiness group, so that an instance seeding in the background only receives traffic
+ * once its data is in place.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Component
+public class DataGenerationHealthIndicator implements HealthIndicator {
+
+  private volatile Health health = Health.up().build();
+
+  @Override
+  public Health health() {
+    return health;
+  }
+
+  void generating(long productCount, long campaignCount) {
+    health =
+        Health.outOfService()
+            .withDetail("products", productCount)
+            .withDetail("campaigns", campaignCount)
+            .build();
+  }
+
+  void generated() {
+    health = Health.up().build();
+  }
+
+  void failed(Exception e) {
+    health = Health.down(e).build();
+  }
+}
@@ -0,0 +1,37 @@
+package com.mabaya.ads.utils;
+
+import java.util.Map;
+
+/**
+ * Command line mode that seeds the database and exits, e.g. {@code java -jar ads.jar seed
+ * --ads.data.generation.products=10000000 --ads.data.generation.campaigns=1000000}. Starts the
+ * application without its web server and ad index, so that only the {@link
+ * InitialDataGenerationRunner} runs, writing through the {@link BulkDataSeeder}. These settings
+ * take precedence over any configuration. The remaining arguments are passed to the application,
+ * e.g. to point it at another database.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public final class DataSeedCommand {
+
+  /** The first argument selecting this mode. */
+  public static final String NAME = "seed";
+
+  private static final Map<String, Object> SETTINGS =
+      Map.of(
+          "ads.data.generation.bulk", true,
+          "ads.data.generation.background", false,
+          "ads.serving.index.enabled", false);
+
+  private DataSeedCommand() {}
+
+  /**
+   * Seeds the database.
+   *
+   * @param args The application arguments, without {@link #NAME}.
+   * @return The exit code.
+   */
+  public static int run(String... args) {
+    return CommandLineMode.run(NAME, SETTINGS, args);
+  }
+}
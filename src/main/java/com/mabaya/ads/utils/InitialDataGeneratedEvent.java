@@ -0,0 +1,16 @@
+package com.mabaya.ads.utils;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published once the {@link InitialDataGenerationRunner} generated data in the background, i.e.
+ * after the application became ready and loaded the ad index.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public class InitialDataGeneratedEvent extends ApplicationEvent {
+
+  public InitialDataGeneratedEvent(Object source) {
+    super(source);
+  }
+}
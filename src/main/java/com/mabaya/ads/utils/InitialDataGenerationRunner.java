@@ -1,166 +1,65 @@
 package com.mabaya.ads.utils;
 
 import com.mabaya.ads.model.Campaign;
-import com.mabaya.ads.model.Category;
 import com.mabaya.ads.model.Product;
 import com.mabaya.ads.service.CampaignService;
 import com.mabaya.ads.service.ProductService;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import com.mabaya.ads.utils.SeedDataGenerator.SeedCampaign;
+import com.mabaya.ads.utils.SeedDataGenerator.SeedProduct;
 import java.time.Instant;
 import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
 /**
- * Initial data generation.
+ * Initial data generation. The number of generated products and campaigns can be configured with
+ * {@code ads.data.generation.products} and {@code ads.data.generation.campaigns}, e.g. to seed a
+ * load test at scale. The data is reproducible, it is generated from {@code
+ * ads.data.generation.seed}.
+ *
+ * <p>Data is persisted through the services by default. With {@code ads.data.generation.bulk} it is
+ * written by the {@link BulkDataSeeder} instead, which seeds millions of rows in minutes, see also
+ * {@link DataSeedCommand}.
+ *
+ * <p>With {@code ads.data.generation.background} data is generated on a thread of its own, so that
+ * the startup doesn't wait for it. The instance is then not ready until it completes, see {@link
+ * DataGenerationHealthIndicator}, and the ad index is reloaded once it does, see {@link
+ * InitialDataGeneratedEvent}.
  *
  * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
  */
 @Component
 // Just for ease, should find another way given more time.
 @Profile("!test")
+@ConditionalOnProperty(
+    name = "ads.data.generation.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
 public class InitialDataGenerationRunner implements ApplicationRunner {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(InitialDataGenerationRunner.class);
 
-  private static final int BATCH_SIZE = 50;
-  private static final Map<Category, List<String>> CATEGORY_PRODUCT_NAMES;
-
-  static {
-    CATEGORY_PRODUCT_NAMES =
-        Map.of(
-            Category.ELECTRONICS,
-            Arrays.asList(
-                "Smartphone",
-                "Laptop",
-                "Tablet",
-                "Headphones",
-                "Camera",
-                "Smartwatch",
-                "Gaming Console",
-                "Bluetooth Speaker",
-                "Wireless Earbuds",
-                "Drone"),
-            Category.FASHION,
-            Arrays.asList(
-                "Dress",
-                "Jeans",
-                "Sunglasses",
-                "T-Shirt",
-                "Shoes",
-                "Handbag",
-                "Wristwatch",
-                "Scarf",
-                "Hats",
-                "Jacket"),
-            Category.HOMEGOODS,
-            Arrays.asList(
-                "Sofa",
-                "Coffee Table",
-                "Kitchen Blender",
-                "Lamp",
-                "Dining Table",
-                "Bedding Set",
-                "Curtains",
-                "Cookware Set",
-                "Vacuum Cleaner",
-                "Pillow"),
-            Category.BEAUTY,
-            Arrays.asList(
-                "Lipstick",
-                "Shampoo",
-                "Face Mask Set",
-                "Perfume",
-                "Foundation",
-                "Nail Polish",
-                "Hair Dryer",
-                "Cologne",
-                "Facial Cleanser",
-                "Mascara"),
-            Category.HEALTH,
-            Arrays.asList(
-                "Vitamins",
-                "Protein Powder",
-                "Multivitamins",
-                "Weight Scale",
-                "Fitness Tracker",
-                "Health Supplements",
-                "Yoga Mat",
-                "Resistance Bands",
-                "Treadmill",
-                "Massage Gun"),
-            Category.SPORTS,
-            Arrays.asList(
-                "Running Shoes",
-                "Basketball",
-                "Bicycle",
-                "Yoga Mat",
-                "Gym Bag",
-                "Tennis Racket",
-                "Fitness Gloves",
-                "Sports Watch",
-                "Soccer Ball",
-                "Boxing Gloves"),
-            Category.TRAVEL,
-            Arrays.asList(
-                "Luggage Set",
-                "Travel Backpack",
-                "Travel Adapter",
-                "Travel Pillow",
-                "Suitcase",
-                "Neck Pillow",
-                "Travel Organizer",
-                "Travel Toiletry Kit",
-                "Hiking Backpack",
-                "Passport Holder"),
-            Category.BOOKS,
-            Arrays.asList(
-                "Novel",
-                "Cookbook",
-                "Self-Help Book",
-                "Mystery Novel",
-                "Biography",
-                "Science Fiction Book",
-                "History Book",
-                "Fantasy Novel",
-                "Romance Novel",
-                "Poetry Collection"),
-            Category.PETS,
-            Arrays.asList(
-                "Dog Food",
-                "Cat Toy",
-                "Pet Bed",
-                "Pet Carrier",
-                "Fish Tank",
-                "Bird Cage",
-                "Dog Leash",
-                "Cat Litter Box",
-                "Dog Collar",
-                "Hamster Wheel"),
-            Category.OFFICE,
-            Arrays.asList(
-                "Notebook",
-                "Pens",
-                "Stapler",
-                "Desk Organizer",
-                "Laptop Bag",
-                "Whiteboard",
-                "Desk Lamp",
-                "File Organizer",
-                "Calculator",
-                "Paper Shredder"));
-  }
+  private static final int BATCH_SIZE = 1000;
 
-  private final Map<String, Integer> productNameCount = new HashMap<>();
-  private final Map<Category, Integer> categoryCount = new HashMap<>();
   private ProductService productService;
   private CampaignService campaignService;
+  private BulkDataSeeder bulkDataSeeder;
+  private DataGenerationHealthIndicator healthIndicator;
+  private ApplicationEventPublisher eventPublisher;
+  private int productCount = 1000;
+  private int campaignCount = 100;
+  private long seed = 42;
+  private boolean bulk;
+  private boolean background;
 
   public InitialDataGenerationRunner() {}
 
@@ -174,16 +73,83 @@ public class InitialDataGenerationRunner implements ApplicationRunner {
     this.campaignService = campaignService;
   }
 
+  @Autowired
+  public void setBulkDataSeeder(BulkDataSeeder bulkDataSeeder) {
+    this.bulkDataSeeder = bulkDataSeeder;
+  }
+
+  @Autowired
+  public void setHealthIndicator(DataGenerationHealthIndicator healthIndicator) {
+    this.healthIndicator = healthIndicator;
+  }
+
+  @Autowired
+  public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+    this.eventPublisher = eventPublisher;
+  }
+
+  @Value("${ads.data.generation.products:1000}")
+  public void setProductCount(int productCount) {
+    this.productCount = productCount;
+  }
+
+  @Value("${ads.data.generation.campaigns:100}")
+  public void setCampaignCount(int campaignCount) {
+    this.campaignCount = campaignCount;
+  }
+
+  @Value("${ads.data.generation.seed:42}")
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  @Value("${ads.data.generation.bulk:false}")
+  public void setBulk(boolean bulk) {
+    this.bulk = bulk;
+  }
+
+  @Value("${ads.data.generation.background:false}")
+  public void setBackground(boolean background) {
+    this.background = background;
+  }
+
   @Override
   public void run(ApplicationArguments args) {
+    if (!background) {
+      generateInitialDataIfRequired();
+      return;
+    }
+    LOGGER.info("Generating initial data in the background, not ready until it completes");
+    healthIndicator.generating(productCount, campaignCount);
+    final CustomizableThreadFactory threadFactory =
+        new CustomizableThreadFactory("initial-data-generation-");
+    threadFactory.setDaemon(true);
+    threadFactory.newThread(this::generateInitialDataInBackground).start();
+  }
+
+  private void generateInitialDataInBackground() {
+    try {
+      if (generateInitialDataIfRequired()) {
+        eventPublisher.publishEvent(new InitialDataGeneratedEvent(this));
+      }
+      healthIndicator.generated();
+    } catch (RuntimeException e) {
+      LOGGER.error("Initial data generation failed", e);
+      healthIndicator.failed(e);
+    }
+  }
+
+  private boolean generateInitialDataIfRequired() {
     LOGGER.info("Starting initial data generation process");
-    if (shouldGenerateInitialData()) {
+    final boolean required = shouldGenerateInitialData();
+    if (required) {
       LOGGER.debug("Data initialization required");
       generateInitialData();
     } else {
       LOGGER.info("Data initialization not required - existing data found");
     }
     LOGGER.info("Initial data generation process completed");
+    return required;
   }
 
   private boolean shouldGenerateInitialData() {
@@ -194,16 +160,25 @@ public class InitialDataGenerationRunner implements ApplicationRunner {
   }
 
   protected void generateInitialData() {
-    final List<Product> allProducts = generateProducts();
-    generateCampaigns(allProducts);
+    if (bulk) {
+      bulkDataSeeder.seed(productCount, campaignCount);
+      return;
+    }
+    final SplittableRandom random = new SplittableRandom(seed);
+    final List<Product> allProducts = generateProducts(random);
+    generateCampaigns(allProducts, random);
   }
 
-  private List<Product> generateProducts() {
+  private List<Product> generateProducts(SplittableRandom random) {
     LOGGER.debug("Generating products");
-    List<Product> savedProducts = new ArrayList<>();
+    List<Product> savedProducts = new ArrayList<>(productCount);
     List<Product> batch = new ArrayList<>();
-    for (int i = 1; i <= 1000; i++) {
-      batch.add(generateProduct());
+    for (int i = 0; i < productCount; i++) {
+      final SeedProduct product = SeedDataGenerator.product(i, random);
+      LOGGER.trace("Generated product with title: {}", product.title());
+      batch.add(
+          new Product(
+              product.title(), product.price(), product.category(), product.serialNumber()));
       if (batch.size() == BATCH_SIZE) {
         persistProductsBatch(batch, savedProducts);
       }
@@ -213,36 +188,6 @@ public class InitialDataGenerationRunner implements ApplicationRunner {
     return savedProducts;
   }
 
-  private Product generateProduct() {
-    Random random = new Random();
-    Category category = Category.values()[random.nextInt(Category.values().length)];
-    List<String> names = CATEGORY_PRODUCT_NAMES.get(category);
-    String nameBase = names.get(random.nextInt(names.size()));
-
-    int nameCount = productNameCount.getOrDefault(nameBase, 0) + 1;
-    productNameCount.put(nameBase, nameCount);
-
-    String title = nameBase + " " + nameCount;
-    BigDecimal price =
-        BigDecimal.valueOf(random.nextDouble() * 1000 + 100).setScale(2, RoundingMode.HALF_UP);
-    String serialNumber = generateSerialNumber(category);
-
-    LOGGER.trace("Generated product with title: {}", title);
-    return new Product(title, price, category, serialNumber);
-  }
-
-  private String generateSerialNumber(Category category) {
-    String categoryPrefix =
-        category.name().substring(0, Math.min(3, category.name().length())).toUpperCase();
-
-    int categoryCountValue = categoryCount.getOrDefault(category, 0) + 1;
-    categoryCount.put(category, categoryCountValue);
-
-    return categoryPrefix
-        + String.format(
-            "%08d", categoryCountValue); // Serial number follows the category occurrence count
-  }
-
   private void persistProductsBatch(List<Product> batch, List<Product> savedProducts) {
     LOGGER.trace("Persisting product batch of size {}", batch.size());
     try {
@@ -255,13 +200,26 @@ public class InitialDataGenerationRunner implements ApplicationRunner {
     }
   }
 
-  private void generateCampaigns(List<Product> allProducts) {
+  private void generateCampaigns(List<Product> allProducts, SplittableRandom random) {
     LOGGER.debug("Initializing campaigns");
+    final Instant now = Instant.now();
     List<Campaign> batch = new ArrayList<>();
-    for (int i = 1; i <= 100; i++) {
-      LOGGER.trace("Generating campaign number {}", i);
+    for (int i = 0; i < campaignCount; i++) {
+      LOGGER.trace("Generating campaign {}", i + 1);
+      final SeedCampaign campaign =
+          SeedDataGenerator.campaign(i, campaignCount, allProducts.size(), now, random);
+      final Set<Product> products = new HashSet<>();
+      for (long productIndex : campaign.productIndexes()) {
+        products.add(allProducts.get((int) productIndex));
+      }
       batch.add(
-          generateCampaign(i, allProducts, (i <= 10))); // Ensure first 10% have a recent start date
+          new Campaign(
+              null,
+              campaign.name(),
+              campaign.startDate(),
+              campaign.endDate(),
+              campaign.bid(),
+              products));
       if (batch.size() == BATCH_SIZE) {
         persistCampaignsBatch(batch);
       }
@@ -270,33 +228,6 @@ public class InitialDataGenerationRunner implements ApplicationRunner {
     LOGGER.debug("Finished initializing campaigns");
   }
 
-  private Campaign generateCampaign(int index, List<Product> allProducts, boolean recentDate) {
-    LOGGER.trace("Generating campaign {}", index);
-    String name = "Campaign " + index;
-    Instant startDate = generateStartDate(recentDate);
-    BigDecimal bid =
-        BigDecimal.valueOf(new Random().nextDouble() * 100 + 100).setScale(2, RoundingMode.HALF_UP);
-
-    List<Product> selectedProducts = selectRandomProducts(allProducts, new Random());
-    return new Campaign(name, startDate, bid, new HashSet<>(selectedProducts));
-  }
-
-  private Instant generateStartDate(boolean recentDate) {
-    LOGGER.trace("Generating random start date for campaign");
-    Random random = new Random();
-    long millisInYear = (recentDate ? 7L : 365L) * 24 * 60 * 60 * 1000;
-    long randomMillis =
-        (long) (random.nextDouble() * millisInYear * 2) - millisInYear; // Range: [-1 year, +1 year]
-    return Instant.now().plusMillis(randomMillis);
-  }
-
-  private List<Product> selectRandomProducts(List<Product> allProducts, Random random) {
-    int numberOfProductsToAdd = random.nextInt(10) + 1;
-    Collections.shuffle(allProducts);
-    LOGGER.trace("Selecting {} products for a campaign", numberOfProductsToAdd);
-    return allProducts.subList(0, Math.min(numberOfProductsToAdd, allProducts.size()));
-  }
-
   private void persistCampaignsBatch(List<Campaign> batch) {
     LOGGER.trace("Persisting campaign batch of size {}", batch.size());
     try {
@@ -0,0 +1,26 @@
+package com.mabaya.ads.utils;
+
+import com.mabaya.ads.model.Micros;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.math.BigDecimal;
+
+/**
+ * Persists amounts held in {@link Micros} as numeric columns, so the schema is unaffected by the
+ * in-memory representation.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Converter
+public class MicrosConverter implements AttributeConverter<Long, BigDecimal> {
+
+  @Override
+  public BigDecimal convertToDatabaseColumn(Long micros) {
+    return micros == null ? null : Micros.toDecimal(micros);
+  }
+
+  @Override
+  public Long convertToEntityAttribute(BigDecimal amount) {
+    return amount == null ? null : Micros.fromDecimal(amount);
+  }
+}
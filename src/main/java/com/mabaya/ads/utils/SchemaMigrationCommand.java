@@ -0,0 +1,38 @@
+package com.mabaya.ads.utils;
+
+import java.util.Map;
+
+/**
+ * Command line mode that migrates the schema and exits, e.g. {@code java -jar ads.jar migrate}.
+ * Applies the pending Flyway migrations, then lets Hibernate validate the schema against the
+ * entities, without generating data or loading the ad index. Runs as a step of its own before
+ * instances that start without migrating, e.g. with the fast-start profile. The remaining arguments
+ * are passed to the application, e.g. to point it at another database.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+public final class SchemaMigrationCommand {
+
+  /** The first argument selecting this mode. */
+  public static final String NAME = "migrate";
+
+  private static final Map<String, Object> SETTINGS =
+      Map.of(
+          "spring.flyway.enabled", true,
+          "spring.jpa.hibernate.ddl-auto", "validate",
+          "spring.main.lazy-initialization", false,
+          "ads.data.generation.enabled", false,
+          "ads.serving.index.enabled", false);
+
+  private SchemaMigrationCommand() {}
+
+  /**
+   * Migrates the schema.
+   *
+   * @param args The application arguments, without {@link #NAME}.
+   * @return The exit code.
+   */
+  public static int run(String... args) {
+    return CommandLineMode.run(NAME, SETTINGS, args);
+  }
+}
@@ -0,0 +1,252 @@
+package com.mabaya.ads.utils;
+
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Category;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the synthetic products and campaigns seeded by {@link InitialDataGenerationRunner} and
+ * {@link BulkDataSeeder}. Every product and campaign is derived from its index and a {@link
+ * SplittableRandom} only, so that ranges of them can be generated in parallel, each from its own
+ * split of a seeded generator, and still be reproduced.
+ *
+ * <p>Titles and serial numbers are made unique by the index of the product.
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+final class SeedDataGenerator {
+
+  /** The most products a generated campaign promotes. */
+  static final int MAX_PRODUCTS_PER_CAMPAIGN = 10;
+
+  private static final Category[] CATEGORIES = Category.values();
+  private static final Duration RECENT_SPAN = Duration.ofDays(7);
+  private static final Duration SPAN = Duration.ofDays(365);
+
+  private static final Map<Category, List<String>> CATEGORY_PRODUCT_NAMES;
+
+  static {
+    CATEGORY_PRODUCT_NAMES =
+        Map.of(
+            Category.ELECTRONICS,
+            Arrays.asList(
+                "Smartphone",
+                "Laptop",
+                "Tablet",
+                "Headphones",
+                "Camera",
+                "Smartwatch",
+                "Gaming Console",
+                "Bluetooth Speaker",
+                "Wireless Earbuds",
+                "Drone"),
+            Category.FASHION,
+            Arrays.asList(
+                "Dress",
+                "Jeans",
+                "Sunglasses",
+                "T-Shirt",
+                "Shoes",
+                "Handbag",
+                "Wristwatch",
+                "Scarf",
+                "Hats",
+                "Jacket"),
+            Category.HOMEGOODS,
+            Arrays.asList(
+                "Sofa",
+                "Coffee Table",
+                "Kitchen Blender",
+                "Lamp",
+                "Dining Table",
+                "Bedding Set",
+                "Curtains",
+                "Cookware Set",
+                "Vacuum Cleaner",
+                "Pillow"),
+            Category.BEAUTY,
+            Arrays.asList(
+                "Lipstick",
+                "Shampoo",
+                "Face Mask Set",
+                "Perfume",
+                "Foundation",
+                "Nail Polish",
+                "Hair Dryer",
+                "Cologne",
+                "Facial Cleanser",
+                "Mascara"),
+            Category.HEALTH,
+            Arrays.asList(
+                "Vitamins",
+                "Protein Powder",
+                "Multivitamins",
+                "Weight Scale",
+                "Fitness Tracker",
+                "Health Supplements",
+                "Yoga Mat",
+                "Resistance Bands",
+                "Treadmill",
+                "Massage Gun"),
+            Category.SPORTS,
+            Arrays.asList(
+                "Running Shoes",
+                "Basketball",
+                "Bicycle",
+                "Yoga Mat",
+                "Gym Bag",
+                "Tennis Racket",
+                "Fitness Gloves",
+                "Sports Watch",
+                "Soccer Ball",
+                "Boxing Gloves"),
+            Category.TRAVEL,
+            Arrays.asList(
+                "Luggage Set",
+                "Travel Backpack",
+                "Travel Adapter",
+                "Travel Pillow",
+                "Suitcase",
+                "Neck Pillow",
+                "Travel Organizer",
+                "Travel Toiletry Kit",
+                "Hiking Backpack",
+                "Passport Holder"),
+            Category.BOOKS,
+            Arrays.asList(
+                "Novel",
+                "Cookbook",
+                "Self-Help Book",
+                "Mystery Novel",
+                "Biography",
+                "Science Fiction Book",
+                "History Book",
+                "Fantasy Novel",
+                "Romance Novel",
+                "Poetry Collection"),
+            Category.PETS,
+            Arrays.asList(
+                "Dog Food",
+                "Cat Toy",
+                "Pet Bed",
+                "Pet Carrier",
+                "Fish Tank",
+                "Bird Cage",
+                "Dog Leash",
+                "Cat Litter Box",
+                "Dog Collar",
+                "Hamster Wheel"),
+            Category.OFFICE,
+            Arrays.asList(
+                "Notebook",
+                "Pens",
+                "Stapler",
+                "Desk Organizer",
+                "Laptop Bag",
+                "Whiteboard",
+                "Desk Lamp",
+                "File Organizer",
+                "Calculator",
+                "Paper Shredder"));
+  }
+
+  private SeedDataGenerator() {}
+
+  /**
+   * Generates the product with the given index.
+   *
+   * @param index The index of the product, from 0.
+   * @param random The generator to draw from.
+   * @return The product.
+   */
+  static SeedProduct product(long index, SplittableRandom random) {
+    final Category category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+    final List<String> names = CATEGORY_PRODUCT_NAMES.get(category);
+    final String title = names.get(random.nextInt(names.size())) + " " + (index + 1);
+    // 100.00 to 1099.99
+    final BigDecimal price = BigDecimal.valueOf(10_000 + random.nextInt(100_000), 2);
+    return new SeedProduct(index, title, price, category, serialNumber(category, index + 1));
+  }
+
+  /**
+   * Generates the campaign with the given index. The first tenth of the campaigns start within a
+   * week of now, so that some of them are active, the others within a year of now.
+   *
+   * @param index The index of the campaign, from 0.
+   * @param campaignCount The number of generated campaigns.
+   * @param productCount The number of generated products to promote.
+   * @param now The time the start dates are relative to.
+   * @param random The generator to draw from.
+   * @return The campaign.
+   */
+  static SeedCampaign campaign(
+      long index, long campaignCount, long productCount, Instant now, SplittableRandom random) {
+    final long span = (index < campaignCount / 10 ? RECENT_SPAN : SPAN).toMillis();
+    final Instant startDate = now.plusMillis(random.nextLong(-span, span));
+    // 100.00 to 199.99
+    final BigDecimal bid = BigDecimal.valueOf(10_000 + random.nextInt(10_000), 2);
+    return new SeedCampaign(
+        index,
+        "Campaign " + (index + 1),
+        startDate,
+        startDate.plus(Campaign.DEFAULT_ACTIVE_DURATION),
+        bid,
+        sampleProductIndexes(productCount, random));
+  }
+
+  /**
+   * Samples 1 to {@link #MAX_PRODUCTS_PER_CAMPAIGN} distinct product indexes by rejection, which
+   * costs a few draws for any number of products instead of shuffling all of them.
+   */
+  private static long[] sampleProductIndexes(long productCount, SplittableRandom random) {
+    final int count = (int) Math.min(1 + random.nextInt(MAX_PRODUCTS_PER_CAMPAIGN), productCount);
+    final long[] indexes = new long[count];
+    int sampled = 0;
+    while (sampled < count) {
+      final long candidate = random.nextLong(productCount);
+      if (!contains(indexes, sampled, candidate)) {
+        indexes[sampled++] = candidate;
+      }
+    }
+    return indexes;
+  }
+
+  private static boolean contains(long[] values, int length, long value) {
+    for (int i = 0; i < length; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String serialNumber(Category category, long number) {
+    final String digits = Long.toString(number);
+    final String name = category.name();
+    final StringBuilder serialNumber =
+        new StringBuilder(11).append(name, 0, Math.min(3, name.length()));
+    for (int i = digits.length(); i < 8; i++) {
+      serialNumber.append('0');
+    }
+    return serialNumber.append(digits).toString();
+  }
+
+  /** A generated product, without an ID. */
+  record SeedProduct(
+      long index, String title, BigDecimal price, Category category, String serialNumber) {}
+
+  /** A generated campaign, without an ID, promoting the products of the given indexes. */
+  record SeedCampaign(
+      long index,
+      String name,
+      Instant startDate,
+      Instant endDate,
+      BigDecimal bid,
+      long[] productIndexes) {}
+}
@@ -0,0 +1,83 @@
+package com.mabaya.ads.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the virtual threads that pinned their carrier thread, e.g. by blocking within a {@code
+ * synchronized} block, for longer than {@code ads.threads.pinned-threshold}. Pinned carriers can't
+ * run other virtual threads, so frequent pinning erodes the benefit of virtual threads. Pinning is
+ * observed through the {@code jdk.VirtualThreadPinned} JFR event, in-process, and the stack trace
+ * of every pinning is logged at debug level.
+ *
+ * <p>Publishes the number and the duration of pinnings ({@code ads.threads.virtual.pinned}).
+ *
+ * @author <a href="https://github.com/JulianBroudy">Julian Broudy</a>
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements DisposableBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private final RecordingStream recordingStream;
+
+  @Autowired
+  public VirtualThreadPinningMonitor(
+      MeterRegistry meterRegistry,
+      @Value("${ads.threads.pinned-threshold:20ms}") Duration threshold) {
+    final Timer pinned =
+        Timer.builder("ads.threads.virtual.pinned")
+            .description("Time virtual threads pinned their carrier thread")
+            .register(meterRegistry);
+    recordingStream = new RecordingStream();
+    recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    recordingStream.onEvent(
+        PINNED_EVENT,
+        event -> {
+          pinned.record(event.getDuration());
+          if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                "Virtual thread pinned its carrier for {}{}",
+                event.getDuration(),
+                stackTraceOf(event));
+          }
+        });
+    recordingStream.startAsync();
+  }
+
+  private static String stackTraceOf(RecordedEvent event) {
+    final StringBuilder stackTrace = new StringBuilder();
+    if (event.getStackTrace() != null) {
+      for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+        stackTrace
+            .append(System.lineSeparator())
+            .append("\tat ")
+            .append(frame.getMethod().getType().getName())
+            .append('.')
+            .append(frame.getMethod().getName())
+            .append(':')
+            .append(frame.getLineNumber());
+      }
+    }
+    return stackTrace.toString();
+  }
+
+  @Override
+  public void destroy() {
+    recordingStream.close();
+  }
+}
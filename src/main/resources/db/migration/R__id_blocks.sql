@@ -0,0 +1,22 @@
+-- Products and campaigns draw their IDs in blocks: every nextval reserves the block of IDs
+-- [value, value + increment - 1], which Hibernate hands out without further round trips (the
+-- pooled-lo optimizer), see Product and Campaign. The block size is the increment of the sequence,
+-- configured by ads.ids.block-size. Hibernate adopts it on startup, so it is only set here.
+--
+-- Reapplied whenever the block size changes. Before changing the increment, the sequences are moved
+-- past the last block handed out, since a smaller block size would otherwise reissue its IDs. Other
+-- instances must not run with the previous block size meanwhile.
+--
+-- The outbox sequence is left at an increment of 1. Its entries are inserted with a plain nextval
+-- rather than through Hibernate, see CampaignOutboxRepository, so there are no blocks to hand out.
+-- The order of the IDs doesn't matter: the outbox is followed by transaction visibility, see
+-- CampaignChangeFeed
+
+SELECT setval(format('%I.%I', schemaname, sequencename), last_value + increment_by - 1)
+FROM pg_sequences
+WHERE schemaname = current_schema()
+  AND sequencename IN ('product_sequence', 'campaign_sequence')
+  AND last_value IS NOT NULL;
+
+ALTER SEQUENCE product_sequence INCREMENT BY ${id-block-size};
+ALTER SEQUENCE campaign_sequence INCREMENT BY ${id-block-size};
@@ -0,0 +1,36 @@
+-- Schema as created by Hibernate before migrations were introduced, including the generated
+-- constraint names. Existing databases are baselined at this version instead of running it, see
+-- spring.flyway.baseline-on-migrate, so everything added since is in the following versions
+
+CREATE SEQUENCE product_sequence START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE campaign_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE product (
+    id bigint NOT NULL,
+    category character varying(255),
+    price numeric(38,2),
+    serial_number character varying(255),
+    title character varying(255),
+    CONSTRAINT product_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_i0l0yp44bh32fs5hwiah4cn8j UNIQUE (serial_number),
+    CONSTRAINT product_category_check CHECK (category IN ('ELECTRONICS', 'FASHION', 'HOMEGOODS',
+        'BEAUTY', 'HEALTH', 'SPORTS', 'TRAVEL', 'BOOKS', 'PETS', 'OFFICE'))
+);
+
+CREATE TABLE campaign (
+    id bigint NOT NULL,
+    bid numeric(38,2),
+    name character varying(255),
+    start_date timestamp(6) with time zone,
+    CONSTRAINT campaign_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE campaign_products (
+    campaign_id bigint NOT NULL,
+    products_id bigint NOT NULL,
+    CONSTRAINT fkkw37we8bbg8m74e2nuo8vfxo FOREIGN KEY (campaign_id) REFERENCES campaign (id),
+    CONSTRAINT fk4bl2j3axfmd8a5oidjjwc84qe FOREIGN KEY (products_id) REFERENCES product (id)
+);
+
+CREATE INDEX idx_product_category ON product (category);
+CREATE INDEX idx_campaign_start_date ON campaign (start_date);
@@ -0,0 +1,9 @@
+-- Campaigns store their end date, so that activation and expiry are scheduled rather than derived
+-- from the start date on every request, see CampaignActivationScheduler. Campaigns created before
+-- are active for the default period, Campaign#DEFAULT_ACTIVE_DURATION
+
+ALTER TABLE campaign ADD COLUMN end_date timestamp(6) with time zone;
+
+UPDATE campaign SET end_date = start_date + interval '10 days' WHERE end_date IS NULL;
+
+CREATE INDEX idx_campaign_end_date ON campaign (end_date);
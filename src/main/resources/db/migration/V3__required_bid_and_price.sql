@@ -0,0 +1,5 @@
+-- Bids and prices are held as fixed-point micros in primitive longs, see Micros, which can't be
+-- null. Fails on rows without a bid or a price, which couldn't be loaded anymore
+
+ALTER TABLE campaign ALTER COLUMN bid SET NOT NULL;
+ALTER TABLE product ALTER COLUMN price SET NOT NULL;
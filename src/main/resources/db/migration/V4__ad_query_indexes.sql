@@ -0,0 +1,6 @@
+-- Lets the candidate query walk campaigns in bid order and join their products by either side of
+-- the link, see CampaignRepository#findPromotedProductCandidates
+
+CREATE INDEX idx_campaign_bid ON campaign (bid DESC, id);
+CREATE INDEX idx_campaign_products_campaign_id ON campaign_products (campaign_id);
+CREATE INDEX idx_campaign_products_products_id ON campaign_products (products_id);
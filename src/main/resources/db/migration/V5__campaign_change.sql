@@ -0,0 +1,14 @@
+-- Transactional outbox of campaign changes, consumed by the other instances by the transactions
+-- that committed them, see V8__campaign_change_transaction.sql and CampaignChangeFeed. Its sequence
+-- keeps an increment of 1, see R__id_blocks.sql
+
+CREATE SEQUENCE campaign_change_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE campaign_change (
+    id bigint NOT NULL,
+    campaign_id bigint,
+    created_at timestamp(6) with time zone,
+    CONSTRAINT campaign_change_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_campaign_change_created_at ON campaign_change (created_at);
@@ -0,0 +1,109 @@
+-- Every campaign with the categories of its products, denormalized with the bid and the active
+-- window of the campaign, so that the highest bid active campaign of a category, or overall, is
+-- found by walking an index in bid order without visiting campaign, campaign_products or product.
+-- Kept up to date by the triggers below, see CampaignRepository#findPromotedProductCandidates
+
+CREATE TABLE campaign_category (
+    campaign_id bigint NOT NULL,
+    category character varying(255) NOT NULL,
+    bid numeric(38,2) NOT NULL,
+    start_date timestamp(6) with time zone,
+    end_date timestamp(6) with time zone,
+    CONSTRAINT campaign_category_pkey PRIMARY KEY (campaign_id, category),
+    CONSTRAINT campaign_category_campaign_fkey FOREIGN KEY (campaign_id) REFERENCES campaign (id)
+        ON DELETE CASCADE
+);
+
+-- Covering indexes: the active window is included, so both lookups are index-only scans
+CREATE INDEX idx_campaign_category_category_bid ON campaign_category (category, bid DESC, campaign_id)
+    INCLUDE (start_date, end_date);
+CREATE INDEX idx_campaign_category_bid ON campaign_category (bid DESC, campaign_id)
+    INCLUDE (start_date, end_date);
+
+INSERT INTO campaign_category (campaign_id, category, bid, start_date, end_date)
+SELECT DISTINCT c.id, p.category, c.bid, c.start_date, c.end_date
+FROM campaign c
+JOIN campaign_products cp ON cp.campaign_id = c.id
+JOIN product p ON p.id = cp.products_id;
+
+-- The triggers run once per statement over the affected rows, so that batched inserts of links,
+-- see CampaignBatchRepository, are maintained in bulk
+
+CREATE FUNCTION campaign_category_link() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO campaign_category (campaign_id, category, bid, start_date, end_date)
+    SELECT DISTINCT c.id, p.category, c.bid, c.start_date, c.end_date
+    FROM linked l
+    JOIN campaign c ON c.id = l.campaign_id
+    JOIN product p ON p.id = l.products_id
+    ON CONFLICT (campaign_id, category) DO NOTHING;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER campaign_category_link AFTER INSERT ON campaign_products
+    REFERENCING NEW TABLE AS linked
+    FOR EACH STATEMENT EXECUTE FUNCTION campaign_category_link();
+
+CREATE FUNCTION campaign_category_unlink() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    DELETE FROM campaign_category cc
+    USING (
+        SELECT DISTINCT u.campaign_id, p.category
+        FROM unlinked u
+        JOIN product p ON p.id = u.products_id) r
+    WHERE cc.campaign_id = r.campaign_id AND cc.category = r.category AND NOT EXISTS (
+        SELECT 1 FROM campaign_products cp JOIN product p ON p.id = cp.products_id
+        WHERE cp.campaign_id = r.campaign_id AND p.category = r.category);
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER campaign_category_unlink AFTER DELETE ON campaign_products
+    REFERENCING OLD TABLE AS unlinked
+    FOR EACH STATEMENT EXECUTE FUNCTION campaign_category_unlink();
+
+CREATE FUNCTION campaign_category_update() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE campaign_category cc
+    SET bid = c.bid, start_date = c.start_date, end_date = c.end_date
+    FROM updated c
+    WHERE cc.campaign_id = c.id
+      AND (cc.bid, cc.start_date, cc.end_date) IS DISTINCT FROM (c.bid, c.start_date, c.end_date);
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER campaign_category_update AFTER UPDATE ON campaign
+    REFERENCING NEW TABLE AS updated
+    FOR EACH STATEMENT EXECUTE FUNCTION campaign_category_update();
+
+CREATE FUNCTION campaign_category_recategorize() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    -- Removes the previous categories of the products no other product of the campaign is in
+    DELETE FROM campaign_category cc
+    USING (
+        SELECT DISTINCT cp.campaign_id, o.category
+        FROM updated n
+        JOIN previous o ON o.id = n.id
+        JOIN campaign_products cp ON cp.products_id = n.id
+        WHERE n.category IS DISTINCT FROM o.category) r
+    WHERE cc.campaign_id = r.campaign_id AND cc.category = r.category AND NOT EXISTS (
+        SELECT 1 FROM campaign_products cp JOIN product p ON p.id = cp.products_id
+        WHERE cp.campaign_id = r.campaign_id AND p.category = r.category);
+
+    INSERT INTO campaign_category (campaign_id, category, bid, start_date, end_date)
+    SELECT DISTINCT c.id, n.category, c.bid, c.start_date, c.end_date
+    FROM updated n
+    JOIN previous o ON o.id = n.id
+    JOIN campaign_products cp ON cp.products_id = n.id
+    JOIN campaign c ON c.id = cp.campaign_id
+    WHERE n.category IS DISTINCT FROM o.category
+    ON CONFLICT (campaign_id, category) DO NOTHING;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER campaign_category_recategorize AFTER UPDATE ON product
+    REFERENCING OLD TABLE AS previous NEW TABLE AS updated
+    FOR EACH STATEMENT EXECUTE FUNCTION campaign_category_recategorize();
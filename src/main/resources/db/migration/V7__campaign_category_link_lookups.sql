@@ -0,0 +1,21 @@
+-- Looks up the campaign and the products of new links by their primary keys. Joined instead, the
+-- planner scans the campaign table for every statement while its statistics are missing or small,
+-- e.g. while seeding a new database, where campaigns are inserted in JDBC batches and their links
+-- fire this trigger once per campaign. OFFSET 0 keeps the lookups from being turned into joins
+
+CREATE OR REPLACE FUNCTION campaign_category_link() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO campaign_category (campaign_id, category, bid, start_date, end_date)
+    SELECT c.id, l.category, c.bid, c.start_date, c.end_date
+    FROM (
+        SELECT DISTINCT l.campaign_id, p.category
+        FROM linked l
+        CROSS JOIN LATERAL (
+            SELECT p.category FROM product p WHERE p.id = l.products_id OFFSET 0) p) l
+    CROSS JOIN LATERAL (
+        SELECT c.id, c.bid, c.start_date, c.end_date FROM campaign c
+        WHERE c.id = l.campaign_id OFFSET 0) c
+    ON CONFLICT (campaign_id, category) DO NOTHING;
+    RETURN NULL;
+END
+$$;
@@ -0,0 +1,8 @@
+-- Every outbox entry records the transaction that wrote it, so that the feed reads the entries that
+-- became visible since its last poll, whenever their transaction commits, rather than relying on
+-- the order of their IDs, see CampaignOutboxRepository#findCommittedSince. Entries recorded before
+-- are attributed to this transaction, which every later snapshot sees as committed
+
+ALTER TABLE campaign_change ADD COLUMN tx_id xid8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX idx_campaign_change_tx_id ON campaign_change (tx_id);
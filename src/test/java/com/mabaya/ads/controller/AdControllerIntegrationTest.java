@@ -3,8 +3,11 @@ package com.mabaya.ads.controller;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.mabaya.ads.AbstractIntegrationTest;
+import com.mabaya.ads.dto.AdBatchRequest;
+import com.mabaya.ads.dto.AdBatchResponse;
 import com.mabaya.ads.dto.ExceptionResponse;
 import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.dto.RankedAdDTO;
 import com.mabaya.ads.model.Campaign;
 import com.mabaya.ads.model.Category;
 import com.mabaya.ads.model.Product;
@@ -13,6 +16,7 @@ import com.mabaya.ads.repository.ProductRepository;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -20,13 +24,18 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
 @ActiveProfiles("test")
 public class AdControllerIntegrationTest extends AbstractIntegrationTest {
 
@@ -140,6 +149,28 @@ public class AdControllerIntegrationTest extends AbstractIntegrationTest {
     assertEquals(0, BigDecimal.valueOf(101).compareTo(response.getBody().price()));
   }
 
+  @Test
+  public void shouldReturnNotModifiedForMatchingETag() {
+    List<Product> products = createProducts(2, Category.BOOKS);
+    productRepository.saveAll(products);
+    campaignRepository.save(
+        createCampaign(ACTIVE, tenDaysAgo.plus(1, ChronoUnit.DAYS), BigDecimal.ONE, products));
+
+    ResponseEntity<ProductDTO> response =
+        restTemplate.getForEntity("/api/v1/ad/BOOKS", ProductDTO.class);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    final String eTag = response.getHeaders().getETag();
+    assertNotNull(eTag);
+
+    final HttpHeaders headers = new HttpHeaders();
+    headers.setIfNoneMatch(eTag);
+    ResponseEntity<ProductDTO> conditionalResponse =
+        restTemplate.exchange(
+            "/api/v1/ad/BOOKS", HttpMethod.GET, new HttpEntity<>(headers), ProductDTO.class);
+    assertEquals(HttpStatus.NOT_MODIFIED, conditionalResponse.getStatusCode());
+    assertNull(conditionalResponse.getBody());
+  }
+
   @Test
   public void shouldReturnNotFoundResponse() {
     List<Product> products = createProducts(2, Category.BOOKS);
@@ -169,4 +200,127 @@ public class AdControllerIntegrationTest extends AbstractIntegrationTest {
     assertNotNull(response.getBody());
     assertEquals("Bad Request", response.getBody().errorCode());
   }
+
+  @Test
+  public void shouldReturnTopProductsRankedByBidThenPrice() {
+    List<Product> books = productRepository.saveAll(createProducts(3, Category.BOOKS));
+    List<Product> otherBooks = productRepository.saveAll(createProducts(1, Category.BOOKS, 3));
+
+    campaignRepository.saveAll(
+        List.of(
+            createCampaign(ACTIVE, tenDaysAgo.plus(1, ChronoUnit.DAYS), BigDecimal.ONE, otherBooks),
+            createCampaign(ACTIVE, tenDaysAgo.plus(1, ChronoUnit.DAYS), BigDecimal.TEN, books)));
+
+    ResponseEntity<RankedAdDTO[]> response =
+        restTemplate.getForEntity("/api/v1/ad/BOOKS?limit=3", RankedAdDTO[].class);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(
+        List.of(BigDecimal.valueOf(102), BigDecimal.valueOf(101), BigDecimal.valueOf(100)),
+        Arrays.stream(response.getBody())
+            .map(rankedAd -> rankedAd.product().price().setScale(0))
+            .toList());
+
+    ResponseEntity<ExceptionResponse> invalidResponse =
+        restTemplate.getForEntity("/api/v1/ad/BOOKS?limit=0", ExceptionResponse.class);
+    assertEquals(HttpStatus.BAD_REQUEST, invalidResponse.getStatusCode());
+  }
+
+  @Test
+  public void shouldServeDistinctProductsForEverySlot() {
+    List<Product> books = productRepository.saveAll(createProducts(2, Category.BOOKS));
+    List<Product> fashion = productRepository.saveAll(createProducts(1, Category.FASHION, 2));
+
+    campaignRepository.saveAll(
+        List.of(
+            createCampaign(ACTIVE, tenDaysAgo.plus(1, ChronoUnit.DAYS), BigDecimal.TEN, books),
+            createCampaign(ACTIVE, tenDaysAgo.plus(1, ChronoUnit.DAYS), BigDecimal.ONE, fashion),
+            createCampaign(
+                INACTIVE, tenDaysAgo.minus(5, ChronoUnit.DAYS), BigDecimal.TEN, fashion)));
+
+    AdBatchRequest request =
+        new AdBatchRequest(
+            List.of(
+                new AdBatchRequest.Slot(Category.BOOKS, 2),
+                new AdBatchRequest.Slot(Category.PETS, 3)));
+    ResponseEntity<AdBatchResponse> response =
+        restTemplate.postForEntity("/api/v1/ad/batch", request, AdBatchResponse.class);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    List<AdBatchResponse.Slot> slots = response.getBody().slots();
+    assertEquals(2, slots.size());
+
+    // Both books of the highest bid campaign, by price
+    assertEquals(
+        List.of(books.get(1).getId(), books.get(0).getId()),
+        slots.get(0).products().stream().map(product -> product.id().orElseThrow()).toList());
+
+    // No campaign promotes pets, the books were already served in the first slot
+    assertEquals(
+        List.of(fashion.get(0).getId()),
+        slots.get(1).products().stream().map(product -> product.id().orElseThrow()).toList());
+  }
+
+  @Test
+  public void shouldRejectInvalidSlots() {
+    AdBatchRequest request =
+        new AdBatchRequest(List.of(new AdBatchRequest.Slot(Category.BOOKS, 0)));
+    ResponseEntity<ExceptionResponse> response =
+        restTemplate.postForEntity("/api/v1/ad/batch", request, ExceptionResponse.class);
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals("Bad Request", response.getBody().errorCode());
+  }
+
+  @Test
+  public void shouldReturnProductFromActiveCampaignByCategoryWithoutBlocking() {
+    List<Product> products = createProducts(2, Category.BOOKS);
+    productRepository.saveAll(products);
+    List<Product> badProducts = createProducts(2, Category.FASHION, 2);
+    productRepository.saveAll(badProducts);
+
+    List<Campaign> campaigns =
+        List.of(
+            createCampaign(
+                INACTIVE, tenDaysAgo.minus(5, ChronoUnit.DAYS), BigDecimal.TEN, badProducts),
+            createCampaign(ACTIVE, tenDaysAgo.plus(1, ChronoUnit.DAYS), BigDecimal.ONE, products));
+    campaignRepository.saveAll(campaigns);
+
+    ResponseEntity<ProductDTO> response =
+        restTemplate.getForEntity("/api/v2/ad/BookS", ProductDTO.class);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(Category.BOOKS, response.getBody().category());
+    assertEquals(0, BigDecimal.valueOf(101).compareTo(response.getBody().price()));
+  }
+
+  @Test
+  public void shouldReturnNotFoundResponseWithoutBlocking() {
+    ResponseEntity<ExceptionResponse> response =
+        restTemplate.getForEntity("/api/v2/ad/BOOKS", ExceptionResponse.class);
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals("Not Found", response.getBody().errorCode());
+
+    ResponseEntity<String> metrics =
+        restTemplate.getForEntity("/actuator/prometheus", String.class);
+    assertNotNull(metrics.getBody());
+    assertTrue(metrics.getBody().contains("ads_serve_seconds_count{source=\"reactive\""));
+  }
+
+  @Test
+  public void shouldExposeServingMetrics() {
+    restTemplate.getForEntity("/api/v1/ad/PETS", ExceptionResponse.class);
+
+    ResponseEntity<String> response =
+        restTemplate.getForEntity("/actuator/prometheus", String.class);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    String metrics = response.getBody();
+    assertTrue(metrics.contains("ads_serve_seconds_bucket"));
+    assertTrue(metrics.contains("ads_serve_stage_seconds_count{stage=\"candidate.query\""));
+    assertTrue(metrics.contains("ads_serve_requests_total{category=\"PETS\",outcome=\"miss\""));
+    assertTrue(
+        metrics.contains("ads_errors_total{exception=\"NoSuchElementException\",status=\"404\""));
+  }
 }
@@ -2,11 +2,16 @@ package com.mabaya.ads.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mabaya.ads.AbstractIntegrationTest;
+import com.mabaya.ads.dto.CampaignBatchResponse;
 import com.mabaya.ads.dto.CampaignDTO;
+import com.mabaya.ads.dto.CampaignPage;
 import com.mabaya.ads.dto.ExceptionResponse;
+import com.mabaya.ads.model.CampaignChange;
 import com.mabaya.ads.model.Category;
 import com.mabaya.ads.model.Product;
+import com.mabaya.ads.repository.CampaignOutboxRepository;
 import com.mabaya.ads.repository.CampaignRepository;
 import com.mabaya.ads.repository.ProductRepository;
 import java.math.BigDecimal;
@@ -22,7 +27,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -36,6 +44,10 @@ public class CampaignControllerIntegrationTest extends AbstractIntegrationTest {
 
   @Autowired private ProductRepository productRepository;
 
+  @Autowired private CampaignOutboxRepository campaignOutboxRepository;
+
+  @Autowired private ObjectMapper objectMapper;
+
   @BeforeEach
   void setUp() {
     campaignRepository.deleteAll();
@@ -80,6 +92,33 @@ public class CampaignControllerIntegrationTest extends AbstractIntegrationTest {
     assertEquals("New Campaign", response.getBody().name());
   }
 
+  @Test
+  public void shouldRecordCreatedCampaignInOutbox() {
+    List<Long> productIds =
+        productRepository.saveAll(createProducts(1, Category.HEALTH)).stream()
+            .map(Product::getId)
+            .toList();
+    CampaignDTO newCampaign =
+        new CampaignDTO(
+            Optional.empty(),
+            "Outbox Campaign",
+            Instant.now().plus(2, ChronoUnit.DAYS),
+            BigDecimal.valueOf(50.0),
+            productIds);
+    String snapshot = campaignOutboxRepository.findCurrentSnapshot();
+
+    ResponseEntity<CampaignDTO> response =
+        restTemplate.postForEntity("/api/v1/campaign", newCampaign, CampaignDTO.class);
+
+    assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    assertNotNull(response.getBody());
+    List<Long> changedCampaignIds =
+        campaignOutboxRepository.findCommittedSince(snapshot, 1000).changes().stream()
+            .map(CampaignChange::getCampaignId)
+            .toList();
+    assertTrue(changedCampaignIds.contains(response.getBody().id().orElseThrow()));
+  }
+
   @Test
   public void shouldFailForNotExistingProduct() {
     List<Long> productIds =
@@ -131,6 +170,29 @@ public class CampaignControllerIntegrationTest extends AbstractIntegrationTest {
     assertTrue(response.getBody().errorMessage().contains("name: must not be blank"));
   }
 
+  @Test
+  public void shouldFailForBidWithFractionsOfCents() {
+    List<Long> productIds =
+        productRepository.saveAll(createProducts(3, Category.HEALTH)).stream()
+            .map(Product::getId)
+            .toList();
+    CampaignDTO invalidCampaign =
+        new CampaignDTO(
+            Optional.empty(),
+            "Campaign",
+            Instant.now().plus(2, ChronoUnit.DAYS),
+            new BigDecimal("1.005"),
+            productIds);
+
+    ResponseEntity<ExceptionResponse> response =
+        restTemplate.postForEntity("/api/v1/campaign", invalidCampaign, ExceptionResponse.class);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertTrue(response.getBody().errorMessage().contains("bid: numeric value out of bounds"));
+    assertEquals(0, campaignRepository.count());
+  }
+
   @Test
   public void shouldFailForStartDateInThePast() {
     List<Long> productIds =
@@ -238,4 +300,162 @@ public class CampaignControllerIntegrationTest extends AbstractIntegrationTest {
     assertTrue(errorMessage.contains("startDate: must be a date in the present or in the future"));
     assertTrue(errorMessage.contains("bid: must be greater than 0"));
   }
+
+  @Test
+  public void shouldCreateValidCampaignsInBulkAndReportInvalidOnes() {
+    List<Long> productIds =
+        productRepository.saveAll(createProducts(3, Category.HEALTH)).stream()
+            .map(Product::getId)
+            .toList();
+    Instant startDate = Instant.now().plus(2, ChronoUnit.DAYS);
+    List<CampaignDTO> campaigns =
+        List.of(
+            new CampaignDTO(
+                Optional.empty(), "First", startDate, BigDecimal.valueOf(50.0), productIds),
+            new CampaignDTO(
+                Optional.empty(), "Unknown", startDate, BigDecimal.TEN, List.of(40234L)),
+            new CampaignDTO(
+                Optional.empty(),
+                "Past",
+                Instant.now().minus(2, ChronoUnit.DAYS),
+                BigDecimal.TEN,
+                productIds),
+            new CampaignDTO(
+                Optional.empty(), "Second", startDate, BigDecimal.ONE, productIds.subList(0, 1)));
+
+    ResponseEntity<CampaignBatchResponse> response =
+        restTemplate.postForEntity(
+            "/api/v1/campaign/batch", campaigns, CampaignBatchResponse.class);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(4, response.getBody().received());
+    assertEquals(2, response.getBody().created());
+    assertEquals(2, response.getBody().failed());
+    List<CampaignBatchResponse.Item> items = response.getBody().items();
+    assertNotNull(items.get(0).id());
+    assertTrue(items.get(1).error().contains("Products not found for IDs: [40234]"));
+    assertTrue(
+        items.get(2).error().contains("startDate: must be a date in the present or in the future"));
+    assertNotNull(items.get(3).id());
+    assertEquals(2, campaignRepository.count());
+    assertEquals("First", campaignRepository.findById(items.get(0).id()).orElseThrow().getName());
+  }
+
+  @Test
+  public void shouldCreateCampaignsInBulkFromNdjson() throws Exception {
+    List<Long> productIds =
+        productRepository.saveAll(createProducts(3, Category.HEALTH)).stream()
+            .map(Product::getId)
+            .toList();
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 3; i++) {
+      body.append(
+              objectMapper.writeValueAsString(
+                  new CampaignDTO(
+                      Optional.empty(),
+                      "Campaign " + i,
+                      Instant.now().plus(2, ChronoUnit.DAYS),
+                      BigDecimal.valueOf(10 + i),
+                      productIds)))
+          .append('\n');
+    }
+    body.append("{\"name\": \n");
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+    ResponseEntity<CampaignBatchResponse> response =
+        restTemplate.postForEntity(
+            "/api/v1/campaign/batch",
+            new HttpEntity<>(body.toString(), headers),
+            CampaignBatchResponse.class);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(4, response.getBody().received());
+    assertEquals(3, response.getBody().created());
+    assertTrue(response.getBody().items().get(3).error().startsWith("Malformed campaign"));
+    assertEquals(3, campaignRepository.count());
+  }
+
+  private List<Long> createCampaigns(int numberOfCampaigns, List<Long> productIds) {
+    return IntStream.range(0, numberOfCampaigns)
+        .mapToObj(
+            i ->
+                restTemplate
+                    .postForEntity(
+                        "/api/v1/campaign",
+                        new CampaignDTO(
+                            Optional.empty(),
+                            "Campaign " + i,
+                            Instant.now().plus(2, ChronoUnit.DAYS),
+                            BigDecimal.valueOf(10 + i),
+                            productIds),
+                        CampaignDTO.class)
+                    .getBody()
+                    .id()
+                    .orElseThrow())
+        .toList();
+  }
+
+  @Test
+  public void shouldPageThroughCampaigns() {
+    List<Long> productIds =
+        productRepository.saveAll(createProducts(2, Category.HEALTH)).stream()
+            .map(Product::getId)
+            .toList();
+    List<Long> campaignIds = createCampaigns(5, productIds);
+
+    ResponseEntity<CampaignPage> firstPage =
+        restTemplate.getForEntity("/api/v1/campaign?limit=3", CampaignPage.class);
+    assertEquals(HttpStatus.OK, firstPage.getStatusCode());
+    assertNotNull(firstPage.getBody());
+    assertNotNull(firstPage.getBody().nextCursor());
+    ResponseEntity<CampaignPage> lastPage =
+        restTemplate.getForEntity(
+            "/api/v1/campaign?limit=3&cursor=" + firstPage.getBody().nextCursor(),
+            CampaignPage.class);
+    assertEquals(HttpStatus.OK, lastPage.getStatusCode());
+    assertNotNull(lastPage.getBody());
+    assertNull(lastPage.getBody().nextCursor());
+
+    List<CampaignDTO> campaigns = new java.util.ArrayList<>(firstPage.getBody().campaigns());
+    campaigns.addAll(lastPage.getBody().campaigns());
+    assertEquals(
+        campaignIds, campaigns.stream().map(campaign -> campaign.id().orElseThrow()).toList());
+    assertTrue(
+        campaigns.stream().allMatch(campaign -> campaign.productIds().containsAll(productIds)));
+  }
+
+  @Test
+  public void shouldFailForInvalidCursor() {
+    ResponseEntity<ExceptionResponse> response =
+        restTemplate.getForEntity("/api/v1/campaign?cursor=not-a-cursor", ExceptionResponse.class);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertTrue(response.getBody().errorMessage().contains("Invalid cursor"));
+  }
+
+  @Test
+  public void shouldStreamAllCampaigns() throws Exception {
+    List<Long> productIds =
+        productRepository.saveAll(createProducts(2, Category.HEALTH)).stream()
+            .map(Product::getId)
+            .toList();
+    List<Long> campaignIds = createCampaigns(3, productIds);
+
+    ResponseEntity<String> response =
+        restTemplate.getForEntity("/api/v1/campaign/stream", String.class);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertTrue(
+        MediaType.APPLICATION_NDJSON.isCompatibleWith(response.getHeaders().getContentType()));
+    assertNotNull(response.getBody());
+    List<Long> streamedIds = new java.util.ArrayList<>();
+    for (String line : response.getBody().split("\n")) {
+      streamedIds.add(objectMapper.readValue(line, CampaignDTO.class).id().orElseThrow());
+    }
+    assertEquals(campaignIds, streamedIds);
+  }
 }
@@ -0,0 +1,68 @@
+package com.mabaya.ads.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimitingDataSourceTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private DataSource targetDataSource;
+  private ConcurrencyLimitingDataSource limitingDataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    targetDataSource = mock(DataSource.class);
+    when(targetDataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    limitingDataSource =
+        new ConcurrencyLimitingDataSource(
+            targetDataSource, 2, Duration.ofMillis(10), meterRegistry);
+  }
+
+  private double availablePermits() {
+    return meterRegistry.get("ads.datasource.limiter.available").gauge().value();
+  }
+
+  @Test
+  void shouldRejectCallersBeyondPermitsUntilConnectionsAreClosed() throws SQLException {
+    final Connection first = limitingDataSource.getConnection();
+    final Connection second = limitingDataSource.getConnection();
+
+    assertThrows(SQLTransientConnectionException.class, limitingDataSource::getConnection);
+    assertEquals(1, meterRegistry.get("ads.datasource.limiter.rejections").counter().count());
+
+    first.close();
+
+    assertNotNull(limitingDataSource.getConnection());
+    assertEquals(0, availablePermits());
+    second.close();
+    assertEquals(1, availablePermits());
+  }
+
+  @Test
+  void shouldReleasePermitOnceWhenClosedTwice() throws SQLException {
+    final Connection connection = limitingDataSource.getConnection();
+
+    connection.close();
+    connection.close();
+
+    assertEquals(2, availablePermits());
+  }
+
+  @Test
+  void shouldReleasePermitWhenTargetFails() throws SQLException {
+    when(targetDataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+    assertThrows(SQLException.class, limitingDataSource::getConnection);
+
+    assertEquals(2, availablePermits());
+  }
+}
@@ -0,0 +1,47 @@
+package com.mabaya.ads.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakarta.servlet.http.Cookie;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+class ReadYourWritesInterceptorTest {
+
+  private final ReadYourWritesInterceptor interceptor =
+      new ReadYourWritesInterceptor(Duration.ofMillis(5_500));
+
+  static class Handlers {
+
+    @ReadYourWrites
+    void write() {}
+
+    // Reads, though it is a POST, e.g. filling the ad slots of a page
+    void readByPost() {}
+  }
+
+  private MockHttpServletResponse handle(String method) throws NoSuchMethodException {
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+    final HandlerMethod handler =
+        new HandlerMethod(new Handlers(), Handlers.class.getDeclaredMethod(method));
+    assertTrue(interceptor.preHandle(new MockHttpServletRequest("POST", "/"), response, handler));
+    return response;
+  }
+
+  @Test
+  void shouldSetCookieForWriteEndpoint() throws NoSuchMethodException {
+    final Cookie cookie = handle("write").getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+    assertNotNull(cookie);
+    assertEquals(6, cookie.getMaxAge());
+    assertEquals("/", cookie.getPath());
+  }
+
+  @Test
+  void shouldNotSetCookieForUnmarkedEndpoint() throws NoSuchMethodException {
+    assertNull(handle("readByPost").getCookie(ReadYourWritesFilter.COOKIE_NAME));
+  }
+}
@@ -0,0 +1,85 @@
+package com.mabaya.ads.datasource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+
+  private ReplicaLagMonitor lagMonitor;
+  private ReplicaRoutingDataSource routingDataSource;
+
+  @BeforeEach
+  void setUp() {
+    final Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+    replicas.put("replica-1", mock(HikariDataSource.class));
+    replicas.put("replica-2", mock(HikariDataSource.class));
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    lagMonitor =
+        new ReplicaLagMonitor(
+            mock(DataSource.class), replicas, Duration.ofSeconds(5), meterRegistry);
+    routingDataSource =
+        new ReplicaRoutingDataSource(mock(DataSource.class), lagMonitor, meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+  }
+
+  @Test
+  void shouldRouteReadWriteTransactionsToPrimary() {
+    lagMonitor.record("replica-1", 0);
+
+    assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+  }
+
+  @Test
+  void shouldSpreadReadOnlyTransactionsOverReplicasWithinMaxLag() {
+    lagMonitor.record("replica-1", 0);
+    lagMonitor.record("replica-2", 1.5);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    final String first = routingDataSource.determineCurrentLookupKey();
+    final String second = routingDataSource.determineCurrentLookupKey();
+
+    assertNotEquals(first, second);
+    assertTrue(first.startsWith("replica-"));
+    assertTrue(second.startsWith("replica-"));
+  }
+
+  @Test
+  void shouldSkipLaggingAndUnreachableReplicas() {
+    lagMonitor.record("replica-1", 0);
+    lagMonitor.record("replica-2", 10);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+    assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+
+    lagMonitor.record("replica-1", Double.NaN);
+
+    assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+  }
+
+  @Test
+  void shouldRouteReadOnlyTransactionsToPrimaryWithinPrimaryScope() {
+    lagMonitor.record("replica-1", 0);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    try (DataSourceRouting.Scope ignored = DataSourceRouting.usePrimary()) {
+      assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+    assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+  }
+}
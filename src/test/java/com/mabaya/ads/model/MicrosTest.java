@@ -0,0 +1,35 @@
+package com.mabaya.ads.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class MicrosTest {
+
+  @Test
+  void shouldConvertExactly() {
+    assertEquals(197_120_000L, Micros.fromDecimal(new BigDecimal("197.12")));
+    assertEquals(new BigDecimal("197.12"), Micros.toDecimal(197_120_000L));
+    assertEquals(
+        new BigDecimal("0.01"), Micros.toDecimal(Micros.fromDecimal(new BigDecimal("0.01"))));
+    assertEquals(1_500_000L, Micros.fromDecimal(new BigDecimal("1.500000")));
+  }
+
+  @Test
+  void shouldKeepAtLeastCents() {
+    assertEquals(
+        new BigDecimal("100.00"), Micros.toDecimal(Micros.fromDecimal(BigDecimal.valueOf(100))));
+    assertEquals(
+        new BigDecimal("1000000.00"), Micros.toDecimal(Micros.fromDecimal(new BigDecimal("1E+6"))));
+  }
+
+  @Test
+  void shouldRejectAmountsThatCannotBeRepresented() {
+    assertThrows(IllegalArgumentException.class, () -> Micros.fromDecimal(null));
+    // Would be persisted rounded to cents
+    assertThrows(IllegalArgumentException.class, () -> Micros.fromDecimal(new BigDecimal("1.005")));
+    assertThrows(IllegalArgumentException.class, () -> Micros.fromDecimal(new BigDecimal("0.001")));
+    assertThrows(IllegalArgumentException.class, () -> Micros.fromDecimal(new BigDecimal("1E+20")));
+  }
+}
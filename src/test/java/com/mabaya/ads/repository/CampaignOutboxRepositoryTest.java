@@ -0,0 +1,87 @@
+package com.mabaya.ads.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mabaya.ads.AbstractIntegrationTest;
+import com.mabaya.ads.model.CampaignChange;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Changes are appended by transactions of their own, committed while the outbox is read
+@JdbcTest
+@Import(CampaignOutboxRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CampaignOutboxRepositoryTest extends AbstractIntegrationTest {
+
+  @Autowired private CampaignOutboxRepository outboxRepository;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  public void shouldReadChangeCommittedAfterChangesWithHigherIds() throws Exception {
+    final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    final String started = outboxRepository.findCurrentSnapshot();
+    final CountDownLatch appended = new CountDownLatch(1);
+    final CountDownLatch commit = new CountDownLatch(1);
+    // Draws the lower ID, but commits last
+    final CompletableFuture<Void> late =
+        CompletableFuture.runAsync(
+            () ->
+                transactionTemplate.executeWithoutResult(
+                    status -> {
+                      outboxRepository.append(1L);
+                      appended.countDown();
+                      await(commit);
+                    }));
+    assertTrue(appended.await(10, TimeUnit.SECONDS));
+    transactionTemplate.executeWithoutResult(status -> outboxRepository.append(2L));
+
+    final CampaignChanges first = outboxRepository.findCommittedSince(started, 100);
+    commit.countDown();
+    late.get(10, TimeUnit.SECONDS);
+    final CampaignChanges second = outboxRepository.findCommittedSince(first.snapshot(), 100);
+    final CampaignChanges third = outboxRepository.findCommittedSince(second.snapshot(), 100);
+
+    assertEquals(List.of(2L), campaignIds(first));
+    assertEquals(List.of(1L), campaignIds(second));
+    assertEquals(List.of(), campaignIds(third));
+    assertNotNull(third.snapshot());
+  }
+
+  @Test
+  public void shouldNotReadRolledBackChange() {
+    final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    final String started = outboxRepository.findCurrentSnapshot();
+
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          outboxRepository.append(3L);
+          status.setRollbackOnly();
+        });
+
+    assertEquals(List.of(), campaignIds(outboxRepository.findCommittedSince(started, 100)));
+  }
+
+  private static List<Long> campaignIds(CampaignChanges changes) {
+    return changes.changes().stream().map(CampaignChange::getCampaignId).toList();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
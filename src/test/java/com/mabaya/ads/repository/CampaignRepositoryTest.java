@@ -18,8 +18,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 // For debugging purposes remove comment
 // @Transactional(propagation = Propagation.NOT_SUPPORTED)
@@ -31,11 +30,16 @@ public class CampaignRepositoryTest extends AbstractIntegrationTest {
   private static final String INACTIVE = "Inactive Campaign";
   @Autowired private CampaignRepository campaignRepository;
   @Autowired private ProductRepository productRepository;
+  @Autowired private JdbcTemplate jdbcTemplate;
   private Instant now;
   private Instant tenDaysAgo;
 
   @BeforeEach
   void setUp() {
+    // Rows left by other test classes, deleted before the inserts of the test are flushed
+    campaignRepository.deleteAll();
+    productRepository.deleteAll();
+    productRepository.flush();
     now = Instant.now();
     tenDaysAgo = now.minus(10, ChronoUnit.DAYS);
   }
@@ -47,100 +51,56 @@ public class CampaignRepositoryTest extends AbstractIntegrationTest {
   }
 
   @Test
-  public void shouldReturnActiveCampaignsWithinLast10Days() {
+  public void shouldSelectOnlyCampaignsActiveWithinLast10Days() {
     List<Product> products = createProducts(2, Category.BOOKS);
     productRepository.saveAll(products);
 
-    List<Campaign> campaigns =
-        List.of(
-            createCampaignWithBid50(INACTIVE, tenDaysAgo.minus(5, ChronoUnit.DAYS), products),
-            createCampaignWithBid50(ACTIVE, tenDaysAgo.plus(1, ChronoUnit.DAYS), products));
-    campaignRepository.saveAll(campaigns);
-
-    Page<Campaign> result =
-        campaignRepository.findAllActiveCampaignsByCategoryOrderedByBid(
-            now, tenDaysAgo, null, PageRequest.of(0, 10));
+    Campaign inactive =
+        createCampaignWithBid50(INACTIVE, tenDaysAgo.minus(5, ChronoUnit.DAYS), products);
+    Campaign active =
+        createCampaignWithBid50(ACTIVE, tenDaysAgo.plus(1, ChronoUnit.DAYS), products);
+    campaignRepository.saveAllAndFlush(List.of(inactive, active));
 
-    assertEquals(1, result.getContent().size());
-    assertTrue(
-        result.getContent().stream().allMatch(campaign -> campaign.getName().equals(ACTIVE)));
+    assertEquals(List.of(active.getId()), candidateCampaignIds(null));
   }
 
   @Test
-  public void shouldReturnCampaignsWithSpecificCategory() {
+  public void shouldSelectCampaignWithSpecificCategory() {
     List<Product> products = createProducts(2, Category.BOOKS);
     productRepository.saveAll(products);
 
-    List<Campaign> campaigns = List.of(createCampaignWithBid50(ACTIVE, now, products));
-    campaignRepository.saveAll(campaigns);
-
-    Page<Campaign> result =
-        campaignRepository.findAllActiveCampaignsByCategoryOrderedByBid(
-            now, tenDaysAgo, Category.BOOKS, PageRequest.of(0, 10));
+    Campaign campaign = createCampaignWithBid50(ACTIVE, now, products);
+    campaignRepository.saveAndFlush(campaign);
 
-    assertEquals(1, result.getContent().size());
-    assertTrue(
-        result.getContent().stream().allMatch(campaign -> campaign.getName().equals(ACTIVE)));
+    assertEquals(List.of(campaign.getId()), candidateCampaignIds(Category.BOOKS));
   }
 
   @Test
-  public void shouldReturnAllActiveCampaignsWhenCategoryIsNull() {
+  public void shouldSelectCampaignWithHighestBid() {
     List<Product> products = createProducts(2, Category.BOOKS);
     productRepository.saveAll(products);
 
-    List<Campaign> campaigns =
-        List.of(
-            createCampaignWithBid50(ACTIVE, now, products),
-            createCampaignWithBid50(ACTIVE, now.minus(1, ChronoUnit.DAYS), products));
-    campaignRepository.saveAll(campaigns);
-
-    Page<Campaign> result =
-        campaignRepository.findAllActiveCampaignsByCategoryOrderedByBid(
-            now, tenDaysAgo, null, PageRequest.of(0, 10));
+    Campaign lowBidCampaign =
+        createCampaign("Low Bid Campaign", now, new BigDecimal("50.00"), products);
+    Campaign highBidCampaign =
+        createCampaign("High Bid Campaign", now, new BigDecimal("100.00"), products);
+    campaignRepository.saveAllAndFlush(List.of(lowBidCampaign, highBidCampaign));
 
-    assertEquals(2, result.getContent().size());
-    assertTrue(
-        result.getContent().stream().allMatch(campaign -> campaign.getName().equals(ACTIVE)));
+    assertEquals(List.of(highBidCampaign.getId()), candidateCampaignIds(Category.BOOKS));
   }
 
   @Test
-  public void shouldOrderCampaignsByBidDescending() {
-    List<Product> products = createProducts(2, Category.BOOKS);
-    productRepository.saveAll(products);
-
-    List<Campaign> campaigns =
-        List.of(
-            createCampaign("Low Bid Campaign", now, new BigDecimal("50.00"), products),
-            createCampaign("High Bid Campaign", now, new BigDecimal("100.00"), products));
-    campaignRepository.saveAll(campaigns);
-
-    Page<Campaign> result =
-        campaignRepository.findAllActiveCampaignsByCategoryOrderedByBid(
-            now, tenDaysAgo, null, PageRequest.of(0, 10));
-
-    assertEquals(2, result.getContent().size());
-    assertEquals("High Bid Campaign", result.getContent().get(0).getName());
-    assertEquals("Low Bid Campaign", result.getContent().get(1).getName());
-  }
-
-  @Test
-  public void shouldNotIncludeCampaignStartingExactly10DaysAgo() {
+  public void shouldNotSelectCampaignStartingExactly10DaysAgo() {
     List<Product> products = createProducts(2, Category.ELECTRONICS);
     productRepository.saveAll(products);
 
-    Campaign exactlyTenDaysOldCampaign = createCampaignWithBid50(INACTIVE, tenDaysAgo, products);
-    campaignRepository.save(exactlyTenDaysOldCampaign);
-
-    Page<Campaign> result =
-        campaignRepository.findAllActiveCampaignsByCategoryOrderedByBid(
-            now, tenDaysAgo, null, PageRequest.of(0, 10));
+    campaignRepository.saveAndFlush(createCampaignWithBid50(INACTIVE, tenDaysAgo, products));
 
-    assertTrue(
-        result.getContent().stream().noneMatch(campaign -> campaign.getName().equals(INACTIVE)));
+    assertTrue(candidateCampaignIds(null).isEmpty());
   }
 
   @Test
-  public void shouldReturnCampaignForOverlappingCampaignsWithHighestBidOrder() {
+  public void shouldSelectOverlappingCampaignWithHighestBid() {
     List<Product> products = createProducts(1, Category.BEAUTY);
     productRepository.saveAll(products);
 
@@ -153,77 +113,183 @@ public class CampaignRepositoryTest extends AbstractIntegrationTest {
             now.minus(2, ChronoUnit.DAYS),
             new BigDecimal("100.00"),
             products);
-    campaignRepository.saveAll(List.of(lowerBidCampaign, higherBidCampaign));
+    campaignRepository.saveAllAndFlush(List.of(lowerBidCampaign, higherBidCampaign));
 
-    Page<Campaign> result =
-        campaignRepository.findAllActiveCampaignsByCategoryOrderedByBid(
-            now, tenDaysAgo, Category.BEAUTY, PageRequest.of(0, 10));
+    assertEquals(List.of(higherBidCampaign.getId()), candidateCampaignIds(Category.BEAUTY));
+  }
 
-    assertEquals(2, result.getContent().size());
-    assertEquals("Higher Bid Campaign", result.getContent().get(0).getName());
-    assertEquals("Lower Bid Campaign", result.getContent().get(1).getName());
+  @Test
+  public void shouldSelectCampaignWithMultipleCategoriesIfOneMatches() {
+    List<Product> mixedCategoryProducts =
+        List.of(
+            new Product(
+                "Electronics Product", BigDecimal.valueOf(150.00), Category.ELECTRONICS, "SN100"),
+            new Product("Fashion Product", BigDecimal.valueOf(200.00), Category.FASHION, "SN101"));
+    productRepository.saveAll(mixedCategoryProducts);
+
+    Campaign mixedCategoryCampaign = createCampaignWithBid50(ACTIVE, now, mixedCategoryProducts);
+    campaignRepository.saveAndFlush(mixedCategoryCampaign);
+
+    List<PromotedProductCandidate> result =
+        campaignRepository.findPromotedProductCandidates(now, Category.FASHION.name());
+    PromotedProductCandidate inCategory =
+        result.stream().filter(candidate -> !candidate.getFallback()).findFirst().orElseThrow();
+    assertEquals(mixedCategoryCampaign.getId(), inCategory.getCampaignId());
+    assertEquals(mixedCategoryProducts.get(1).getId(), inCategory.getProductId());
   }
 
   @Test
-  public void shouldRespectPagination() {
-    List<Product> products = createProducts(1, Category.SPORTS);
+  public void shouldRespectCampaignSpecificActivePeriod() {
+    List<Product> products = createProducts(2, Category.PETS);
     productRepository.saveAll(products);
 
-    List<Campaign> campaigns =
-        IntStream.range(0, 5)
-            .mapToObj(i -> createCampaignWithBid50(ACTIVE + i, now, products))
-            .collect(Collectors.toList());
-    campaignRepository.saveAll(campaigns);
+    Instant startDate = now.minus(3, ChronoUnit.DAYS);
+    Campaign shortCampaign =
+        new Campaign(
+            null,
+            INACTIVE,
+            startDate,
+            startDate.plus(2, ChronoUnit.DAYS),
+            BigDecimal.TEN,
+            products);
+    Campaign longCampaign =
+        new Campaign(
+            null, ACTIVE, startDate, startDate.plus(30, ChronoUnit.DAYS), BigDecimal.ONE, products);
+    campaignRepository.saveAllAndFlush(List.of(shortCampaign, longCampaign));
 
-    // Execute query with limited page size
-    Page<Campaign> result =
-        campaignRepository.findAllActiveCampaignsByCategoryOrderedByBid(
-            now, tenDaysAgo, Category.SPORTS, PageRequest.of(0, 2));
+    assertEquals(List.of(longCampaign.getId()), candidateCampaignIds(Category.PETS));
+  }
 
-    // Assertions
-    assertEquals(2, result.getSize());
-    assertTrue(result.hasContent());
-    assertTrue(result.getTotalElements() >= 2);
+  @Test
+  public void shouldSelectInCategoryAndFallbackCandidatesInOneQuery() {
+    List<Product> books = createProducts(2, Category.BOOKS);
+    List<Product> pets = createProducts(3, Category.PETS, books.size());
+    productRepository.saveAll(books);
+    productRepository.saveAll(pets);
+
+    Campaign booksCampaign = createCampaign("Books", now, new BigDecimal("50.00"), books);
+    Campaign petsCampaign = createCampaign("Pets", now, new BigDecimal("100.00"), pets);
+    campaignRepository.saveAllAndFlush(List.of(booksCampaign, petsCampaign));
+
+    List<PromotedProductCandidate> result =
+        campaignRepository.findPromotedProductCandidates(now, Category.BOOKS.name());
+
+    assertEquals(2, result.size());
+    PromotedProductCandidate inCategory =
+        result.stream().filter(candidate -> !candidate.getFallback()).findFirst().orElseThrow();
+    assertEquals(booksCampaign.getId(), inCategory.getCampaignId());
+    assertEquals(books.get(1).getId(), inCategory.getProductId());
+    assertEquals(Category.BOOKS, inCategory.toProduct().getCategory());
+    PromotedProductCandidate fallback =
+        result.stream().filter(PromotedProductCandidate::getFallback).findFirst().orElseThrow();
+    assertEquals(petsCampaign.getId(), fallback.getCampaignId());
+    assertEquals(pets.get(2).getId(), fallback.getProductId());
   }
 
   @Test
-  public void shouldReturnCampaignsWithMultipleCategoriesIfOneMatches() {
-    List<Product> mixedCategoryProducts =
-        List.of(
-            new Product(
-                "Electronics Product", BigDecimal.valueOf(150.00), Category.ELECTRONICS, "SN100"),
-            new Product("Fashion Product", BigDecimal.valueOf(200.00), Category.FASHION, "SN101"));
-    productRepository.saveAll(mixedCategoryProducts);
+  public void shouldBreakBidTiesByPriceThenLowestId() {
+    List<Product> books = createProducts(3, Category.BOOKS);
+    productRepository.saveAll(books);
+
+    Campaign cheap = createCampaignWithBid50("Cheap", now, List.of(books.get(0)));
+    Campaign expensive = createCampaignWithBid50("Expensive", now, List.of(books.get(2)));
+    Campaign sameExpensive =
+        createCampaignWithBid50("Same", now, List.of(books.get(1), books.get(2)));
+    campaignRepository.saveAllAndFlush(List.of(cheap, expensive, sameExpensive));
+
+    List<PromotedProductCandidate> result =
+        campaignRepository.findPromotedProductCandidates(now, Category.BOOKS.name());
+
+    assertEquals(2, result.size());
+    for (PromotedProductCandidate candidate : result) {
+      assertEquals(expensive.getId(), candidate.getCampaignId());
+      assertEquals(books.get(2).getId(), candidate.getProductId());
+    }
+  }
 
-    Campaign mixedCategoryCampaign = createCampaignWithBid50(ACTIVE, now, mixedCategoryProducts);
-    campaignRepository.save(mixedCategoryCampaign);
+  @Test
+  public void shouldSelectOnlyFallbackCandidateWhenNoCampaignPromotesCategory() {
+    List<Product> products = createProducts(2, Category.SPORTS);
+    productRepository.saveAll(products);
+    campaignRepository.saveAndFlush(createCampaignWithBid50(ACTIVE, now, products));
 
-    Page<Campaign> result =
-        campaignRepository.findAllActiveCampaignsByCategoryOrderedByBid(
-            now, tenDaysAgo, Category.FASHION, PageRequest.of(0, 10));
+    List<PromotedProductCandidate> result =
+        campaignRepository.findPromotedProductCandidates(now, Category.OFFICE.name());
 
-    assertEquals(1, result.getContent().size());
-    assertEquals(ACTIVE, result.getContent().get(0).getName());
+    assertEquals(1, result.size());
+    assertTrue(result.get(0).getFallback());
+    assertEquals(products.get(1).getId(), result.get(0).getProductId());
+    assertEquals(0, new BigDecimal("101").compareTo(result.get(0).toProduct().getPrice()));
   }
 
   @Test
-  public void shouldNotReturnCampaignsWithFutureStartDate() {
+  public void shouldSelectNoCandidateWithoutActiveCampaigns() {
     List<Product> products = createProducts(2, Category.HEALTH);
     productRepository.saveAll(products);
+    campaignRepository.saveAndFlush(
+        createCampaignWithBid50(INACTIVE, now.plus(5, ChronoUnit.DAYS), products));
 
-    Campaign futureCampaign =
-        createCampaignWithBid50(ACTIVE, now.plus(5, ChronoUnit.DAYS), products);
-    campaignRepository.save(futureCampaign);
+    assertTrue(campaignRepository.findPromotedProductCandidates(now, null).isEmpty());
+    assertTrue(
+        campaignRepository.findPromotedProductCandidates(now, Category.HEALTH.name()).isEmpty());
+  }
 
-    Page<Campaign> result =
-        campaignRepository.findAllActiveCampaignsByCategoryOrderedByBid(
-            now, tenDaysAgo, null, PageRequest.of(0, 10));
+  @Test
+  public void shouldSelectCandidatesAfterCampaignsAndProductsChange() {
+    List<Product> books = createProducts(2, Category.BOOKS);
+    productRepository.saveAll(books);
+
+    Campaign lowBidCampaign = createCampaign("Low", now, new BigDecimal("50.00"), books);
+    Campaign highBidCampaign =
+        createCampaign("High", now, new BigDecimal("100.00"), List.of(books.get(0)));
+    campaignRepository.saveAllAndFlush(List.of(lowBidCampaign, highBidCampaign));
+
+    lowBidCampaign.setBid(new BigDecimal("150.00"));
+    campaignRepository.saveAndFlush(lowBidCampaign);
+    List<PromotedProductCandidate> result =
+        campaignRepository.findPromotedProductCandidates(now, Category.BOOKS.name());
+    assertTrue(result.stream().allMatch(c -> c.getCampaignId().equals(lowBidCampaign.getId())));
+
+    books.get(1).setCategory(Category.PETS);
+    books.get(0).setCategory(Category.PETS);
+    productRepository.saveAllAndFlush(books);
+    result = campaignRepository.findPromotedProductCandidates(now, Category.BOOKS.name());
+    assertEquals(1, result.size());
+    assertTrue(result.get(0).getFallback());
+    result = campaignRepository.findPromotedProductCandidates(now, Category.PETS.name());
+    assertEquals(2, result.size());
+    assertTrue(result.stream().allMatch(c -> c.getCampaignId().equals(lowBidCampaign.getId())));
+  }
+
+  @Test
+  public void shouldDrawIdsInBlocks() {
+    List<Product> products = productRepository.saveAll(createProducts(3, Category.TRAVEL));
+
+    // Set by R__id_blocks.sql from ads.ids.block-size
+    assertEquals(
+        List.of(50L, 50L),
+        jdbcTemplate.queryForList(
+            "SELECT increment_by FROM pg_sequences WHERE sequencename IN"
+                + " ('product_sequence', 'campaign_sequence')",
+            Long.class));
+    assertEquals(3, products.stream().map(Product::getId).distinct().count());
+  }
 
-    assertEquals(0, result.getContent().size());
+  private List<Long> candidateCampaignIds(Category category) {
+    return campaignRepository
+        .findPromotedProductCandidates(now, category == null ? null : category.name())
+        .stream()
+        .map(PromotedProductCandidate::getCampaignId)
+        .distinct()
+        .toList();
   }
 
   private List<Product> createProducts(int numberOfProducts, Category category) {
-    return IntStream.range(0, numberOfProducts)
+    return createProducts(numberOfProducts, category, 0);
+  }
+
+  private List<Product> createProducts(int numberOfProducts, Category category, int startFrom) {
+    return IntStream.range(startFrom, startFrom + numberOfProducts)
         .mapToObj(i -> new Product("Product " + i, BigDecimal.valueOf(100 + i), category, "SN" + i))
         .collect(Collectors.toList());
   }
@@ -0,0 +1,143 @@
+package com.mabaya.ads.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.repository.PromotedProductCandidate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class PromotedProductSingleFlightTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CountDownLatch querying = new CountDownLatch(1);
+  private final CountDownLatch proceed = new CountDownLatch(1);
+  private final PromotedProductCandidate candidate = mock(PromotedProductCandidate.class);
+  private CampaignService campaignService;
+
+  @BeforeEach
+  void setUp() {
+    campaignService = mock(CampaignService.class);
+  }
+
+  private PromotedProductSingleFlight singleFlight(Duration maxWait) {
+    return new PromotedProductSingleFlight(
+        campaignService, meterRegistry, Duration.ofHours(1), maxWait, Duration.ofMinutes(1));
+  }
+
+  private void blockQueries() {
+    when(campaignService.findPromotedProduct(Category.BOOKS))
+        .thenAnswer(
+            invocation -> {
+              querying.countDown();
+              proceed.await(5, TimeUnit.SECONDS);
+              return Optional.of(candidate);
+            });
+  }
+
+  private double count(PromotedProductSingleFlight.Result result) {
+    return meterRegistry
+        .get("ads.serve.single.flight")
+        .tag("result", result.name().toLowerCase())
+        .counter()
+        .count();
+  }
+
+  @Test
+  void shouldShareQueryOfConcurrentCallers() throws InterruptedException {
+    final PromotedProductSingleFlight singleFlight = singleFlight(Duration.ofSeconds(5));
+    blockQueries();
+    final List<Optional<PromotedProductCandidate>> results = new ArrayList<>();
+    final List<Thread> callers = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      callers.add(
+          new Thread(
+              () -> {
+                final Optional<PromotedProductCandidate> result =
+                    singleFlight.findPromotedProduct(Category.BOOKS);
+                synchronized (results) {
+                  results.add(result);
+                }
+              }));
+    }
+
+    callers.get(0).start();
+    assertTrue(querying.await(5, TimeUnit.SECONDS));
+    for (Thread caller : callers.subList(1, callers.size())) {
+      caller.start();
+    }
+    // Waiting for the query of the first caller
+    for (Thread caller : callers.subList(1, callers.size())) {
+      while (caller.getState() != Thread.State.TIMED_WAITING) {
+        Thread.onSpinWait();
+      }
+    }
+    proceed.countDown();
+    for (Thread caller : callers) {
+      caller.join(5000);
+    }
+
+    verify(campaignService, times(1)).findPromotedProduct(Category.BOOKS);
+    assertEquals(10, results.size());
+    assertTrue(results.stream().allMatch(result -> result.orElseThrow() == candidate));
+    assertEquals(1, count(PromotedProductSingleFlight.Result.LEADER));
+    assertEquals(9, count(PromotedProductSingleFlight.Result.COALESCED));
+  }
+
+  @Test
+  void shouldServeLastSelectionWhenQueryIsSlow() throws InterruptedException {
+    final PromotedProductSingleFlight singleFlight = singleFlight(Duration.ofMillis(10));
+    when(campaignService.findPromotedProduct(Category.BOOKS)).thenReturn(Optional.of(candidate));
+    singleFlight.findPromotedProduct(Category.BOOKS);
+    blockQueries();
+    final Thread leader = new Thread(() -> singleFlight.findPromotedProduct(Category.BOOKS));
+    leader.start();
+    assertTrue(querying.await(5, TimeUnit.SECONDS));
+
+    assertSame(candidate, singleFlight.findPromotedProduct(Category.BOOKS).orElseThrow());
+
+    proceed.countDown();
+    leader.join(5000);
+    assertEquals(1, count(PromotedProductSingleFlight.Result.STALE));
+  }
+
+  @Test
+  void shouldFailWhenQueryIsSlowWithoutLastSelection() throws InterruptedException {
+    final PromotedProductSingleFlight singleFlight = singleFlight(Duration.ofMillis(10));
+    blockQueries();
+    final Thread leader = new Thread(() -> singleFlight.findPromotedProduct(Category.BOOKS));
+    leader.start();
+    assertTrue(querying.await(5, TimeUnit.SECONDS));
+
+    final ResponseStatusException exception =
+        assertThrows(
+            ResponseStatusException.class, () -> singleFlight.findPromotedProduct(Category.BOOKS));
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+    proceed.countDown();
+    leader.join(5000);
+    assertEquals(1, count(PromotedProductSingleFlight.Result.UNAVAILABLE));
+  }
+
+  @Test
+  void shouldQueryAgainOnceFlightCompleted() {
+    final PromotedProductSingleFlight singleFlight = singleFlight(Duration.ofSeconds(5));
+    when(campaignService.findPromotedProduct(Category.BOOKS)).thenReturn(Optional.of(candidate));
+
+    singleFlight.findPromotedProduct(Category.BOOKS);
+    singleFlight.findPromotedProduct(Category.BOOKS);
+
+    verify(campaignService, times(2)).findPromotedProduct(Category.BOOKS);
+    assertEquals(2, count(PromotedProductSingleFlight.Result.LEADER));
+  }
+}
@@ -0,0 +1,127 @@
+package com.mabaya.ads.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.service.AdServingMetrics.Outcome;
+import com.mabaya.ads.service.index.ServedAd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class StaleWhileRevalidateAdCacheTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SelectedAd first =
+      new SelectedAd(new ServedAd(null, new byte[0], "\"first\""), Outcome.HIT);
+  private final SelectedAd second =
+      new SelectedAd(new ServedAd(null, new byte[0], "\"second\""), Outcome.FALLBACK);
+  private final AtomicInteger loads = new AtomicInteger();
+  private StaleWhileRevalidateAdCache cache;
+
+  private StaleWhileRevalidateAdCache cache(Duration softTtl, Duration hardTtl) {
+    cache = new StaleWhileRevalidateAdCache(meterRegistry, true, softTtl, hardTtl, 1);
+    return cache;
+  }
+
+  @AfterEach
+  void tearDown() {
+    cache.destroy();
+  }
+
+  private SelectedAd load(Category category) {
+    loads.incrementAndGet();
+    return first;
+  }
+
+  private double refreshes(String result) {
+    return meterRegistry.get("ads.serve.cache.refreshes").tag("result", result).counter().count();
+  }
+
+  @Test
+  void shouldServeCachedAdUntilSoftTtl() {
+    final StaleWhileRevalidateAdCache cache = cache(Duration.ofHours(1), Duration.ofHours(2));
+
+    assertSame(first, cache.get(Category.BOOKS, this::load));
+    assertSame(first, cache.get(Category.BOOKS, this::load));
+    cache.get(Category.PETS, this::load);
+
+    assertEquals(2, loads.get());
+    assertEquals(3, meterRegistry.get("ads.serve.cache.staleness").timer().count());
+  }
+
+  @Test
+  void shouldServeStaleAdWhileRefreshing() throws InterruptedException {
+    final StaleWhileRevalidateAdCache cache = cache(Duration.ZERO, Duration.ofHours(1));
+    cache.get(Category.BOOKS, this::load);
+    final CountDownLatch refreshing = new CountDownLatch(1);
+    final CountDownLatch proceed = new CountDownLatch(1);
+
+    final SelectedAd served =
+        cache.get(
+            Category.BOOKS,
+            category -> {
+              refreshing.countDown();
+              await(proceed);
+              return second;
+            });
+
+    assertSame(first, served);
+    assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+    // A single refresh at a time
+    assertSame(first, cache.get(Category.BOOKS, category -> fail("Refreshed twice")));
+    proceed.countDown();
+    while (refreshes("success") == 0) {
+      Thread.onSpinWait();
+    }
+    assertSame(second, cache.get(Category.BOOKS, category -> second));
+  }
+
+  @Test
+  void shouldKeepServingLastKnownAdWhenRefreshFails() {
+    final StaleWhileRevalidateAdCache cache = cache(Duration.ZERO, Duration.ofHours(1));
+    cache.get(Category.BOOKS, this::load);
+
+    assertSame(
+        first,
+        cache.get(
+            Category.BOOKS,
+            category -> {
+              throw new NoSuchElementException("No active campaigns found");
+            }));
+    while (refreshes("failure") == 0) {
+      Thread.onSpinWait();
+    }
+
+    assertSame(first, cache.get(Category.BOOKS, category -> second));
+  }
+
+  @Test
+  void shouldLoadAdOlderThanHardTtl() {
+    final StaleWhileRevalidateAdCache cache = cache(Duration.ZERO, Duration.ZERO);
+    cache.get(Category.BOOKS, this::load);
+
+    assertSame(second, cache.get(Category.BOOKS, category -> second));
+    assertThrows(
+        NoSuchElementException.class,
+        () ->
+            cache.get(
+                Category.BOOKS,
+                category -> {
+                  throw new NoSuchElementException("No active campaigns found");
+                }));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
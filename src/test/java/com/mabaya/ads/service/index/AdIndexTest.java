@@ -0,0 +1,237 @@
+package com.mabaya.ads.service.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class AdIndexTest {
+
+  private AdIndex adIndex;
+  private long nextId;
+
+  @BeforeEach
+  void setUp() {
+    adIndex = new AdIndex(Jackson2ObjectMapperBuilder.json().build());
+    nextId = 1;
+  }
+
+  private Product createProduct(Category category, long price) {
+    final long id = nextId++;
+    return new Product(id, "Product " + id, BigDecimal.valueOf(price), category, "SN" + id);
+  }
+
+  private IndexedCampaign createCampaign(long bid, Product... products) {
+    return adIndex.toIndexedCampaign(
+        new Campaign(
+            nextId++, "Campaign", Instant.now(), BigDecimal.valueOf(bid), List.of(products)));
+  }
+
+  @Test
+  void shouldBeReadyOnlyOnceLoaded() {
+    assertFalse(adIndex.isReady());
+
+    adIndex.replaceAll(List.of(createCampaign(10, createProduct(Category.BOOKS, 5))));
+
+    assertTrue(adIndex.isReady());
+    assertEquals(1, adIndex.size());
+  }
+
+  @Test
+  void shouldNotIndexCampaignWithoutProducts() {
+    assertNull(createCampaign(10));
+  }
+
+  @Test
+  void shouldReturnHighestPricedProductOfHighestBidCampaignInCategory() {
+    final Product cheapBook = createProduct(Category.BOOKS, 100);
+    final Product expensiveBook = createProduct(Category.BOOKS, 300);
+    final Product fashion = createProduct(Category.FASHION, 1000);
+    adIndex.activate(createCampaign(10, createProduct(Category.BOOKS, 900)));
+    adIndex.activate(createCampaign(50, cheapBook, expensiveBook, fashion));
+
+    final WinnerTable.Winner winner = adIndex.getWinner(Category.BOOKS);
+
+    assertNotNull(winner);
+    assertFalse(winner.fallback());
+    assertEquals(expensiveBook.getId(), winner.ad().product().id().orElseThrow());
+  }
+
+  @Test
+  void shouldFallBackToHighestBidCampaignWhenCategoryHasNoActiveCampaign() {
+    final Product fashion = createProduct(Category.FASHION, 1000);
+    adIndex.activate(createCampaign(10, fashion, createProduct(Category.PETS, 5)));
+    adIndex.activate(createCampaign(5, createProduct(Category.PETS, 5000)));
+
+    final WinnerTable.Winner winner = adIndex.getWinner(Category.BOOKS);
+
+    assertNotNull(winner);
+    assertTrue(winner.fallback());
+    assertEquals(fashion.getId(), winner.ad().product().id().orElseThrow());
+    assertSame(winner, adIndex.getWinner(null));
+  }
+
+  @Test
+  void shouldReplaceAndDeactivateCampaigns() {
+    final IndexedCampaign campaign = createCampaign(10, createProduct(Category.BOOKS, 1));
+    adIndex.activate(campaign);
+    final Product replacement = createProduct(Category.BOOKS, 2);
+    adIndex.activate(
+        adIndex.toIndexedCampaign(
+            new Campaign(
+                campaign.id(), "Campaign", Instant.now(), BigDecimal.TEN, List.of(replacement))));
+
+    assertEquals(1, adIndex.size());
+    assertEquals(
+        replacement.getId(), adIndex.getWinner(Category.BOOKS).ad().product().id().orElseThrow());
+
+    adIndex.deactivate(campaign.id());
+
+    assertEquals(0, adIndex.size());
+    assertNull(adIndex.getWinner(Category.BOOKS));
+    assertNull(adIndex.getWinner(null));
+  }
+
+  @Test
+  void shouldIndexCampaignFromCatalog() {
+    final Product cheapBook = createProduct(Category.BOOKS, 100);
+    final Product expensiveBook = createProduct(Category.BOOKS, 300);
+    final Product fashion = createProduct(Category.FASHION, 1000);
+    adIndex.replaceCatalog(
+        ProductCatalog.builder(3).add(cheapBook).add(expensiveBook).add(fashion).build());
+    final Campaign campaign =
+        new Campaign(nextId++, "Campaign", Instant.now(), BigDecimal.TEN, null);
+
+    adIndex.activate(
+        adIndex.toIndexedCampaign(
+            campaign, new long[] {cheapBook.getId(), expensiveBook.getId(), fashion.getId(), 999}));
+
+    final ServedAd book = adIndex.getWinner(Category.BOOKS).ad();
+    assertEquals(expensiveBook.getId(), book.product().id().orElseThrow());
+    assertEquals(0, BigDecimal.valueOf(300).compareTo(book.product().price()));
+    assertEquals(expensiveBook.getTitle(), book.product().title());
+    assertEquals(
+        fashion.getId(), adIndex.getWinner(Category.PETS).ad().product().id().orElseThrow());
+    assertNull(adIndex.toIndexedCampaign(campaign, new long[] {999}));
+  }
+
+  @Test
+  void shouldShareRankedCampaignsUntilActiveSetChanges() {
+    final IndexedCampaign low = createCampaign(5, createProduct(Category.BOOKS, 1));
+    final IndexedCampaign high =
+        createCampaign(50, createProduct(Category.FASHION, 1), createProduct(Category.BOOKS, 2));
+    adIndex.replaceAll(List.of(low, high));
+
+    final RankedCampaigns ranked = adIndex.getRankedCampaigns();
+
+    assertEquals(List.of(high, low), ranked.all());
+    assertEquals(List.of(high, low), ranked.in(Category.BOOKS));
+    assertEquals(List.of(high), ranked.in(Category.FASHION));
+    assertEquals(List.of(), ranked.in(Category.PETS));
+    assertSame(ranked, adIndex.getRankedCampaigns());
+
+    adIndex.deactivate(high.id());
+
+    assertEquals(List.of(high, low), ranked.all());
+    assertEquals(List.of(low), adIndex.getRankedCampaigns().all());
+  }
+
+  @Test
+  void shouldRankTopAdsByBidThenPrice() {
+    final Product cheapBook = createProduct(Category.BOOKS, 100);
+    final Product expensiveBook = createProduct(Category.BOOKS, 300);
+    final Product middleBook = createProduct(Category.BOOKS, 200);
+    final Product lowBidBook = createProduct(Category.BOOKS, 900);
+    final IndexedCampaign first =
+        createCampaign(50, cheapBook, expensiveBook, createProduct(Category.FASHION, 1000));
+    final IndexedCampaign second = createCampaign(50, middleBook, expensiveBook);
+    final IndexedCampaign lowBid = createCampaign(10, lowBidBook);
+    adIndex.replaceAll(List.of(lowBid, second, first));
+
+    final List<RankedCampaigns.RankedAd> top = adIndex.getRankedCampaigns().top(Category.BOOKS, 10);
+
+    // Equal bids are merged by price, the book of both campaigns is ranked once
+    assertEquals(
+        List.of(
+            first.id() + ":" + expensiveBook.getId(),
+            second.id() + ":" + middleBook.getId(),
+            first.id() + ":" + cheapBook.getId(),
+            lowBid.id() + ":" + lowBidBook.getId()),
+        top.stream().map(ad -> ad.campaignId() + ":" + ad.product().id().orElseThrow()).toList());
+    assertFalse(top.get(0).fallback());
+    assertEquals(top.subList(0, 2), adIndex.getRankedCampaigns().top(Category.BOOKS, 2));
+  }
+
+  @Test
+  void shouldBreakBidTiesByPriceThenLowestIdLikeTopAds() {
+    final IndexedCampaign cheap =
+        createCampaign(50, createProduct(Category.BOOKS, 100), createProduct(Category.PETS, 900));
+    final IndexedCampaign expensive = createCampaign(50, createProduct(Category.BOOKS, 300));
+    final IndexedCampaign sameExpensive = createCampaign(50, createProduct(Category.BOOKS, 300));
+    adIndex.replaceAll(List.of(sameExpensive, cheap, expensive));
+
+    assertEquals(expensive.id(), adIndex.getWinner(Category.BOOKS).campaignId());
+    // The highest priced product overall is the pet
+    assertEquals(cheap.id(), adIndex.getWinner(null).campaignId());
+    for (Category category : List.of(Category.BOOKS, Category.PETS, Category.OFFICE)) {
+      final WinnerTable.Winner winner = adIndex.getWinner(category);
+      final RankedCampaigns.RankedAd top = adIndex.getRankedCampaigns().top(category, 1).get(0);
+      assertEquals(winner.campaignId(), top.campaignId());
+      assertEquals(winner.ad().product(), top.product());
+    }
+  }
+
+  @Test
+  void shouldRankAllProductsWhenCategoryHasNoActiveCampaign() {
+    final Product fashion = createProduct(Category.FASHION, 1000);
+    final Product book = createProduct(Category.BOOKS, 10);
+    final IndexedCampaign campaign = createCampaign(10, book, fashion);
+    adIndex.activate(campaign);
+
+    final List<RankedCampaigns.RankedAd> top = adIndex.getRankedCampaigns().top(Category.PETS, 5);
+
+    assertEquals(
+        List.of(fashion.getId(), book.getId()),
+        top.stream().map(ad -> ad.product().id().orElseThrow()).toList());
+    assertTrue(top.stream().allMatch(ad -> ad.campaignId() == campaign.id() && ad.fallback()));
+    assertEquals(fashion.getTitle(), top.get(0).product().title());
+    assertEquals(0, BigDecimal.valueOf(1000).compareTo(top.get(0).product().price()));
+  }
+
+  @Test
+  void shouldFillSlotWithTopProductsNotServedThenFallBack() {
+    final Product cheapBook = createProduct(Category.BOOKS, 10);
+    final Product expensiveBook = createProduct(Category.BOOKS, 30);
+    final Product otherBook = createProduct(Category.BOOKS, 20);
+    final Product pet = createProduct(Category.PETS, 1000);
+    final IndexedCampaign books = createCampaign(50, cheapBook, expensiveBook);
+    final IndexedCampaign others = createCampaign(10, otherBook, pet);
+    adIndex.replaceAll(List.of(books, others));
+    final Set<Long> servedProductIds = new HashSet<>(Set.of(expensiveBook.getId()));
+
+    final List<RankedCampaigns.RankedAd> slot =
+        adIndex.getRankedCampaigns().topNotServed(Category.BOOKS, 3, servedProductIds);
+
+    // Both remaining books, by bid, then the highest priced product of all campaigns
+    assertEquals(
+        List.of(cheapBook.getId(), otherBook.getId(), pet.getId()),
+        slot.stream().map(ad -> ad.product().id().orElseThrow()).toList());
+    assertEquals(
+        List.of(false, false, true),
+        slot.stream().map(RankedCampaigns.RankedAd::fallback).toList());
+    assertEquals(
+        Set.of(cheapBook.getId(), expensiveBook.getId(), otherBook.getId(), pet.getId()),
+        servedProductIds);
+    assertEquals(
+        List.of(), adIndex.getRankedCampaigns().topNotServed(Category.PETS, 2, servedProductIds));
+  }
+}
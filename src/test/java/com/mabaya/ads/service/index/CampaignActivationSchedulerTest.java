@@ -0,0 +1,178 @@
+package com.mabaya.ads.service.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import com.mabaya.ads.service.CampaignService;
+import com.mabaya.ads.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@ExtendWith(MockitoExtension.class)
+class CampaignActivationSchedulerTest {
+
+  @Mock private CampaignService campaignService;
+  @Mock private ProductService productService;
+
+  private AdIndex adIndex;
+  private CampaignActivationScheduler scheduler;
+  private long nextId;
+
+  @BeforeEach
+  void setUp() {
+    adIndex = new AdIndex(Jackson2ObjectMapperBuilder.json().build());
+    scheduler =
+        new CampaignActivationScheduler(
+            campaignService, productService, adIndex, new SimpleMeterRegistry(), true);
+    nextId = 1;
+  }
+
+  @AfterEach
+  void tearDown() {
+    scheduler.destroy();
+  }
+
+  private Campaign createCampaign(Instant startDate, Duration activeDuration) {
+    final long productId = nextId++;
+    final Product product =
+        new Product(productId, "Product", BigDecimal.TEN, Category.BOOKS, "SN" + productId);
+    return new Campaign(
+        nextId++,
+        "Campaign",
+        startDate,
+        startDate.plus(activeDuration),
+        BigDecimal.ONE,
+        List.of(product));
+  }
+
+  private void mockLoad(List<Campaign> campaigns) {
+    when(campaignService.getActiveAndUpcomingCampaigns(any())).thenReturn(campaigns);
+    final Map<Long, long[]> productIds =
+        campaigns.stream()
+            .collect(
+                Collectors.toMap(
+                    Campaign::getId,
+                    campaign ->
+                        campaign.getProducts().stream().mapToLong(Product::getId).toArray()));
+    when(campaignService.getProductIdsOfActiveAndUpcomingCampaigns(any())).thenReturn(productIds);
+    final ProductCatalog.Builder catalog = ProductCatalog.builder(campaigns.size());
+    campaigns.stream()
+        .flatMap(campaign -> campaign.getProducts().stream())
+        .sorted(Comparator.comparing(Product::getId))
+        .forEach(catalog::add);
+    when(productService.loadCatalog()).thenReturn(catalog.build());
+  }
+
+  private static void awaitUntil(java.util.function.BooleanSupplier condition)
+      throws InterruptedException {
+    final Instant deadline = Instant.now().plusSeconds(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue(Instant.now().isBefore(deadline), "Condition not met in time");
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  void shouldLoadActiveCampaignsAndScheduleTransitions() {
+    final Instant now = Instant.now();
+    mockLoad(
+        List.of(
+            createCampaign(now.minus(1, ChronoUnit.DAYS), Duration.ofDays(10)),
+            createCampaign(now.plus(1, ChronoUnit.DAYS), Duration.ofDays(10))));
+
+    scheduler.load();
+
+    assertTrue(adIndex.isReady());
+    assertEquals(1, adIndex.size());
+    assertEquals(2, adIndex.getCatalog().size());
+    // One expiry for the active campaign, one activation for the upcoming campaign
+    assertEquals(2, scheduler.getPendingEventCount());
+  }
+
+  @Test
+  void shouldActivateAndExpireCampaignOnTime() throws InterruptedException {
+    scheduler.track(createCampaign(Instant.now().plusMillis(100), Duration.ofMillis(200)));
+
+    assertEquals(0, adIndex.size());
+    awaitUntil(() -> adIndex.size() == 1);
+    awaitUntil(() -> adIndex.size() == 0);
+    assertEquals(0, scheduler.getPendingEventCount());
+  }
+
+  @Test
+  void shouldIgnoreEndedCampaigns() {
+    scheduler.track(createCampaign(Instant.now().minus(20, ChronoUnit.DAYS), Duration.ofDays(10)));
+
+    assertEquals(0, adIndex.size());
+    assertEquals(0, scheduler.getPendingEventCount());
+  }
+
+  @Test
+  void shouldCancelPendingTransitionsWhenUntracked() {
+    final Campaign campaign = createCampaign(Instant.now(), Duration.ofDays(1));
+    scheduler.track(campaign);
+    assertEquals(1, adIndex.size());
+
+    scheduler.untrack(campaign.getId());
+
+    assertEquals(0, adIndex.size());
+    assertEquals(0, scheduler.getPendingEventCount());
+  }
+
+  @Test
+  void shouldTrackWithoutWaitingForLoadAndReplayOnTopOfIt() throws Exception {
+    final Instant now = Instant.now();
+    final Campaign loaded = createCampaign(now.minus(1, ChronoUnit.DAYS), Duration.ofDays(10));
+    final Campaign tracked = createCampaign(now.minus(1, ChronoUnit.DAYS), Duration.ofDays(10));
+    mockLoad(List.of(loaded));
+    final ProductCatalog catalog = productService.loadCatalog();
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch proceed = new CountDownLatch(1);
+    when(productService.loadCatalog())
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              assertTrue(proceed.await(5, TimeUnit.SECONDS));
+              return catalog;
+            });
+    final CompletableFuture<Void> load = CompletableFuture.runAsync(scheduler::load);
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+    // Applied to the current set while the catalog is loading, and again on the loaded set
+    CompletableFuture.runAsync(() -> scheduler.track(tracked)).get(5, TimeUnit.SECONDS);
+    assertEquals(
+        List.of(tracked.getId()),
+        adIndex.getRankedCampaigns().all().stream().map(IndexedCampaign::id).toList());
+    proceed.countDown();
+    load.get(5, TimeUnit.SECONDS);
+
+    assertEquals(
+        Set.of(loaded.getId(), tracked.getId()),
+        adIndex.getRankedCampaigns().all().stream()
+            .map(IndexedCampaign::id)
+            .collect(Collectors.toSet()));
+    assertEquals(2, scheduler.getPendingEventCount());
+  }
+}
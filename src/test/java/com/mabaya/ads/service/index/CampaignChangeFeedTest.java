@@ -0,0 +1,124 @@
+package com.mabaya.ads.service.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.mabaya.ads.model.Campaign;
+import com.mabaya.ads.model.CampaignChange;
+import com.mabaya.ads.repository.CampaignChanges;
+import com.mabaya.ads.repository.CampaignOutboxRepository;
+import com.mabaya.ads.service.CampaignService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CampaignChangeFeedTest {
+
+  private static final int BATCH_SIZE = 10;
+  private static final int RESYNC_THRESHOLD = 100;
+
+  @Mock private CampaignOutboxRepository outboxRepository;
+  @Mock private CampaignService campaignService;
+  @Mock private CampaignActivationScheduler scheduler;
+
+  private CampaignChangeFeed startFeed() {
+    final CampaignChangeFeed feed =
+        new CampaignChangeFeed(
+            outboxRepository,
+            campaignService,
+            scheduler,
+            new SimpleMeterRegistry(),
+            true,
+            BATCH_SIZE,
+            RESYNC_THRESHOLD,
+            Duration.ofMinutes(1),
+            Duration.ofHours(1));
+    when(outboxRepository.findCurrentSnapshot()).thenReturn("100:100:");
+    feed.start();
+    return feed;
+  }
+
+  private static CampaignChange change(long id, long campaignId) {
+    return new CampaignChange(id, campaignId, Instant.now());
+  }
+
+  private static Campaign campaign(long id) {
+    return new Campaign(
+        id, "Campaign", Instant.now(), Instant.now().plusSeconds(60), BigDecimal.ONE, List.of());
+  }
+
+  @Test
+  void shouldTrackChangedCampaignsAndUntrackRemovedOnes() {
+    final CampaignChangeFeed feed = startFeed();
+    final Campaign changed = campaign(10);
+    when(outboxRepository.findCommittedSince("100:100:", RESYNC_THRESHOLD + 1))
+        .thenReturn(new CampaignChanges("102:102:", List.of(change(1, 10), change(2, 11))));
+    when(campaignService.getCampaignsWithProducts(Set.of(10L, 11L))).thenReturn(List.of(changed));
+
+    feed.poll();
+
+    verify(scheduler).track(changed);
+    verify(scheduler).untrack(11L);
+    assertEquals("102:102:", feed.getSnapshot());
+  }
+
+  @Test
+  void shouldApplyChangeCommittedAfterChangesWithHigherIds() {
+    final CampaignChangeFeed feed = startFeed();
+    // Change 2 is recorded by transaction 101, which is still in progress
+    when(outboxRepository.findCommittedSince("100:100:", RESYNC_THRESHOLD + 1))
+        .thenReturn(new CampaignChanges("101:103:101", List.of(change(3, 30))));
+    when(campaignService.getCampaignsWithProducts(any())).thenReturn(List.of());
+    feed.poll();
+    assertEquals("101:103:101", feed.getSnapshot());
+
+    when(outboxRepository.findCommittedSince("101:103:101", RESYNC_THRESHOLD + 1))
+        .thenReturn(new CampaignChanges("103:103:", List.of(change(2, 20))));
+    feed.poll();
+
+    verify(scheduler).untrack(30L);
+    verify(scheduler).untrack(20L);
+    assertEquals("103:103:", feed.getSnapshot());
+  }
+
+  @Test
+  void shouldApplyChangesInBatches() {
+    final CampaignChangeFeed feed = startFeed();
+    final List<CampaignChange> changes =
+        LongStream.rangeClosed(1, BATCH_SIZE + 1).mapToObj(id -> change(id, id)).toList();
+    when(outboxRepository.findCommittedSince("100:100:", RESYNC_THRESHOLD + 1))
+        .thenReturn(new CampaignChanges("200:200:", changes));
+    when(campaignService.getCampaignsWithProducts(any())).thenReturn(List.of());
+
+    feed.poll();
+
+    verify(campaignService, times(2)).getCampaignsWithProducts(any());
+    verify(scheduler, times(BATCH_SIZE + 1)).untrack(anyLong());
+    assertEquals("200:200:", feed.getSnapshot());
+  }
+
+  @Test
+  void shouldReloadIndexWhenTooFarBehind() {
+    final CampaignChangeFeed feed = startFeed();
+    final List<CampaignChange> changes =
+        LongStream.rangeClosed(1, RESYNC_THRESHOLD + 1).mapToObj(id -> change(id, id)).toList();
+    when(outboxRepository.findCommittedSince("100:100:", RESYNC_THRESHOLD + 1))
+        .thenReturn(new CampaignChanges("300:300:", changes));
+    when(outboxRepository.findCurrentSnapshot()).thenReturn("301:301:");
+
+    feed.poll();
+
+    verify(scheduler).load();
+    verifyNoInteractions(campaignService);
+    assertEquals("301:301:", feed.getSnapshot());
+  }
+}
@@ -0,0 +1,82 @@
+package com.mabaya.ads.service.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mabaya.ads.dto.ProductDTO;
+import com.mabaya.ads.model.Category;
+import com.mabaya.ads.model.Product;
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ProductCatalogTest {
+
+  private static Product createProduct(long id, Category category) {
+    return new Product(
+        id, "Product " + id, BigDecimal.valueOf(id * 100 + 99, 2), category, "SN" + id);
+  }
+
+  @Test
+  void shouldLookUpProductsById() {
+    final ProductCatalog.Builder builder = ProductCatalog.builder(1);
+    IntStream.rangeClosed(1, 1000)
+        .forEach(i -> builder.add(createProduct(i * 2L, Category.values()[i % 10])));
+    final ProductCatalog catalog = builder.build();
+
+    assertEquals(1000, catalog.size());
+    assertEquals(-1, catalog.rowOf(3));
+    final int row = catalog.rowOf(500);
+    assertEquals(500, catalog.id(row));
+    assertEquals(500_990_000L, catalog.priceMicros(row));
+    assertEquals(Category.values()[250 % 10], catalog.category(row));
+    assertEquals("Product 500", catalog.title(row));
+    assertEquals("SN500", catalog.serialNumber(row));
+  }
+
+  @Test
+  void shouldIndexRowsByCategory() {
+    final ProductCatalog catalog =
+        ProductCatalog.builder(3)
+            .add(createProduct(1, Category.BOOKS))
+            .add(createProduct(2, Category.PETS))
+            .add(createProduct(3, Category.BOOKS))
+            .build();
+
+    assertArrayEquals(new int[] {0, 2}, catalog.rowsIn(Category.BOOKS));
+    assertArrayEquals(new int[] {1}, catalog.rowsIn(Category.PETS));
+    assertEquals(0, catalog.rowsIn(Category.OFFICE).length);
+  }
+
+  @Test
+  void shouldRoundTripTextAndDTO() {
+    final Product product =
+        new Product(
+            7L,
+            "Caf\u00e9 \u2615 Cr\u00e8me",
+            new BigDecimal("12.50"),
+            Category.HOMEGOODS,
+            "HOM00000007");
+    final ProductCatalog catalog = ProductCatalog.builder(1).add(product).build();
+
+    assertEquals(
+        new ProductDTO(
+            Optional.of(7L),
+            "Caf\u00e9 \u2615 Cr\u00e8me",
+            new BigDecimal("12.50"),
+            Category.HOMEGOODS,
+            "HOM00000007"),
+        catalog.toDTO(0));
+  }
+
+  @Test
+  void shouldRejectProductsOutOfOrder() {
+    final ProductCatalog.Builder builder =
+        ProductCatalog.builder(2).add(createProduct(2, Category.BOOKS));
+
+    assertThrows(
+        IllegalArgumentException.class, () -> builder.add(createProduct(1, Category.BOOKS)));
+    assertThrows(
+        IllegalArgumentException.class, () -> builder.add(createProduct(2, Category.BOOKS)));
+  }
+}
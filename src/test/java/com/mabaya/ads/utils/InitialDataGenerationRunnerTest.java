@@ -1,15 +1,22 @@
 package com.mabaya.ads.utils;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import com.mabaya.ads.service.CampaignService;
 import com.mabaya.ads.service.ProductService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.ApplicationEventPublisher;
 
 @ExtendWith(MockitoExtension.class)
 class InitialDataGenerationRunnerTest {
@@ -18,6 +25,12 @@ class InitialDataGenerationRunnerTest {
 
   @Mock private CampaignService campaignService;
 
+  @Mock private BulkDataSeeder bulkDataSeeder;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  @Spy private DataGenerationHealthIndicator healthIndicator;
+
   @Spy private InitialDataGenerationRunner runnerSpy;
 
   @BeforeEach
@@ -25,6 +38,9 @@ class InitialDataGenerationRunnerTest {
     runnerSpy = new InitialDataGenerationRunner();
     runnerSpy.setProductService(productService);
     runnerSpy.setCampaignService(campaignService);
+    runnerSpy.setBulkDataSeeder(bulkDataSeeder);
+    runnerSpy.setHealthIndicator(healthIndicator);
+    runnerSpy.setEventPublisher(eventPublisher);
     runnerSpy = spy(runnerSpy);
   }
 
@@ -62,4 +78,45 @@ class InitialDataGenerationRunnerTest {
     verify(productService, never()).persistProducts(anyList());
     verify(campaignService, never()).persistCampaigns(anyList());
   }
+
+  @Test
+  void testShouldSeedInBulkWhenEnabled() {
+    when(productService.countAllProducts()).thenReturn(0L);
+    when(campaignService.countAllCampaigns()).thenReturn(0L);
+    runnerSpy.setBulk(true);
+
+    runnerSpy.run(null);
+
+    verify(bulkDataSeeder, times(1)).seed(1000, 100);
+    verify(productService, never()).persistProducts(anyList());
+    verify(campaignService, never()).persistCampaigns(anyList());
+  }
+
+  @Test
+  void testShouldGenerateInitialDataInBackgroundWhenEnabled() throws InterruptedException {
+    final CountDownLatch counting = new CountDownLatch(1);
+    final CountDownLatch proceed = new CountDownLatch(1);
+    when(productService.countAllProducts())
+        .thenAnswer(
+            invocation -> {
+              counting.countDown();
+              proceed.await(5, TimeUnit.SECONDS);
+              return 0L;
+            });
+    when(campaignService.countAllCampaigns()).thenReturn(0L);
+    runnerSpy.setBackground(true);
+
+    runnerSpy.run(null);
+
+    assertEquals(true, counting.await(5, TimeUnit.SECONDS));
+    assertEquals(Status.OUT_OF_SERVICE, healthIndicator.health().getStatus());
+    proceed.countDown();
+    verify(healthIndicator, timeout(5000)).generated();
+    verify(campaignService, atLeastOnce()).persistCampaigns(anyList());
+    // Not ready before the event reloaded the ad index
+    final InOrder inOrder = inOrder(eventPublisher, healthIndicator);
+    inOrder.verify(eventPublisher).publishEvent(any(InitialDataGeneratedEvent.class));
+    inOrder.verify(healthIndicator).generated();
+    assertEquals(Status.UP, healthIndicator.health().getStatus());
+  }
 }
@@ -0,0 +1,147 @@
+package com.mabaya.ads.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mabaya.ads.AbstractIntegrationTest;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+public class SchemaMigrationCommandIntegrationTest extends AbstractIntegrationTest {
+
+  private static final String[] SCHEMA_QUERIES = {
+    "SELECT 'column ' || table_name || '.' || column_name || ' ' || data_type"
+        + " || coalesce(' ' || character_maximum_length, '')"
+        + " || coalesce(' ' || numeric_precision || ',' || numeric_scale, '')"
+        + " || ' ' || is_nullable || coalesce(' ' || column_default, '')"
+        + " FROM information_schema.columns WHERE table_schema = current_schema()"
+        + " AND table_name <> 'flyway_schema_history'",
+    "SELECT 'constraint ' || conrelid::regclass || ' ' || conname || ' ' ||"
+        + " pg_get_constraintdef(oid) FROM pg_constraint WHERE connamespace ="
+        + " current_schema()::regnamespace AND conrelid::regclass::text <> 'flyway_schema_history'",
+    "SELECT 'index ' || indexdef FROM pg_indexes WHERE schemaname = current_schema()"
+        + " AND tablename <> 'flyway_schema_history'",
+    "SELECT 'sequence ' || sequencename || ' ' || increment_by FROM pg_sequences"
+        + " WHERE schemaname = current_schema()",
+    "SELECT 'trigger ' || tgrelid::regclass || ' ' || tgname FROM pg_trigger WHERE NOT"
+        + " tgisinternal",
+    "SELECT 'function ' || proname || ' ' || md5(prosrc) FROM pg_proc"
+        + " WHERE pronamespace = current_schema()::regnamespace"
+  };
+
+  @Test
+  public void shouldMigrateEmptyDatabase() throws SQLException {
+    final String url = createDatabase("migrate_empty");
+
+    assertEquals(0, migrate(url));
+
+    try (Connection connection = connect(url)) {
+      final List<String> history = history(connection);
+      assertEquals("1 SQL", history.get(0));
+      assertEquals("null SQL", history.get(history.size() - 1));
+      assertEquals(
+          List.of(
+              "sequence campaign_change_sequence 1",
+              "sequence campaign_sequence 50",
+              "sequence product_sequence 50"),
+          describeSchema(connection).stream().filter(line -> line.startsWith("sequence")).toList());
+    }
+  }
+
+  @Test
+  public void shouldMigratePreSeriesDatabaseToSameSchema() throws SQLException {
+    final String emptyUrl = createDatabase("migrate_reference");
+    assertEquals(0, migrate(emptyUrl));
+    final String url = createDatabase("migrate_pre_series");
+    try (Connection connection = connect(url)) {
+      ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/pre-series.sql"));
+    }
+
+    assertEquals(0, migrate(url));
+
+    try (Connection reference = connect(emptyUrl);
+        Connection connection = connect(url)) {
+      final List<String> history = history(connection);
+      assertEquals("1 BASELINE", history.get(0));
+      assertEquals("2 SQL", history.get(1));
+      assertEquals("null SQL", history.get(history.size() - 1));
+      assertEquals(describeSchema(reference), describeSchema(connection));
+      // Campaigns stored without end dates are active for the default period
+      assertEquals(
+          List.of("1 2024-01-11", "2 2024-01-15"),
+          query(
+              connection,
+              "SELECT id || ' ' || to_char(end_date AT TIME ZONE 'UTC', 'YYYY-MM-DD')"
+                  + " FROM campaign ORDER BY id"));
+      assertEquals(
+          List.of("1 BOOKS", "2 BOOKS", "2 PETS"),
+          query(
+              connection,
+              "SELECT campaign_id || ' ' || category FROM campaign_category"
+                  + " ORDER BY campaign_id, category"));
+    }
+  }
+
+  private static int migrate(String url) {
+    return SchemaMigrationCommand.run(
+        "--spring.datasource.url=" + url,
+        "--spring.datasource.username=" + postgreSQLContainer.getUsername(),
+        "--spring.datasource.password=" + postgreSQLContainer.getPassword());
+  }
+
+  private static String createDatabase(String name) throws SQLException {
+    try (Connection connection = connect(postgreSQLContainer.getJdbcUrl());
+        Statement statement = connection.createStatement()) {
+      statement.execute("DROP DATABASE IF EXISTS " + name);
+      statement.execute("CREATE DATABASE " + name);
+    }
+    return "jdbc:postgresql://"
+        + postgreSQLContainer.getHost()
+        + ":"
+        + postgreSQLContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT)
+        + "/"
+        + name;
+  }
+
+  private static Connection connect(String url) throws SQLException {
+    return DriverManager.getConnection(
+        url, postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword());
+  }
+
+  /** The applied migrations by version and type, in the order they were applied. */
+  private static List<String> history(Connection connection) throws SQLException {
+    return query(
+        connection,
+        "SELECT coalesce(version, 'null') || ' ' || type FROM flyway_schema_history"
+            + " WHERE success ORDER BY installed_rank");
+  }
+
+  private static List<String> describeSchema(Connection connection) throws SQLException {
+    final List<String> lines = new ArrayList<>();
+    for (String schemaQuery : SCHEMA_QUERIES) {
+      lines.addAll(query(connection, schemaQuery));
+    }
+    Collections.sort(lines);
+    return lines;
+  }
+
+  private static List<String> query(Connection connection, String sql) throws SQLException {
+    final List<String> rows = new ArrayList<>();
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      while (resultSet.next()) {
+        rows.add(resultSet.getString(1));
+      }
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,61 @@
+package com.mabaya.ads.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mabaya.ads.utils.SeedDataGenerator.SeedCampaign;
+import com.mabaya.ads.utils.SeedDataGenerator.SeedProduct;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class SeedDataGeneratorTest {
+
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+  @Test
+  void shouldReproduceDataFromTheSameSplits() {
+    final SplittableRandom first = new SplittableRandom(7).split();
+    final SplittableRandom second = new SplittableRandom(7).split();
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(SeedDataGenerator.product(i, first), SeedDataGenerator.product(i, second));
+      final SeedCampaign campaign = SeedDataGenerator.campaign(i, 100, 1000, NOW, first);
+      final SeedCampaign same = SeedDataGenerator.campaign(i, 100, 1000, NOW, second);
+      assertEquals(campaign.startDate(), same.startDate());
+      assertEquals(campaign.bid(), same.bid());
+      assertArrayEquals(campaign.productIndexes(), same.productIndexes());
+    }
+  }
+
+  @Test
+  void shouldGenerateUniqueSerialNumbers() {
+    final SplittableRandom random = new SplittableRandom(7);
+    final Set<String> serialNumbers = new HashSet<>();
+
+    for (int i = 0; i < 10_000; i++) {
+      final SeedProduct product = SeedDataGenerator.product(i, random);
+      assertTrue(serialNumbers.add(product.serialNumber()), product.serialNumber());
+    }
+  }
+
+  @Test
+  void shouldSampleDistinctProductsWithinRange() {
+    final SplittableRandom random = new SplittableRandom(7);
+
+    for (int i = 0; i < 1000; i++) {
+      final long[] indexes = SeedDataGenerator.campaign(i, 1000, 12, NOW, random).productIndexes();
+      assertTrue(indexes.length >= 1);
+      assertTrue(indexes.length <= SeedDataGenerator.MAX_PRODUCTS_PER_CAMPAIGN);
+      assertEquals(indexes.length, Arrays.stream(indexes).distinct().count());
+      assertTrue(Arrays.stream(indexes).allMatch(index -> index >= 0 && index < 12));
+    }
+    for (int i = 0; i < 100; i++) {
+      assertTrue(
+          SeedDataGenerator.campaign(i, 1000, 3, NOW, random).productIndexes().length <= 3,
+          "at most all products");
+    }
+  }
+}
@@ -0,0 +1,37 @@
+-- A database created by Hibernate before the schema was migrated by Flyway, with the statements
+-- Hibernate ran, and a few campaigns stored without end dates
+
+create table campaign (
+    id bigint not null,
+    bid numeric(38,2),
+    name varchar(255),
+    start_date timestamp(6) with time zone,
+    primary key (id)
+);
+create table campaign_products (
+    campaign_id bigint not null,
+    products_id bigint not null
+);
+create table product (
+    id bigint not null,
+    category varchar(255) check (category in ('ELECTRONICS','FASHION','HOMEGOODS','BEAUTY','HEALTH','SPORTS','TRAVEL','BOOKS','PETS','OFFICE')),
+    price numeric(38,2),
+    serial_number varchar(255),
+    title varchar(255),
+    primary key (id)
+);
+create index idx_campaign_start_date on campaign (start_date);
+create index idx_product_category on product (category);
+alter table if exists product add constraint UK_i0l0yp44bh32fs5hwiah4cn8j unique (serial_number);
+create sequence campaign_sequence start with 1 increment by 1;
+create sequence product_sequence start with 1 increment by 1;
+alter table if exists campaign_products add constraint FK4bl2j3axfmd8a5oidjjwc84qe foreign key (products_id) references product;
+alter table if exists campaign_products add constraint FKkw37we8bbg8m74e2nuo8vfxo foreign key (campaign_id) references campaign;
+
+insert into product (id, category, price, serial_number, title)
+values (nextval('product_sequence'), 'BOOKS', 10.50, 'SN1', 'Product 1'),
+       (nextval('product_sequence'), 'PETS', 20.00, 'SN2', 'Product 2');
+insert into campaign (id, bid, name, start_date)
+values (nextval('campaign_sequence'), 1.25, 'Books', '2024-01-01T00:00:00Z'),
+       (nextval('campaign_sequence'), 2.50, 'Books and pets', '2024-01-05T00:00:00Z');
+insert into campaign_products (campaign_id, products_id) values (1, 1), (2, 1), (2, 2);